@@ -0,0 +1,184 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.trimou.engine.cache.ComputingCache;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Keeps track of the estimated memory footprint of cache entries and evicts
+ * the oldest entries once the limit is exceeded (FIFO).
+ *
+ * <p>
+ * An entry is only accounted for after it was inserted into the cache, i.e.
+ * not from within the computing function. The weight is estimated once when
+ * the entry is accounted for.
+ * </p>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ * @param <V>
+ */
+class CacheMemoryBound<V> {
+
+    private final long limit;
+
+    // Insertion order, guarded by this
+    private final Map<String, Entry<V>> entries;
+
+    // Lock-free view of the entries, only modified together with the entries
+    private final ConcurrentMap<String, Entry<V>> index;
+
+    // Only modified while holding this
+    private volatile long total;
+
+    /**
+     *
+     * @param limit
+     *            The max number of bytes
+     */
+    CacheMemoryBound(long limit) {
+        this.limit = limit;
+        this.entries = new LinkedHashMap<String, Entry<V>>();
+        this.index = new ConcurrentHashMap<String, Entry<V>>();
+    }
+
+    /**
+     *
+     * @param key
+     * @param value
+     * @return <code>true</code> if the given value obtained from the cache is
+     *         already accounted for, <code>false</code> otherwise
+     */
+    boolean isLoaded(String key, V value) {
+        Entry<V> entry = index.get(key);
+        return entry != null && entry.value == value;
+    }
+
+    /**
+     * Must be called when a new value is obtained from the cache, i.e. after
+     * it was inserted. Must not be called from within a computing function.
+     *
+     * @param cache
+     * @param key
+     * @param value
+     * @param weight
+     */
+    void loaded(ComputingCache<String, V> cache, String key, V value,
+            long weight) {
+        Entry<V> entry = new Entry<V>(value, weight);
+        synchronized (this) {
+            // Remove first so that the reloaded entry becomes the newest one
+            remove(key);
+            entries.put(key, entry);
+            index.put(key, entry);
+            total += weight;
+        }
+        if (cache.getIfPresent(key) != value) {
+            // The value was invalidated before it was accounted for
+            synchronized (this) {
+                if (entries.get(key) == entry) {
+                    remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Must be called when an entry is removed from the cache.
+     *
+     * @param key
+     */
+    synchronized void removed(String key) {
+        remove(key);
+    }
+
+    /**
+     * Invalidate the oldest entries until the total weight is within the
+     * limit. Must not be called from within a computing function.
+     *
+     * @param cache
+     */
+    void enforce(ComputingCache<String, V> cache) {
+        if (total <= limit) {
+            return;
+        }
+        final Set<String> evicted = Sets.newHashSet();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Entry<V>>> iterator = entries
+                    .entrySet().iterator();
+            while (total > limit && iterator.hasNext()) {
+                Map.Entry<String, Entry<V>> oldest = iterator.next();
+                iterator.remove();
+                index.remove(oldest.getKey());
+                total -= oldest.getValue().weight;
+                evicted.add(oldest.getKey());
+            }
+        }
+        if (!evicted.isEmpty()) {
+            cache.invalidate(new ComputingCache.KeyPredicate<String>() {
+                @Override
+                public boolean apply(String key) {
+                    return evicted.contains(key);
+                }
+            });
+        }
+    }
+
+    long getTotal() {
+        return total;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        index.clear();
+        total = 0;
+    }
+
+    private void remove(String key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry != null) {
+            index.remove(key);
+            total -= entry.weight;
+        }
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+
+        private final long weight;
+
+        Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+
+    }
+
+}
@@ -20,12 +20,16 @@ import static org.trimou.util.Checker.checkArgumentNotEmpty;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.trimou.Mustache;
+import org.trimou.engine.FootprintReport.TemplateFootprint;
 import org.trimou.engine.cache.ComputingCache;
 import org.trimou.engine.config.Configuration;
 import org.trimou.engine.config.ConfigurationFactory;
@@ -37,10 +41,12 @@ import org.trimou.engine.locator.TemplateLocator;
 import org.trimou.engine.parser.ParserFactory;
 import org.trimou.engine.parser.ParsingHandler;
 import org.trimou.engine.parser.ParsingHandlerFactory;
+import org.trimou.engine.parser.Template;
 import org.trimou.exception.MustacheException;
 import org.trimou.exception.MustacheProblem;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
 import com.google.common.io.CharStreams;
 
 /**
@@ -57,6 +63,10 @@ class DefaultMustacheEngine implements MustacheEngine {
 
     private final ComputingCache<String, Optional<String>> sourceCache;
 
+    private final CacheMemoryBound<Optional<Mustache>> templateMemoryBound;
+
+    private final CacheMemoryBound<Optional<String>> sourceMemoryBound;
+
     private final Configuration configuration;
 
     private final ParserFactory parserFactory;
@@ -73,6 +83,8 @@ class DefaultMustacheEngine implements MustacheEngine {
         parsingHandlerFactory = null;
         templateCache = null;
         sourceCache = null;
+        templateMemoryBound = null;
+        sourceMemoryBound = null;
     }
 
     /**
@@ -85,6 +97,18 @@ class DefaultMustacheEngine implements MustacheEngine {
         parserFactory = new ParserFactory();
         parsingHandlerFactory = new ParsingHandlerFactory();
 
+        Long maxMemory = configuration
+                .getLongPropertyValue(EngineConfigurationKey.TEMPLATE_CACHE_MAX_MEMORY);
+        if (maxMemory > 0) {
+            templateMemoryBound = new CacheMemoryBound<Optional<Mustache>>(
+                    maxMemory);
+            sourceMemoryBound = new CacheMemoryBound<Optional<String>>(
+                    maxMemory);
+        } else {
+            templateMemoryBound = null;
+            sourceMemoryBound = null;
+        }
+
         if (configuration
                 .getBooleanPropertyValue(EngineConfigurationKey.DEBUG_MODE)) {
             templateCache = null;
@@ -136,6 +160,44 @@ class DefaultMustacheEngine implements MustacheEngine {
         }
         templateCache.clear();
         sourceCache.clear();
+        if (templateMemoryBound != null) {
+            templateMemoryBound.clear();
+            sourceMemoryBound.clear();
+        }
+    }
+
+    public FootprintReport getFootprintReport(int limit) {
+        if (templateCache == null) {
+            return new FootprintReport(0, 0, 0, 0,
+                    Collections.<TemplateFootprint> emptyList());
+        }
+        long templatesFootprint = 0;
+        int templatesCount = 0;
+        List<TemplateFootprint> templates = Lists.newArrayList();
+        for (Entry<String, Optional<Mustache>> entry : templateCache
+                .getAllPresent().entrySet()) {
+            long footprint = getEstimatedFootprint(entry.getValue().orNull());
+            if (footprint > 0) {
+                templatesFootprint += footprint;
+                templatesCount++;
+                templates.add(new TemplateFootprint(entry.getKey(), footprint));
+            }
+        }
+        long sourcesFootprint = 0;
+        int sourcesCount = 0;
+        for (Optional<String> source : sourceCache.getAllPresent().values()) {
+            if (source.isPresent()) {
+                sourcesFootprint += getEstimatedFootprint(source.get());
+                sourcesCount++;
+            }
+        }
+        Collections.sort(templates);
+        if (templates.size() > limit) {
+            templates = Lists.newArrayList(templates.subList(0,
+                    Math.max(limit, 0)));
+        }
+        return new FootprintReport(templatesFootprint, templatesCount,
+                sourcesFootprint, sourcesCount, templates);
     }
 
     private ComputingCache<String, Optional<Mustache>> buildTemplateCache() {
@@ -148,6 +210,9 @@ class DefaultMustacheEngine implements MustacheEngine {
                 }, new ComputingCache.Listener<String>() {
                     @Override
                     public void entryInvalidated(String key, String cause) {
+                        if (templateMemoryBound != null) {
+                            templateMemoryBound.removed(key);
+                        }
                         logger.debug(
                                 "Removed template from cache [templateId: {}, cause: {}]",
                                 key, cause);
@@ -169,6 +234,9 @@ class DefaultMustacheEngine implements MustacheEngine {
                 }, new ComputingCache.Listener<String>() {
                     @Override
                     public void entryInvalidated(String key, String cause) {
+                        if (sourceMemoryBound != null) {
+                            sourceMemoryBound.removed(key);
+                        }
                         logger.debug(
                                 "Removed template source from cache [templateId: {}, cause: {}]",
                                 key, cause);
@@ -301,7 +369,15 @@ class DefaultMustacheEngine implements MustacheEngine {
 
     private Mustache getTemplateFromCache(String templateName) {
         try {
-            return templateCache.get(templateName).orNull();
+            Optional<Mustache> mustache = templateCache.get(templateName);
+            if (templateMemoryBound != null && mustache.isPresent()) {
+                if (!templateMemoryBound.isLoaded(templateName, mustache)) {
+                    templateMemoryBound.loaded(templateCache, templateName,
+                            mustache, getEstimatedFootprint(mustache.get()));
+                }
+                templateMemoryBound.enforce(templateCache);
+            }
+            return mustache.orNull();
         } catch (Exception e) {
             throw unwrapUncheckedExecutionException(e);
         }
@@ -309,12 +385,30 @@ class DefaultMustacheEngine implements MustacheEngine {
 
     private String getSourceFromCache(String templateName) {
         try {
-            return sourceCache.get(templateName).orNull();
+            Optional<String> source = sourceCache.get(templateName);
+            if (sourceMemoryBound != null && source.isPresent()) {
+                if (!sourceMemoryBound.isLoaded(templateName, source)) {
+                    sourceMemoryBound.loaded(sourceCache, templateName,
+                            source, getEstimatedFootprint(source.get()));
+                }
+                sourceMemoryBound.enforce(sourceCache);
+            }
+            return source.orNull();
         } catch (Exception e) {
             throw unwrapUncheckedExecutionException(e);
         }
     }
 
+    private long getEstimatedFootprint(Mustache mustache) {
+        return mustache instanceof Template ? ((Template) mustache)
+                .getEstimatedFootprint() : 0;
+    }
+
+    private long getEstimatedFootprint(String source) {
+        // Object header, fields and chars
+        return 40 + 2 * source.length();
+    }
+
     private RuntimeException unwrapUncheckedExecutionException(Exception e) {
         if (e.getCause() instanceof RuntimeException) {
             return (RuntimeException) e.getCause();
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An approximate memory footprint report of the template cache.
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ * @see MustacheEngine#getFootprintReport(int)
+ */
+public final class FootprintReport {
+
+    private final long templatesFootprint;
+
+    private final long sourcesFootprint;
+
+    private final int templatesCount;
+
+    private final int sourcesCount;
+
+    private final List<TemplateFootprint> largestTemplates;
+
+    /**
+     *
+     * @param templatesFootprint
+     * @param templatesCount
+     * @param sourcesFootprint
+     * @param sourcesCount
+     * @param largestTemplates
+     */
+    public FootprintReport(long templatesFootprint, int templatesCount,
+            long sourcesFootprint, int sourcesCount,
+            List<TemplateFootprint> largestTemplates) {
+        this.templatesFootprint = templatesFootprint;
+        this.templatesCount = templatesCount;
+        this.sourcesFootprint = sourcesFootprint;
+        this.sourcesCount = sourcesCount;
+        this.largestTemplates = Collections.unmodifiableList(largestTemplates);
+    }
+
+    /**
+     *
+     * @return the estimated number of bytes occupied by all cached compiled
+     *         templates
+     */
+    public long getTemplatesFootprint() {
+        return templatesFootprint;
+    }
+
+    /**
+     *
+     * @return the number of cached compiled templates
+     */
+    public int getTemplatesCount() {
+        return templatesCount;
+    }
+
+    /**
+     *
+     * @return the estimated number of bytes occupied by all cached template
+     *         sources
+     */
+    public long getSourcesFootprint() {
+        return sourcesFootprint;
+    }
+
+    /**
+     *
+     * @return the number of cached template sources
+     */
+    public int getSourcesCount() {
+        return sourcesCount;
+    }
+
+    /**
+     *
+     * @return the largest cached compiled templates, sorted by footprint in
+     *         descending order
+     */
+    public List<TemplateFootprint> getLargestTemplates() {
+        return largestTemplates;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "FootprintReport [templates: %s (%s B), sources: %s (%s B)]",
+                templatesCount, templatesFootprint, sourcesCount,
+                sourcesFootprint);
+    }
+
+    /**
+     *
+     * @author Martin Kouba
+     */
+    public static final class TemplateFootprint implements
+            Comparable<TemplateFootprint> {
+
+        private final String name;
+
+        private final long footprint;
+
+        /**
+         *
+         * @param name
+         * @param footprint
+         */
+        public TemplateFootprint(String name, long footprint) {
+            this.name = name;
+            this.footprint = footprint;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         *
+         * @return the estimated number of bytes
+         */
+        public long getFootprint() {
+            return footprint;
+        }
+
+        @Override
+        public int compareTo(TemplateFootprint other) {
+            // Descending order
+            return Long.compare(other.footprint, footprint);
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + footprint + " B";
+        }
+
+    }
+
+}
@@ -83,4 +83,16 @@ public interface MustacheEngine {
      */
     public void invalidateTemplateCache();
 
+    /**
+     * The footprint is only an approximation computed on demand from the
+     * current contents of the template cache.
+     *
+     * @param limit
+     *            The max number of the largest templates included
+     * @return the footprint report of the template cache
+     * @see EngineConfigurationKey#TEMPLATE_CACHE_MAX_MEMORY
+     * @since 1.8
+     */
+    public FootprintReport getFootprintReport(int limit);
+
 }
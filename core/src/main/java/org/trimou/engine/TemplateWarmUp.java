@@ -0,0 +1,409 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine;
+
+import static org.trimou.util.Checker.checkArgumentNotEmpty;
+import static org.trimou.util.Checker.checkArgumentNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trimou.Mustache;
+import org.trimou.engine.locator.TemplateLocator;
+import org.trimou.engine.parser.Template;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Warms up the templates of an engine before the real traffic comes, i.e.
+ * compiles the templates and renders each template with the representative
+ * sample data. The output is discarded. This populates the template cache,
+ * resolver hints and member caches of the resolvers.
+ *
+ * <pre>
+ * TemplateWarmUp.Report report = TemplateWarmUp.forEngine(engine)
+ *         .addSample(&quot;order&quot;, sampleOrder).addAllTemplates().run();
+ * </pre>
+ *
+ * <p>
+ * If an executor service is set the templates are warmed up in parallel.
+ * Samples of a single template are always rendered sequentially.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ * @see Report
+ */
+public final class TemplateWarmUp {
+
+    private static final Logger logger = LoggerFactory
+            .getLogger(TemplateWarmUp.class);
+
+    private final MustacheEngine engine;
+
+    private final Map<String, List<Object>> samples;
+
+    private ExecutorService executor;
+
+    /**
+     *
+     * @param engine
+     * @return a new warm-up for the given engine
+     */
+    public static TemplateWarmUp forEngine(MustacheEngine engine) {
+        return new TemplateWarmUp(engine);
+    }
+
+    private TemplateWarmUp(MustacheEngine engine) {
+        checkArgumentNotNull(engine);
+        this.engine = engine;
+        this.samples = new LinkedHashMap<String, List<Object>>();
+    }
+
+    /**
+     * The template will be rendered with the given sample data.
+     *
+     * @param templateId
+     * @param data
+     * @return self
+     */
+    public TemplateWarmUp addSample(String templateId, Object data) {
+        checkArgumentNotEmpty(templateId);
+        getSamples(templateId).add(data);
+        return this;
+    }
+
+    /**
+     * The template will be compiled only unless some sample data are added.
+     *
+     * @param templateId
+     * @return self
+     */
+    public TemplateWarmUp addTemplate(String templateId) {
+        checkArgumentNotEmpty(templateId);
+        getSamples(templateId);
+        return this;
+    }
+
+    /**
+     * Add all the templates available to the template locators of the engine.
+     *
+     * @return self
+     * @see TemplateLocator#getAllIdentifiers()
+     */
+    public TemplateWarmUp addAllTemplates() {
+        List<TemplateLocator> locators = engine.getConfiguration()
+                .getTemplateLocators();
+        if (locators != null) {
+            for (TemplateLocator locator : locators) {
+                for (String templateId : locator.getAllIdentifiers()) {
+                    addTemplate(templateId);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     *
+     * @param executor
+     *            The executor used to warm up the templates in parallel, may
+     *            be <code>null</code>
+     * @return self
+     */
+    public TemplateWarmUp setExecutor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Blocks until all the templates are warmed up.
+     *
+     * @return the report
+     */
+    public Report run() {
+
+        long start = System.currentTimeMillis();
+        List<Result> results = new ArrayList<Result>(samples.size());
+
+        if (executor != null) {
+            List<Future<Result>> futures = new ArrayList<Future<Result>>(
+                    samples.size());
+            for (final Entry<String, List<Object>> entry : samples.entrySet()) {
+                futures.add(executor.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() throws Exception {
+                        return warmUp(entry.getKey(), entry.getValue());
+                    }
+                }));
+            }
+            for (Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                } catch (ExecutionException e) {
+                    // Should never happen - warmUp() does not throw
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } else {
+            for (Entry<String, List<Object>> entry : samples.entrySet()) {
+                results.add(warmUp(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        Report report = new Report(results, System.currentTimeMillis()
+                - start);
+        logger.info("Warm-up finished: {}", report);
+        return report;
+    }
+
+    private List<Object> getSamples(String templateId) {
+        List<Object> templateSamples = samples.get(templateId);
+        if (templateSamples == null) {
+            templateSamples = new ArrayList<Object>();
+            samples.put(templateId, templateSamples);
+        }
+        return templateSamples;
+    }
+
+    private Result warmUp(String templateId, List<Object> templateSamples) {
+        Mustache mustache;
+        try {
+            mustache = engine.getMustache(templateId);
+        } catch (Exception e) {
+            logger.warn("Unable to compile the template: " + templateId, e);
+            return new Result(templateId, false, 0, e, null);
+        }
+        if (mustache == null) {
+            return new Result(templateId, false, 0, null, null);
+        }
+        int renderings = 0;
+        Exception failure = null;
+        for (Object data : templateSamples) {
+            try {
+                mustache.render(NullAppendable.INSTANCE, data);
+                renderings++;
+            } catch (Exception e) {
+                logger.warn("Unable to render the template: " + templateId, e);
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        List<MustacheTagInfo> coldTags = mustache instanceof Template ? ((Template) mustache)
+                .getRootSegment().getColdTags() : null;
+        return new Result(templateId, true, renderings, failure, coldTags);
+    }
+
+    /**
+     * The warm-up report.
+     *
+     * @author Martin Kouba
+     */
+    public static final class Report {
+
+        private final int templatesCount;
+
+        private final int renderingsCount;
+
+        private final long time;
+
+        private final Set<String> notFound;
+
+        private final Map<String, Exception> failures;
+
+        private final Map<String, List<MustacheTagInfo>> coldTags;
+
+        private Report(List<Result> results, long time) {
+            this.time = time;
+            int templates = 0;
+            int renderings = 0;
+            Set<String> notFound = Sets.newLinkedHashSet();
+            Map<String, Exception> failures = Maps.newLinkedHashMap();
+            Map<String, List<MustacheTagInfo>> coldTags = Maps
+                    .newLinkedHashMap();
+            for (Result result : results) {
+                if (!result.found) {
+                    if (result.failure == null) {
+                        notFound.add(result.templateId);
+                    }
+                } else {
+                    templates++;
+                }
+                renderings += result.renderings;
+                if (result.failure != null) {
+                    failures.put(result.templateId, result.failure);
+                }
+                if (result.coldTags != null && !result.coldTags.isEmpty()) {
+                    coldTags.put(result.templateId,
+                            ImmutableList.copyOf(result.coldTags));
+                }
+            }
+            this.templatesCount = templates;
+            this.renderingsCount = renderings;
+            this.notFound = ImmutableSet.copyOf(notFound);
+            this.failures = ImmutableMap.copyOf(failures);
+            this.coldTags = ImmutableMap.copyOf(coldTags);
+        }
+
+        /**
+         *
+         * @return the number of templates successfully compiled
+         */
+        public int getTemplatesCount() {
+            return templatesCount;
+        }
+
+        /**
+         *
+         * @return the number of successful renderings
+         */
+        public int getRenderingsCount() {
+            return renderingsCount;
+        }
+
+        /**
+         *
+         * @return the time in milliseconds
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         *
+         * @return the ids of templates which could not be found
+         */
+        public Set<String> getNotFound() {
+            return notFound;
+        }
+
+        /**
+         *
+         * @return the first failure for each template which could not be
+         *         compiled or rendered
+         */
+        public Map<String, Exception> getFailures() {
+            return failures;
+        }
+
+        /**
+         * A tag is cold if the sample data did not prime its resolver hint.
+         * Note that some keys never get a hint, e.g. keys resolved by a
+         * resolver which does not support hints.
+         *
+         * @return the cold tags for each template
+         * @see org.trimou.engine.segment.RootSegment#getColdTags()
+         */
+        public Map<String, List<MustacheTagInfo>> getColdTags() {
+            return coldTags;
+        }
+
+        /**
+         *
+         * @return <code>true</code> if all the templates were found and
+         *         rendered without failure and there are no cold tags
+         */
+        public boolean isComplete() {
+            return notFound.isEmpty() && failures.isEmpty()
+                    && coldTags.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            int coldTagsCount = 0;
+            for (List<MustacheTagInfo> tags : coldTags.values()) {
+                coldTagsCount += tags.size();
+            }
+            return String
+                    .format("Report [templates: %s, renderings: %s, time: %s ms, notFound: %s, failures: %s, coldTags: %s]",
+                            templatesCount, renderingsCount, time,
+                            notFound.size(), failures.size(), coldTagsCount);
+        }
+
+    }
+
+    private static class Result {
+
+        private final String templateId;
+
+        private final boolean found;
+
+        private final int renderings;
+
+        private final Exception failure;
+
+        private final List<MustacheTagInfo> coldTags;
+
+        Result(String templateId, boolean found, int renderings,
+                Exception failure, List<MustacheTagInfo> coldTags) {
+            this.templateId = templateId;
+            this.found = found;
+            this.renderings = renderings;
+            this.failure = failure;
+            this.coldTags = coldTags != null ? coldTags : Collections
+                    .<MustacheTagInfo> emptyList();
+        }
+
+    }
+
+    /**
+     * Discards all the output.
+     */
+    private enum NullAppendable implements Appendable {
+
+        INSTANCE;
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            return this;
+        }
+
+    }
+
+}
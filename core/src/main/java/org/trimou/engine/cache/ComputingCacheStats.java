@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine.cache;
+
+import java.beans.ConstructorProperties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An immutable snapshot of the statistics of all the {@link ComputingCache}
+ * instances created for the same consumer.
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ * @see ComputingCacheStatsMXBean
+ */
+public final class ComputingCacheStats {
+
+    private final String consumerId;
+
+    private final long requestCount;
+
+    private final long missCount;
+
+    private final long loadCount;
+
+    private final long totalLoadTime;
+
+    private final long evictionCount;
+
+    /**
+     *
+     * @param consumerId
+     * @param requestCount
+     * @param missCount
+     * @param loadCount
+     * @param totalLoadTime
+     * @param evictionCount
+     */
+    @ConstructorProperties({ "consumerId", "requestCount", "missCount",
+            "loadCount", "totalLoadTime", "evictionCount" })
+    public ComputingCacheStats(String consumerId, long requestCount,
+            long missCount, long loadCount, long totalLoadTime,
+            long evictionCount) {
+        this.consumerId = consumerId;
+        this.requestCount = requestCount;
+        this.missCount = missCount;
+        this.loadCount = loadCount;
+        this.totalLoadTime = totalLoadTime;
+        this.evictionCount = evictionCount;
+    }
+
+    public String getConsumerId() {
+        return consumerId;
+    }
+
+    /**
+     *
+     * @return the number of {@link ComputingCache#get(Object)} and
+     *         {@link ComputingCache#getIfPresent(Object)} invocations
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public long getHitCount() {
+        return Math.max(requestCount - missCount, 0);
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     *
+     * @return the ratio of requests which were hits, or <code>1.0</code> if
+     *         there were no requests
+     */
+    public double getHitRate() {
+        return requestCount == 0 ? 1.0 : (double) getHitCount() / requestCount;
+    }
+
+    /**
+     *
+     * @return the number of computations of new values
+     */
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     *
+     * @return the total time spent computing new values in nanoseconds
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     *
+     * @return the average time spent computing new values in nanoseconds
+     */
+    public double getAverageLoadPenalty() {
+        return loadCount == 0 ? 0.0 : (double) totalLoadTime / loadCount;
+    }
+
+    /**
+     *
+     * @return the number of entries evicted due to the expiration timeout or
+     *         the size limit
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public String toString() {
+        return String
+                .format("ComputingCacheStats [consumerId=%s, requestCount=%s, hitCount=%s, missCount=%s, loadCount=%s, totalLoadTime=%s, evictionCount=%s]",
+                        consumerId, requestCount, getHitCount(), missCount,
+                        loadCount, totalLoadTime, evictionCount);
+    }
+
+    /**
+     * A thread-safe accumulator which may be shared by all the caches created
+     * for the same consumer. Intended for {@link ComputingCacheFactory}
+     * implementations.
+     *
+     * @author Martin Kouba
+     */
+    public static final class Counter {
+
+        private final AtomicLong requestCount = new AtomicLong();
+
+        private final AtomicLong missCount = new AtomicLong();
+
+        private final AtomicLong loadCount = new AtomicLong();
+
+        private final AtomicLong totalLoadTime = new AtomicLong();
+
+        private final AtomicLong evictionCount = new AtomicLong();
+
+        public void recordRequest() {
+            requestCount.incrementAndGet();
+        }
+
+        public void recordMiss() {
+            missCount.incrementAndGet();
+        }
+
+        /**
+         *
+         * @param loadTime
+         *            The time spent computing the value in nanoseconds
+         */
+        public void recordLoad(long loadTime) {
+            loadCount.incrementAndGet();
+            totalLoadTime.addAndGet(loadTime);
+        }
+
+        /**
+         *
+         * @param count
+         */
+        public void recordEvictions(long count) {
+            evictionCount.addAndGet(count);
+        }
+
+        /**
+         *
+         * @param consumerId
+         * @return a snapshot of the current values
+         */
+        public ComputingCacheStats snapshot(String consumerId) {
+            return new ComputingCacheStats(consumerId, requestCount.get(),
+                    missCount.get(), loadCount.get(), totalLoadTime.get(),
+                    evictionCount.get());
+        }
+
+    }
+
+}
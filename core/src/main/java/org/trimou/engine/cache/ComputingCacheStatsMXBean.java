@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine.cache;
+
+import java.util.Map;
+
+/**
+ * A {@link ComputingCacheFactory} may optionally implement this interface to
+ * provide the statistics of the created caches. Since it's an MXBean interface
+ * the factory can be directly registered in an MBean server, e.g.:
+ *
+ * <pre>
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(
+ *         engine.getConfiguration().getComputingCacheFactory(),
+ *         new ObjectName(&quot;org.trimou:type=ComputingCacheStats&quot;));
+ * </pre>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ */
+public interface ComputingCacheStatsMXBean {
+
+    /**
+     *
+     * @return <code>true</code> if the statistics are recorded,
+     *         <code>false</code> otherwise
+     */
+    boolean isStatsEnabled();
+
+    /**
+     *
+     * @return an immutable map of consumer ids to statistics
+     */
+    Map<String, ComputingCacheStats> getStats();
+
+}
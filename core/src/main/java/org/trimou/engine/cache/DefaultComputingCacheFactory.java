@@ -15,13 +15,21 @@
  */
 package org.trimou.engine.cache;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import org.trimou.engine.cache.ComputingCache.Function;
 import org.trimou.engine.cache.ComputingCache.Listener;
+import org.trimou.engine.cache.ComputingCacheStats.Counter;
 import org.trimou.engine.config.AbstractConfigurationAware;
+import org.trimou.engine.config.ConfigurationKey;
+import org.trimou.engine.config.SimpleConfigurationKey;
 
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
@@ -34,10 +42,54 @@ import com.google.common.collect.ImmutableMap;
  * A default computing cache factory producing computing cache implementations
  * backed by {@link LoadingCache}.
  *
+ * <p>
+ * If {@link #STATS_ENABLED_KEY} is set to <code>true</code> the statistics
+ * are recorded per consumer id and available through
+ * {@link ComputingCacheStatsMXBean}.
+ * </p>
+ *
  * @author Martin Kouba
  */
 public class DefaultComputingCacheFactory extends AbstractConfigurationAware
-        implements ComputingCacheFactory {
+        implements ComputingCacheFactory, ComputingCacheStatsMXBean {
+
+    /**
+     * Enable the statistics
+     */
+    public static final ConfigurationKey STATS_ENABLED_KEY = new SimpleConfigurationKey(
+            DefaultComputingCacheFactory.class.getName() + ".statsEnabled",
+            false);
+
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+
+    private volatile boolean statsEnabled;
+
+    @Override
+    protected void init() {
+        statsEnabled = configuration
+                .getBooleanPropertyValue(STATS_ENABLED_KEY);
+    }
+
+    @Override
+    public Set<ConfigurationKey> getConfigurationKeys() {
+        return Collections.singleton(STATS_ENABLED_KEY);
+    }
+
+    @Override
+    public boolean isStatsEnabled() {
+        return statsEnabled;
+    }
+
+    @Override
+    public Map<String, ComputingCacheStats> getStats() {
+        ImmutableMap.Builder<String, ComputingCacheStats> builder = ImmutableMap
+                .builder();
+        for (Entry<String, Counter> entry : counters.entrySet()) {
+            builder.put(entry.getKey(),
+                    entry.getValue().snapshot(entry.getKey()));
+        }
+        return builder.build();
+    }
 
     @Override
     public <K, V> ComputingCache<K, V> create(final String consumerId,
@@ -53,17 +105,35 @@ public class DefaultComputingCacheFactory extends AbstractConfigurationAware
         if (maxSize != null) {
             builder.maximumSize(maxSize);
         }
-        if (listener != null) {
+        final Counter counter = statsEnabled ? getCounter(consumerId) : null;
+        if (listener != null || counter != null) {
             builder.removalListener(new RemovalListener<K, V>() {
                 @Override
                 public void onRemoval(RemovalNotification<K, V> notification) {
-                    listener.entryInvalidated(notification.getKey(),
-                            notification.getCause().toString());
+                    if (counter != null && notification.wasEvicted()) {
+                        counter.recordEvictions(1);
+                    }
+                    if (listener != null) {
+                        listener.entryInvalidated(notification.getKey(),
+                                notification.getCause().toString());
+                    }
                 }
             });
         }
-        return new LoadingCacheAdapter<K, V>(
-                builder.build(new CacheLoaderAdapter<K, V>(computingFunction)));
+        return new LoadingCacheAdapter<K, V>(builder.build(new CacheLoaderAdapter<K, V>(
+                computingFunction, counter)), counter);
+    }
+
+    private Counter getCounter(String consumerId) {
+        Counter counter = counters.get(consumerId);
+        if (counter == null) {
+            counter = new Counter();
+            Counter previous = counters.putIfAbsent(consumerId, counter);
+            if (previous != null) {
+                counter = previous;
+            }
+        }
+        return counter;
     }
 
     protected static class LoadingCacheAdapter<K, V> implements
@@ -71,18 +141,42 @@ public class DefaultComputingCacheFactory extends AbstractConfigurationAware
 
         private final LoadingCache<K, V> cache;
 
+        private final Counter counter;
+
         protected LoadingCacheAdapter(LoadingCache<K, V> cache) {
+            this(cache, null);
+        }
+
+        /**
+         *
+         * @param cache
+         * @param counter
+         *            May be null
+         * @since 1.8
+         */
+        protected LoadingCacheAdapter(LoadingCache<K, V> cache, Counter counter) {
             this.cache = cache;
+            this.counter = counter;
         }
 
         @Override
         public V get(K key) {
+            if (counter != null) {
+                counter.recordRequest();
+            }
             return cache.getUnchecked(key);
         }
 
         @Override
         public V getIfPresent(K key) {
-            return cache.getIfPresent(key);
+            V value = cache.getIfPresent(key);
+            if (counter != null) {
+                counter.recordRequest();
+                if (value == null) {
+                    counter.recordMiss();
+                }
+            }
+            return value;
         }
 
         @Override
@@ -117,13 +211,37 @@ public class DefaultComputingCacheFactory extends AbstractConfigurationAware
 
         private final Function<K, V> computingFunction;
 
+        private final Counter counter;
+
         protected CacheLoaderAdapter(Function<K, V> computingFunction) {
+            this(computingFunction, null);
+        }
+
+        /**
+         *
+         * @param computingFunction
+         * @param counter
+         *            May be null
+         * @since 1.8
+         */
+        protected CacheLoaderAdapter(Function<K, V> computingFunction,
+                Counter counter) {
             this.computingFunction = computingFunction;
+            this.counter = counter;
         }
 
         @Override
         public V load(K key) throws Exception {
-            return computingFunction.compute(key);
+            if (counter == null) {
+                return computingFunction.compute(key);
+            }
+            counter.recordMiss();
+            long start = System.nanoTime();
+            try {
+                return computingFunction.compute(key);
+            } finally {
+                counter.recordLoad(System.nanoTime() - start);
+            }
         }
 
     }
@@ -49,6 +49,7 @@ import org.trimou.engine.locale.LocaleSupport;
 import org.trimou.engine.locale.LocaleSupportFactory;
 import org.trimou.engine.locator.TemplateLocator;
 import org.trimou.engine.priority.HighPriorityComparator;
+import org.trimou.engine.resolver.ApplicableResolvers;
 import org.trimou.engine.resolver.Resolver;
 import org.trimou.engine.text.TextSupport;
 import org.trimou.engine.text.TextSupportFactory;
@@ -65,7 +66,8 @@ import com.google.common.collect.ImmutableMap;
  *
  * @author Martin Kouba
  */
-class DefaultConfiguration implements Configuration {
+class DefaultConfiguration implements Configuration,
+        ApplicableResolvers.Provider {
 
     private static final Logger logger = LoggerFactory
             .getLogger(DefaultConfiguration.class);
@@ -76,6 +78,8 @@ class DefaultConfiguration implements Configuration {
 
     private final List<Resolver> resolvers;
 
+    private final ApplicableResolvers applicableResolvers;
+
     private final Map<String, Object> globalData;
 
     private final TextSupport textSupport;
@@ -197,6 +201,7 @@ class DefaultConfiguration implements Configuration {
         removeInvalidComponents(mustacheListeners);
 
         this.resolvers = ImmutableList.copyOf(resolvers);
+        this.applicableResolvers = new ApplicableResolvers(this.resolvers);
         this.mustacheListeners = mustacheListeners.isEmpty() ? null
                 : mustacheListeners;
         this.executorService = builder.getExecutorService();
@@ -207,6 +212,11 @@ class DefaultConfiguration implements Configuration {
         return resolvers;
     }
 
+    @Override
+    public ApplicableResolvers getApplicableResolvers() {
+        return applicableResolvers;
+    }
+
     @Override
     public Map<String, Object> getGlobalData() {
         return globalData;
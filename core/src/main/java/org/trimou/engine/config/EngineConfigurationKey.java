@@ -96,6 +96,22 @@ public enum EngineConfigurationKey implements ConfigurationKey {
      *      java.util.concurrent.TimeUnit)
      */
     TEMPLATE_CACHE_EXPIRATION_TIMEOUT(0l),
+    /**
+     * The max estimated memory footprint of the template cache in bytes. The
+     * limit is applied separately to compiled templates and template sources.
+     * If exceeded, the oldest entries are evicted first. Zero and negative
+     * values mean no limit.
+     *
+     * <p>
+     * Note that the footprint of a template is estimated once, when the
+     * template is loaded. Data cached lazily during rendering (e.g. literal
+     * blocks of sections) is not taken into account.
+     * </p>
+     *
+     * @see org.trimou.engine.parser.Template#getEstimatedFootprint()
+     * @since 1.8
+     */
+    TEMPLATE_CACHE_MAX_MEMORY(0l),
     /**
      * If set to <code>true</code> handlebars-like helpers are supported.
      *
@@ -124,7 +140,74 @@ public enum EngineConfigurationKey implements ConfigurationKey {
      * If set to <code>true</code> the evaluation of simple variables, e.g.
      * <code>{{.}}</code> or <code>{{foo}}</code>, is optimized.
      */
-    RESOLVER_HINTS_ENABLED(true), ;
+    RESOLVER_HINTS_ENABLED(true),
+    /**
+     * If set to <code>true</code> the values resolved for a non-null context
+     * object are memoized for the duration of a single rendering, i.e. the
+     * same context object and name (e.g. <code>profile</code> in
+     * <code>{{user.profile.displayName}}</code>) are only resolved once per
+     * rendering. Note that the resolved values are considered immutable during
+     * rendering. Values resolved by a
+     * {@link org.trimou.engine.resolver.NonMemoizableResolver} and values
+     * which require a release callback are never memoized.
+     *
+     * @see #RESOLUTION_MEMOIZATION_EXCLUDED_KEYS
+     * @since 1.8
+     */
+    RESOLUTION_MEMOIZATION_ENABLED(false),
+    /**
+     * The comma-separated list of keys (e.g.
+     * <code>clock.now,counter.next</code>) whose values are never memoized.
+     * The name resolved last in an excluded key is never memoized for any
+     * context object, i.e. <code>counter.next</code> also applies to
+     * <code>{{#counter}}{{next}}{{/counter}}</code> (and to
+     * <code>{{foo.next}}</code>).
+     *
+     * @see #RESOLUTION_MEMOIZATION_ENABLED
+     * @since 1.8
+     */
+    RESOLUTION_MEMOIZATION_EXCLUDED_KEYS(""),
+    /**
+     * If set to <code>true</code> the {@link org.trimou.handlebars.Options}
+     * instances are reused, i.e. each thread holds a small pool of instances.
+     * Note that helpers must not use the {@link org.trimou.handlebars.Options}
+     * instance, nor the parameters list and the hash map, after the execution
+     * finished. An instance is never reused if
+     * {@link org.trimou.handlebars.Options#executeAsync(org.trimou.handlebars.Options.HelperExecutable)}
+     * was called.
+     *
+     * @since 1.8
+     */
+    HELPER_OPTIONS_REUSE_ENABLED(false),
+    /**
+     * If set to <code>true</code> the iteration metadata are not pushed on the
+     * context stack for an iterated section which does not reference the
+     * metadata, i.e. no tag within the section contains the
+     * {@link #ITERATION_METADATA_ALIAS}, and which contains no partials, no
+     * extend tags and no eval helpers. Note that the metadata are not
+     * available to lambdas and helpers which build the key dynamically.
+     *
+     * @since 1.8
+     */
+    SKIP_UNUSED_ITERATION_METADATA(false),
+    /**
+     * If set to <code>false</code> the global data cannot be shadowed by the
+     * data model, i.e. a key whose leading part matches a global data entry is
+     * bound to the entry value during compilation and the context stack is not
+     * searched at all. The same applies to keys built dynamically, e.g.
+     * {@link org.trimou.handlebars.Options#getValue(String)}.
+     *
+     * @since 1.8
+     */
+    GLOBAL_DATA_SHADOWING_ENABLED(true),
+    /**
+     * If set to <code>true</code> the output buffer used by
+     * {@link org.trimou.Mustache#render(Object)} is reused per thread. Buffers
+     * which grow beyond 1M chars are not retained.
+     *
+     * @since 1.8
+     */
+    REUSE_OUTPUT_BUFFER(false), ;
 
     private Object defaultValue;
 
@@ -17,16 +17,22 @@ package org.trimou.engine.context;
 
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.trimou.engine.config.Configuration;
 import org.trimou.engine.config.EngineConfigurationKey;
 import org.trimou.engine.parser.Template;
+import org.trimou.engine.resolver.ApplicableResolvers;
 import org.trimou.engine.resolver.EnhancedResolver;
 import org.trimou.engine.resolver.EnhancedResolver.Hint;
+import org.trimou.engine.resolver.NonMemoizableResolver;
 import org.trimou.engine.resolver.Placeholder;
 import org.trimou.engine.resolver.Resolver;
+import org.trimou.engine.resource.ReleaseCallback;
+import org.trimou.engine.resource.ReleaseCallbackContainer;
 import org.trimou.engine.segment.Segment;
 import org.trimou.exception.MustacheException;
 import org.trimou.exception.MustacheProblem;
@@ -50,7 +56,24 @@ final class DefaultExecutionContext implements ExecutionContext {
 
     protected final Map<String, Segment> definingSections;
 
-    protected final Resolver[] resolvers;
+    private final ApplicableResolvers applicableResolvers;
+
+    /**
+     * The keys excluded from memoization, <code>null</code> if memoization is
+     * disabled; only set for the global context
+     */
+    private final Set<String> memoizationExcludedKeys;
+
+    /**
+     * The state of the current rendering, <code>null</code> if not bound to a
+     * rendering
+     */
+    private final RenderingState renderingState;
+
+    /**
+     * Render-scoped cache, <code>null</code> if memoization is disabled
+     */
+    private final ResolvedValueCache resolvedValues;
 
     /**
      *
@@ -61,77 +84,150 @@ final class DefaultExecutionContext implements ExecutionContext {
      * @param templateInvocations
      * @param invocationLimitCounter
      * @param definingSections
-     * @param resolvers
      */
     DefaultExecutionContext(DefaultExecutionContext parent,
             Configuration configuration, Object contextObject,
             Template templateInvocation, int invocationLimitCounter,
-            Map<String, Segment> definingSections, Resolver[] resolvers) {
+            Map<String, Segment> definingSections) {
+        this(parent, configuration, contextObject, templateInvocation,
+                invocationLimitCounter, definingSections,
+                parent.applicableResolvers, null, parent.renderingState);
+    }
+
+    /**
+     *
+     * @param parent
+     * @param configuration
+     * @param contextObject
+     * @param templateInvocation
+     * @param invocationLimitCounter
+     * @param definingSections
+     * @param applicableResolvers
+     * @param memoizationExcludedKeys
+     * @param renderingState
+     */
+    DefaultExecutionContext(DefaultExecutionContext parent,
+            Configuration configuration, Object contextObject,
+            Template templateInvocation, int invocationLimitCounter,
+            Map<String, Segment> definingSections,
+            ApplicableResolvers applicableResolvers,
+            Set<String> memoizationExcludedKeys, RenderingState renderingState) {
         this.parent = parent;
         this.configuration = configuration;
         this.contextObject = contextObject;
         this.templateInvocation = templateInvocation;
         this.invocationLimitCounter = invocationLimitCounter;
         this.definingSections = definingSections;
-        this.resolvers = resolvers;
+        this.applicableResolvers = applicableResolvers;
+        this.memoizationExcludedKeys = memoizationExcludedKeys;
+        this.renderingState = renderingState;
+        this.resolvedValues = renderingState != null ? renderingState
+                .getResolvedValues() : null;
     }
 
     @Override
     public ValueWrapper getValue(String key, String[] keyParts,
             AtomicReference<Hint> hintRef) {
+        return getValue(key, keyParts, hintRef != null ? hintRef.get() : null,
+                hintRef != null, true);
+    }
 
-        ValueWrapper value = new ValueWrapper(key);
-        Object lastValue = null;
+    @Override
+    public ValueWrapper getValue(String key) {
+        return getValue(key, null, null, false, true);
+    }
+
+    @Override
+    public ValueWrapper getValue(ValueKey key) {
+        if (key.getBoundValue() == null) {
+            Hint hint = key.getCurrentHint();
+            ValueWrapper value = getValue(key.getKey(), key.getParts(), hint,
+                    key.isHintEnabled(), false);
+            key.updateHint(value, hint);
+            return value;
+        }
+        // The leading context object is bound to a global data entry
+        return resolveRemainingParts(new ValueWrapper(key.getKey(),
+                renderingState), key.getBoundValue(), key.getParts(),
+                getResolvedValueCache(key.getKey()));
+    }
+
+    /**
+     *
+     * @param key
+     * @param keyParts
+     * @param hint
+     * @param hintEnabled
+     * @param bindGlobalData
+     *            If <code>true</code> the leading part of the key may be bound
+     *            to a global data entry, the compiled {@link ValueKey} handles
+     *            the binding itself
+     * @return the value wrapper
+     */
+    private ValueWrapper getValue(String key, String[] keyParts, Hint hint,
+            boolean hintEnabled, boolean bindGlobalData) {
+
+        ValueWrapper value = new ValueWrapper(key, renderingState);
+        ResolvedValueCache cache = getResolvedValueCache(key);
 
         if (keyParts == null || keyParts.length == 0) {
             Iterator<String> parts = configuration.getKeySplitter().split(key);
-            lastValue = resolveLeadingContextObject(parts.next(), value,
-                    hintRef);
+            String leadingName = parts.next();
+            Object lastValue = bindGlobalData ? getBoundGlobalData(leadingName)
+                    : null;
+            if (lastValue == null) {
+                lastValue = resolveLeadingContextObject(leadingName, value,
+                        hint, hintEnabled, cache);
+            }
             if (lastValue == null) {
                 // Leading context object not found - miss
                 return value;
             }
             while (parts.hasNext()) {
                 value.processNextPart();
-                lastValue = resolve(lastValue, parts.next(), value, false);
+                lastValue = resolveMemoized(lastValue, parts.next(), value,
+                        cache);
                 if (lastValue == null) {
                     // Not found - miss
                     return value;
                 }
             }
-        } else {
-            lastValue = resolveLeadingContextObject(keyParts[0], value, hintRef);
-            if (lastValue == null) {
-                // Leading context object not found - miss
-                return value;
+            if (!Placeholder.NULL.equals(lastValue)) {
+                value.set(lastValue);
             }
-            if (keyParts.length > 1) {
-                for (int i = 1; i < keyParts.length; i++) {
-                    value.processNextPart();
-                    lastValue = resolve(lastValue, keyParts[i], value, false);
-                    if (lastValue == null) {
-                        // Not found - miss
-                        return value;
-                    }
-                }
+            return value;
+        } else {
+            Object leading = bindGlobalData ? getBoundGlobalData(keyParts[0])
+                    : null;
+            if (leading == null) {
+                leading = resolveLeadingContextObject(keyParts[0], value, hint,
+                        hintEnabled, cache);
             }
+            return resolveRemainingParts(value, leading, keyParts, cache);
         }
-
-        if (!Placeholder.NULL.equals(lastValue)) {
-            value.set(lastValue);
-        }
-        return value;
     }
 
-    @Override
-    public ValueWrapper getValue(String key) {
-        return getValue(key, null, null);
+    /**
+     *
+     * @param name
+     * @return the global data entry the leading part of a key is bound to, or
+     *         <code>null</code> if global data shadowing is enabled
+     * @see EngineConfigurationKey#GLOBAL_DATA_SHADOWING_ENABLED
+     */
+    private Object getBoundGlobalData(String name) {
+        Map<String, Object> globalData = configuration.getGlobalData();
+        if (globalData == null
+                || configuration
+                        .getBooleanPropertyValue(EngineConfigurationKey.GLOBAL_DATA_SHADOWING_ENABLED)) {
+            return null;
+        }
+        return globalData.get(name);
     }
 
     @Override
     public ExecutionContext setContextObject(Object object) {
         return new DefaultExecutionContext(this, configuration, object, null,
-                invocationLimitCounter, null, resolvers);
+                invocationLimitCounter, null);
     }
 
     @Override
@@ -158,7 +254,7 @@ final class DefaultExecutionContext implements ExecutionContext {
                     invocationLimitCounter, templateInvocation);
         }
         return new DefaultExecutionContext(this, configuration, null, template,
-                invocationLimitCounter - 1, null, resolvers);
+                invocationLimitCounter - 1, null);
     }
 
     @Override
@@ -173,7 +269,7 @@ final class DefaultExecutionContext implements ExecutionContext {
             }
         }
         return new DefaultExecutionContext(this, configuration, null, null,
-                invocationLimitCounter, definingSections, resolvers);
+                invocationLimitCounter, definingSections);
     }
 
     @Override
@@ -193,6 +289,32 @@ final class DefaultExecutionContext implements ExecutionContext {
         return parent;
     }
 
+    @Override
+    public ExecutionContext startRendering(ReleaseCallbackContainer container) {
+        ResolvedValueCache cache = null;
+        if (memoizationExcludedKeys != null) {
+            final ResolvedValueCache resolvedValues = new ResolvedValueCache(
+                    memoizationExcludedKeys);
+            container.registerReleaseCallback(new ReleaseCallback() {
+                @Override
+                public void release() {
+                    resolvedValues.clear();
+                }
+            });
+            cache = resolvedValues;
+        }
+        return new DefaultExecutionContext(this, configuration, null, null,
+                invocationLimitCounter, null, applicableResolvers, null,
+                new RenderingState(
+                        configuration.getLocaleSupport(), cache));
+    }
+
+    @Override
+    public Locale getLocale() {
+        return renderingState != null ? renderingState.getLocale()
+                : configuration.getLocaleSupport().getCurrentLocale();
+    }
+
     private int getTemplateInvocations(Template template) {
         int invocations = 0;
         if (templateInvocation != null && templateInvocation.equals(template)) {
@@ -204,6 +326,32 @@ final class DefaultExecutionContext implements ExecutionContext {
         return invocations;
     }
 
+    private ResolvedValueCache getResolvedValueCache(String key) {
+        return (resolvedValues != null && !resolvedValues.isExcluded(key)) ? resolvedValues
+                : null;
+    }
+
+    private ValueWrapper resolveRemainingParts(ValueWrapper value,
+            Object leading, String[] keyParts, ResolvedValueCache cache) {
+        if (leading == null) {
+            // Leading context object not found - miss
+            return value;
+        }
+        Object lastValue = leading;
+        for (int i = 1; i < keyParts.length; i++) {
+            value.processNextPart();
+            lastValue = resolveMemoized(lastValue, keyParts[i], value, cache);
+            if (lastValue == null) {
+                // Not found - miss
+                return value;
+            }
+        }
+        if (!Placeholder.NULL.equals(lastValue)) {
+            value.set(lastValue);
+        }
+        return value;
+    }
+
     /**
      * Resolve the leading context object (the first part of the key). E.g.
      * <code>foo</code> in <code>{{foo.bar.name}}</code> may identify a property
@@ -214,69 +362,132 @@ final class DefaultExecutionContext implements ExecutionContext {
      * @param name
      * @param value
      *            The value wrapper - ResolutionContext
-     * @param hintRef
+     * @param hint
+     *            The current hint, may be <code>null</code>
+     * @param hintEnabled
+     *            If <code>true</code> a new hint may be created
+     * @param cache
+     *            The render-scoped cache or <code>null</code>
      * @return the resolved leading context object
      * @see Hint
      */
     private Object resolveLeadingContextObject(String name, ValueWrapper value,
-            AtomicReference<Hint> hintRef) {
+            Hint hint, boolean hintEnabled, ResolvedValueCache cache) {
 
-        Object leading = resolveContextObject(name, value, hintRef);
+        Object leading = resolveContextObject(name, value, hint, hintEnabled,
+                cache);
 
         if (leading == null) {
             // Leading context object not found - try to resolve context
             // unrelated objects (JNDI lookup, CDI, etc.)
-            Hint hint = hintRef != null ? hintRef.get() : null;
             if (hint != null) {
                 leading = hint.resolve(null, name, value);
+                if (leading != null) {
+                    value.setHintApplied();
+                }
             }
             if (leading == null) {
                 leading = resolve(null, name, value, hint == null
-                        && hintRef != null);
+                        && hintEnabled);
+                if (hint != null && leading != null) {
+                    value.setHintFallback();
+                }
             }
         }
         return leading;
     }
 
     private Object resolveContextObject(String name, ValueWrapper value,
-            AtomicReference<Hint> hintRef) {
+            Hint hint, boolean hintEnabled, ResolvedValueCache cache) {
 
         Object leading = null;
 
         if (contextObject != null) {
-            Hint hint = hintRef != null ? hintRef.get() : null;
-            if (hint != null) {
-                leading = hint.resolve(contextObject, name, value);
+            if (cache != null) {
+                leading = cache.get(contextObject, name);
             }
             if (leading == null) {
-                leading = resolve(contextObject, name, value, hint == null
-                        && hintRef != null);
+                int callbacks = cache != null ? value
+                        .getReleaseCallbacksCount() : 0;
+                if (hint != null) {
+                    leading = hint.resolve(contextObject, name, value);
+                    if (leading != null) {
+                        value.setHintApplied();
+                    }
+                    // No hints are created for non-memoizable resolvers if
+                    // memoization is enabled
+                    memoize(cache, contextObject, name, leading, value,
+                            callbacks);
+                }
+                if (leading == null) {
+                    leading = resolve(contextObject, name, value, hint == null
+                            && hintEnabled, cache, callbacks);
+                    if (hint != null && leading != null) {
+                        value.setHintFallback();
+                    }
+                }
             }
         }
         if (leading == null && parent != null) {
-            leading = parent.resolveContextObject(name, value, hintRef);
+            leading = parent.resolveContextObject(name, value, hint,
+                    hintEnabled, cache);
         }
         return leading;
     }
 
+    private Object resolveMemoized(Object contextObject, String name,
+            ValueWrapper value, ResolvedValueCache cache) {
+        if (cache == null) {
+            return resolve(contextObject, name, value, false, null, 0);
+        }
+        Object resolved = cache.get(contextObject, name);
+        if (resolved == null) {
+            resolved = resolve(contextObject, name, value, false, cache,
+                    value.getReleaseCallbacksCount());
+        }
+        return resolved;
+    }
+
     private Object resolve(Object contextObject, String name,
             ValueWrapper value, boolean createHint) {
+        return resolve(contextObject, name, value, createHint, null, 0);
+    }
+
+    private Object resolve(Object contextObject, String name,
+            ValueWrapper value, boolean createHint, ResolvedValueCache cache,
+            int callbacks) {
         Object resolved = null;
+        // Only use resolvers applicable to the context object type
+        Resolver[] resolvers = applicableResolvers.get(contextObject);
         for (int i = 0; i < resolvers.length; i++) {
             resolved = resolvers[i].resolve(contextObject, name, value);
             if (resolved != null) {
-                if (createHint) {
+                Resolver resolver = resolvers[i];
+                boolean memoizable = !(resolver instanceof NonMemoizableResolver);
+                if (createHint && (memoizable || resolvedValues == null)) {
                     // Initialize a new hint if possible
-                    Resolver resolver = resolvers[i];
                     if (resolver instanceof EnhancedResolver) {
                         value.setHint(((EnhancedResolver) resolver).createHint(
-                                contextObject, name, value));
+                                contextObject, name, value), resolver);
                     }
                 }
+                if (memoizable) {
+                    memoize(cache, contextObject, name, resolved, value,
+                            callbacks);
+                }
                 break;
             }
         }
         return resolved;
     }
 
+    private void memoize(ResolvedValueCache cache, Object contextObject,
+            String name, Object resolved, ValueWrapper value, int callbacks) {
+        // Values which require a release callback are not memoized
+        if (cache != null && resolved != null
+                && value.getReleaseCallbacksCount() == callbacks) {
+            cache.put(contextObject, name, resolved);
+        }
+    }
+
 }
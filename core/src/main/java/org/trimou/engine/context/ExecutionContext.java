@@ -15,11 +15,15 @@
  */
 package org.trimou.engine.context;
 
+import java.util.Locale;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.trimou.annotations.Internal;
 import org.trimou.engine.parser.Template;
+import org.trimou.engine.config.EngineConfigurationKey;
+import org.trimou.engine.locale.LocaleSupport;
 import org.trimou.engine.resolver.EnhancedResolver.Hint;
+import org.trimou.engine.resource.ReleaseCallbackContainer;
 import org.trimou.engine.segment.ExtendSegment;
 import org.trimou.engine.segment.Segment;
 
@@ -49,6 +53,13 @@ public interface ExecutionContext {
      */
     ValueWrapper getValue(String key);
 
+    /**
+     * @param key
+     * @return the wrapper for the given key
+     * @since 1.8
+     */
+    ValueWrapper getValue(ValueKey key);
+
     /**
      *
      * @param object
@@ -94,4 +105,25 @@ public interface ExecutionContext {
      */
     ExecutionContext getParent();
 
+    /**
+     * The returned context and all its children share the state of a single
+     * rendering, e.g. the render-scoped cache of resolved values (cleared once
+     * the given container is released) or the current locale.
+     *
+     * @param container
+     * @return a new child execution context bound to a single rendering
+     * @see EngineConfigurationKey#RESOLUTION_MEMOIZATION_ENABLED
+     * @since 1.8
+     */
+    ExecutionContext startRendering(ReleaseCallbackContainer container);
+
+    /**
+     * The locale is obtained from the {@link LocaleSupport} only once per
+     * rendering (see {@link #startRendering(ReleaseCallbackContainer)}).
+     *
+     * @return the current locale
+     * @since 1.8
+     */
+    Locale getLocale();
+
 }
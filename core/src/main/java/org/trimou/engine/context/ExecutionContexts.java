@@ -15,9 +15,15 @@
  */
 package org.trimou.engine.context;
 
+import java.util.Set;
+
 import org.trimou.engine.config.Configuration;
 import org.trimou.engine.config.EngineConfigurationKey;
-import org.trimou.engine.resolver.Resolver;
+import org.trimou.engine.resolver.ApplicableResolvers;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
 
 /**
  *
@@ -39,8 +45,30 @@ public final class ExecutionContexts {
                null,
                configuration
                        .getIntegerPropertyValue(EngineConfigurationKey.TEMPLATE_RECURSIVE_INVOCATION_LIMIT),
-               null, configuration.getResolvers().toArray(
-                       new Resolver[configuration.getResolvers().size()]));
+               null, ApplicableResolvers.of(configuration),
+               getMemoizationExcludedKeys(configuration), null);
+   }
+
+   private static Set<String> getMemoizationExcludedKeys(
+           Configuration configuration) {
+       if (!configuration
+               .getBooleanPropertyValue(EngineConfigurationKey.RESOLUTION_MEMOIZATION_ENABLED)) {
+           return null;
+       }
+       ImmutableSet.Builder<String> excluded = ImmutableSet.builder();
+       for (String key : Splitter
+               .on(",")
+               .trimResults()
+               .omitEmptyStrings()
+               .split(configuration
+                       .getStringPropertyValue(EngineConfigurationKey.RESOLUTION_MEMOIZATION_EXCLUDED_KEYS))) {
+           excluded.add(key);
+           // The last part of the key, e.g. next for counter.next, so that
+           // {{#counter}}{{next}}{{/counter}} is also excluded
+           excluded.add(Iterators.getLast(configuration.getKeySplitter()
+                   .split(key)));
+       }
+       return excluded.build();
    }
 
 }
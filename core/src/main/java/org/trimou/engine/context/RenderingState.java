@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine.context;
+
+import java.util.Locale;
+
+import org.trimou.engine.locale.LocaleSupport;
+
+/**
+ * The state shared by all the execution contexts of a single rendering. It's
+ * thread-safe as the execution context may be shared by asynchronous helper
+ * executions.
+ *
+ * @author Martin Kouba
+ */
+final class RenderingState {
+
+    private final LocaleSupport localeSupport;
+
+    private final ResolvedValueCache resolvedValues;
+
+    private volatile Locale locale;
+
+    /**
+     *
+     * @param localeSupport
+     * @param resolvedValues
+     *            May be <code>null</code> if memoization is disabled
+     */
+    RenderingState(LocaleSupport localeSupport,
+            ResolvedValueCache resolvedValues) {
+        this.localeSupport = localeSupport;
+        this.resolvedValues = resolvedValues;
+    }
+
+    /**
+     * The locale is obtained from {@link LocaleSupport} lazily and only once per
+     * rendering.
+     *
+     * @return the locale for the current rendering
+     */
+    Locale getLocale() {
+        Locale value = locale;
+        if (value == null) {
+            // Benign race - LocaleSupport must be thread-safe
+            value = localeSupport.getCurrentLocale();
+            locale = value;
+        }
+        return value;
+    }
+
+    ResolvedValueCache getResolvedValues() {
+        return resolvedValues;
+    }
+
+}
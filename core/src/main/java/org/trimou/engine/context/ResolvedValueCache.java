@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine.context;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.trimou.engine.config.EngineConfigurationKey;
+
+/**
+ * Render-scoped cache of resolved values, keyed by the context object identity
+ * and the name. The cache is thread-safe as the execution context may be
+ * shared by asynchronous helper executions.
+ *
+ * @author Martin Kouba
+ * @see EngineConfigurationKey#RESOLUTION_MEMOIZATION_ENABLED
+ */
+final class ResolvedValueCache {
+
+    private final Set<String> excludedKeys;
+
+    private final Map<Object, Map<String, Object>> values;
+
+    /**
+     *
+     * @param excludedKeys
+     *            The excluded keys and the names resolved last in these keys
+     */
+    ResolvedValueCache(Set<String> excludedKeys) {
+        this.excludedKeys = excludedKeys;
+        this.values = new IdentityHashMap<Object, Map<String, Object>>();
+    }
+
+    /**
+     *
+     * @param key
+     * @return <code>true</code> if values should not be memoized for the given
+     *         key, <code>false</code> otherwise
+     */
+    boolean isExcluded(String key) {
+        return excludedKeys.contains(key);
+    }
+
+    synchronized Object get(Object contextObject, String name) {
+        if (isExcluded(name)) {
+            return null;
+        }
+        Map<String, Object> resolved = values.get(contextObject);
+        return resolved != null ? resolved.get(name) : null;
+    }
+
+    synchronized void put(Object contextObject, String name, Object value) {
+        if (isExcluded(name)) {
+            return;
+        }
+        Map<String, Object> resolved = values.get(contextObject);
+        if (resolved == null) {
+            resolved = new HashMap<String, Object>(4);
+            values.put(contextObject, resolved);
+        }
+        resolved.put(name, value);
+    }
+
+    synchronized void clear() {
+        values.clear();
+    }
+
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine.context;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.trimou.annotations.Internal;
+import org.trimou.engine.MustacheTagInfo;
+import org.trimou.engine.config.Configuration;
+import org.trimou.engine.config.EngineConfigurationKey;
+import org.trimou.engine.interpolation.KeySplitter;
+import org.trimou.engine.listener.MustacheListener;
+import org.trimou.engine.listener.ResolverHintMonitor;
+import org.trimou.engine.listener.ResolverHintMonitor.HintCounter;
+import org.trimou.engine.resolver.EnhancedResolver.Hint;
+import org.trimou.engine.resolver.Hints;
+import org.trimou.handlebars.Options;
+import org.trimou.util.Strings;
+
+/**
+ * A key which is processed by the {@link KeySplitter} only once. If resolver
+ * hints are enabled all the evaluations of the key share the same hint.
+ *
+ * <p>
+ * If {@link EngineConfigurationKey#GLOBAL_DATA_SHADOWING_ENABLED} is set to
+ * <code>false</code> and the leading part of the key matches a global data
+ * entry, the entry value is bound to the key and the context stack is never
+ * searched.
+ * </p>
+ *
+ * <p>
+ * The instance is thread-safe and is intended to be cached.
+ * </p>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ * @see Options#getValue(ValueKey)
+ * @see EngineConfigurationKey#RESOLVER_HINTS_ENABLED
+ * @see ResolverHintMonitor
+ */
+public final class ValueKey {
+
+    private static final AtomicReferenceFieldUpdater<ValueKey, Hint> HINT_UPDATER = AtomicReferenceFieldUpdater
+            .newUpdater(ValueKey.class, Hint.class, "hint");
+
+    private final String key;
+
+    private final String[] parts;
+
+    private final boolean hintEnabled;
+
+    // Plain volatile field - an atomic reference wrapper per key is not needed
+    private volatile Hint hint;
+
+    // Bound global data value or null
+    private final Object boundValue;
+
+    private final ResolverHintMonitor monitor;
+
+    private final HintCounter originCounter;
+
+    private volatile HintCounter resolverCounter;
+
+    /**
+     *
+     * @param key
+     * @param configuration
+     * @return a new key
+     */
+    public static ValueKey of(String key, Configuration configuration) {
+        return of(key, configuration, null);
+    }
+
+    /**
+     *
+     * @param key
+     * @param configuration
+     * @param tagInfo
+     *            The info of the tag the key belongs to, may be
+     *            <code>null</code>
+     * @return a new key
+     * @see ResolverHintMonitor
+     */
+    public static ValueKey of(String key, Configuration configuration,
+            MustacheTagInfo tagInfo) {
+        List<String> parts = new ArrayList<String>();
+        for (Iterator<String> iterator = configuration.getKeySplitter().split(
+                key); iterator.hasNext();) {
+            // Key parts are shared across all the templates
+            parts.add(Strings.intern(iterator.next()));
+        }
+        Object boundValue = null;
+        Map<String, Object> globalData = configuration.getGlobalData();
+        if (globalData != null
+                && !configuration
+                        .getBooleanPropertyValue(EngineConfigurationKey.GLOBAL_DATA_SHADOWING_ENABLED)) {
+            boundValue = globalData.get(parts.get(0));
+        }
+        return new ValueKey(Strings.intern(key), parts.toArray(new String[parts.size()]),
+                configuration.getBooleanPropertyValue(
+                        EngineConfigurationKey.RESOLVER_HINTS_ENABLED),
+                boundValue, tagInfo != null ? getHintMonitor(configuration)
+                        : null, tagInfo);
+    }
+
+    private ValueKey(String key, String[] parts, boolean hintEnabled,
+            Object boundValue, ResolverHintMonitor monitor,
+            MustacheTagInfo tagInfo) {
+        this.key = key;
+        this.parts = parts;
+        this.hintEnabled = hintEnabled && boundValue == null;
+        this.boundValue = boundValue;
+        if (this.hintEnabled && monitor != null) {
+            this.monitor = monitor;
+            this.originCounter = monitor.getOriginCounter(tagInfo, key);
+        } else {
+            this.monitor = null;
+            this.originCounter = null;
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     *
+     * @return <code>true</code> if the leading part of the key is bound to a
+     *         global data entry
+     */
+    public boolean isBound() {
+        return boundValue != null;
+    }
+
+    /**
+     *
+     * @return <code>true</code> if resolver hints are enabled for this key but
+     *         no hint has been installed yet
+     * @see EngineConfigurationKey#RESOLVER_HINTS_ENABLED
+     */
+    public boolean isHintMissing() {
+        return hintEnabled && hint == null;
+    }
+
+    String[] getParts() {
+        return parts;
+    }
+
+    boolean isHintEnabled() {
+        return hintEnabled;
+    }
+
+    Object getBoundValue() {
+        return boundValue;
+    }
+
+    Hint getCurrentHint() {
+        return hint;
+    }
+
+    /**
+     *
+     * @param value
+     * @param usedHint
+     *            The hint used to obtain the value, may be <code>null</code>
+     */
+    void updateHint(ValueWrapper value, Hint usedHint) {
+        if (!hintEnabled) {
+            return;
+        }
+        if (usedHint == null) {
+            if (!value.isNull() && value.getHint() != null
+                    && HINT_UPDATER.compareAndSet(this, null, value.getHint())
+                    && monitor != null) {
+                resolverCounter = monitor.getResolverCounter(value
+                        .getHintResolver().getClass());
+            }
+        } else if (originCounter != null) {
+            HintCounter resolverCounter = this.resolverCounter;
+            if (usedHint == Hints.INAPPLICABLE_HINT) {
+                originCounter.recordInapplicable();
+                if (resolverCounter != null) {
+                    resolverCounter.recordInapplicable();
+                }
+            } else if (value.isHintApplied()) {
+                originCounter.recordHit();
+                if (resolverCounter != null) {
+                    resolverCounter.recordHit();
+                }
+            } else if (value.isHintFallback()) {
+                originCounter.recordFallback();
+                if (resolverCounter != null) {
+                    resolverCounter.recordFallback();
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * @param configuration
+     * @return the first registered {@link ResolverHintMonitor} or
+     *         <code>null</code> if no monitor is registered
+     */
+    @Internal
+    public static ResolverHintMonitor getHintMonitor(
+            Configuration configuration) {
+        if (configuration.getMustacheListeners() != null) {
+            for (MustacheListener listener : configuration
+                    .getMustacheListeners()) {
+                if (listener instanceof ResolverHintMonitor) {
+                    return (ResolverHintMonitor) listener;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+
+}
@@ -15,9 +15,12 @@
  */
 package org.trimou.engine.context;
 
+import java.util.Locale;
+
 import org.trimou.annotations.Internal;
 import org.trimou.engine.resolver.EnhancedResolver.Hint;
 import org.trimou.engine.resolver.ResolutionContext;
+import org.trimou.engine.resolver.Resolver;
 import org.trimou.engine.resource.AbstractReleaseCallbackContainer;
 
 /**
@@ -41,12 +44,32 @@ public final class ValueWrapper extends AbstractReleaseCallbackContainer
 
     private Hint hint;
 
+    private Resolver hintResolver;
+
+    // The leading context object was resolved by an existing hint
+    private boolean hintApplied;
+
+    // An existing hint was not applicable and the resolver chain was used
+    private boolean hintFallback;
+
+    private final RenderingState renderingState;
+
     /**
      *
      * @param key
      */
     public ValueWrapper(String key) {
+        this(key, null);
+    }
+
+    /**
+     *
+     * @param key
+     * @param renderingState
+     */
+    ValueWrapper(String key, RenderingState renderingState) {
         this.key = key;
+        this.renderingState = renderingState;
     }
 
     /**
@@ -82,16 +105,47 @@ public final class ValueWrapper extends AbstractReleaseCallbackContainer
         return keyPartIndex;
     }
 
+    @Override
+    public Locale getLocale() {
+        return renderingState != null ? renderingState.getLocale() : null;
+    }
+
     void processNextPart() {
         keyPartIndex++;
     }
 
+    @Override
+    protected int getReleaseCallbacksCount() {
+        return super.getReleaseCallbacksCount();
+    }
+
     public Hint getHint() {
         return hint;
     }
 
-    void setHint(Hint hint) {
+    void setHint(Hint hint, Resolver resolver) {
         this.hint = hint;
+        this.hintResolver = resolver;
+    }
+
+    Resolver getHintResolver() {
+        return hintResolver;
+    }
+
+    boolean isHintApplied() {
+        return hintApplied;
+    }
+
+    void setHintApplied() {
+        this.hintApplied = true;
+    }
+
+    boolean isHintFallback() {
+        return hintFallback;
+    }
+
+    void setHintFallback() {
+        this.hintFallback = true;
     }
 
 }
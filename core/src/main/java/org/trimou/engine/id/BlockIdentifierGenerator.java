@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.trimou.engine.config.AbstractConfigurationAware;
+
+/**
+ * An {@link IdentifierGenerator} which avoids contention on the global
+ * sequence. Each thread reserves a block of identifiers from the global
+ * sequence and generates the identifiers from the block without any
+ * synchronization.
+ *
+ * <p>
+ * The generated identifiers are unique per the generator instance. However,
+ * unlike {@link SequenceIdentifierGenerator} the identifiers generated by
+ * different threads are not ordered, and there may be gaps in the sequence.
+ * </p>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ */
+public class BlockIdentifierGenerator extends AbstractConfigurationAware
+        implements IdentifierGenerator {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1000;
+
+    private final AtomicLong sequence = new AtomicLong(0);
+
+    private final int blockSize;
+
+    private final ThreadLocal<Block> block = new ThreadLocal<Block>() {
+        @Override
+        protected Block initialValue() {
+            return new Block();
+        }
+    };
+
+    public BlockIdentifierGenerator() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     *
+     * @param blockSize
+     */
+    public BlockIdentifierGenerator(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException(
+                    "The block size must be greater than zero");
+        }
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public long generate(Class<? extends Identified> componentType) {
+        Block current = block.get();
+        if (current.next == current.limit) {
+            // Reserve a new block
+            current.limit = sequence.addAndGet(blockSize);
+            current.next = current.limit - blockSize;
+        }
+        return ++current.next;
+    }
+
+    private static final class Block {
+
+        // The last generated identifier
+        private long next;
+
+        // The last identifier of the block
+        private long limit;
+
+    }
+
+}
@@ -111,35 +111,35 @@ public class AbstractStatsCollector extends AbstractMustacheListener {
             this.maxTime = maxTime;
         }
 
-        protected long getId() {
+        public long getId() {
             return id;
         }
 
-        protected String getName() {
+        public String getName() {
             return name;
         }
 
-        protected long getFinished() {
+        public long getFinished() {
             return finished;
         }
 
-        protected long getErrors() {
+        public long getErrors() {
             return errors;
         }
 
-        protected long getTotalTime() {
+        public long getTotalTime() {
             return totalTime;
         }
 
-        protected long getMeanTime() {
+        public long getMeanTime() {
             return meanTime;
         }
 
-        protected long getMinTime() {
+        public long getMinTime() {
             return minTime;
         }
 
-        protected long getMaxTime() {
+        public long getMaxTime() {
             return maxTime;
         }
 
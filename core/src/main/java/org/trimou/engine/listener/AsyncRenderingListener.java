@@ -0,0 +1,322 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine.listener;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trimou.engine.config.ConfigurationKey;
+import org.trimou.engine.resource.AbstractReleaseCallbackContainer;
+import org.trimou.engine.resource.ReleaseCallback;
+import org.trimou.util.Checker;
+
+/**
+ * Hands the rendering events to the delegate listener asynchronously. The
+ * rendering thread only puts a snapshot of the event into a bounded lock-free
+ * ring buffer once the rendering is released, i.e. no lock is acquired and no
+ * thread is blocked. A single daemon thread takes the snapshots
+ * and notifies the delegate - first
+ * {@link MustacheListener#renderingStarted(MustacheRenderingEvent)}, then
+ * {@link MustacheListener#renderingFinished(MustacheRenderingEvent)} (only if
+ * the rendering finished successfully) and finally the release callbacks
+ * registered by the delegate are invoked. If the buffer is full the event is
+ * dropped.
+ *
+ * <p>
+ * The worker thread is started on demand and terminates once no event is
+ * delivered within the idle timeout, i.e. no thread outlives an engine which
+ * is not used anymore. {@link #shutdown()} stops the delivery immediately.
+ * </p>
+ *
+ * <p>
+ * Other events are delivered synchronously. The delegate is initialized by
+ * this listener and must not be registered separately.
+ * </p>
+ *
+ * <p>
+ * Note that the delegate is notified in a different thread and after the
+ * rendering is finished. Therefore this listener is not suitable for
+ * listeners measuring time or relying on the rendering thread (e.g.
+ * {@link SimpleStatsCollector} or {@link SegmentProfiler}).
+ * </p>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ */
+public class AsyncRenderingListener extends AbstractMustacheListener {
+
+    private static final Logger logger = LoggerFactory
+            .getLogger(AsyncRenderingListener.class);
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    public static final long DEFAULT_IDLE_TIMEOUT = 5000;
+
+    private final MustacheListener delegate;
+
+    private final RingBuffer<Snapshot> buffer;
+
+    private final ThreadLocal<Snapshot> current;
+
+    private final AtomicLong dropped;
+
+    private final long idleTimeout;
+
+    private final AtomicBoolean workerRunning;
+
+    private volatile Thread worker;
+
+    private volatile boolean shutdown;
+
+    // Only written by the worker thread
+    private volatile boolean parked;
+
+    /**
+     *
+     * @param delegate
+     */
+    public AsyncRenderingListener(MustacheListener delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    /**
+     *
+     * @param delegate
+     * @param capacity
+     *            The capacity of the buffer, rounded up to the next power of
+     *            two
+     */
+    public AsyncRenderingListener(MustacheListener delegate, int capacity) {
+        this(delegate, capacity, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     *
+     * @param delegate
+     * @param capacity
+     *            The capacity of the buffer, rounded up to the next power of
+     *            two
+     * @param idleTimeout
+     *            The worker thread terminates if no event is delivered within
+     *            the given number of milliseconds
+     */
+    public AsyncRenderingListener(MustacheListener delegate, int capacity,
+            long idleTimeout) {
+        Checker.checkArgumentNotNull(delegate);
+        this.delegate = delegate;
+        this.buffer = new RingBuffer<Snapshot>(capacity);
+        this.current = new ThreadLocal<Snapshot>();
+        this.dropped = new AtomicLong();
+        this.idleTimeout = idleTimeout;
+        this.workerRunning = new AtomicBoolean(false);
+    }
+
+    @Override
+    protected void init() {
+        delegate.init(configuration);
+    }
+
+    @Override
+    public Set<ConfigurationKey> getConfigurationKeys() {
+        return delegate.getConfigurationKeys();
+    }
+
+    @Override
+    public void compilationFinished(MustacheCompilationEvent event) {
+        delegate.compilationFinished(event);
+    }
+
+    @Override
+    public void parsingStarted(MustacheParsingEvent event) {
+        delegate.parsingStarted(event);
+    }
+
+    @Override
+    public void renderingStarted(MustacheRenderingEvent event) {
+        final Snapshot snapshot = new Snapshot(event, current.get());
+        current.set(snapshot);
+        event.registerReleaseCallback(new ReleaseCallback() {
+            @Override
+            public void release() {
+                current.set(snapshot.parent);
+                snapshot.parent = null;
+                if (shutdown) {
+                    return;
+                }
+                if (buffer.offer(snapshot)) {
+                    signalWorker();
+                } else {
+                    dropped.incrementAndGet();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void renderingFinished(MustacheRenderingEvent event) {
+        Snapshot snapshot = current.get();
+        if (snapshot != null) {
+            snapshot.finished = true;
+        }
+    }
+
+    /**
+     *
+     * @return the number of events dropped because the buffer was full
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     *
+     * @return the number of events waiting for delivery
+     */
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    /**
+     * Stop the delivery. The pending events are discarded and no more events
+     * are accepted.
+     */
+    public void shutdown() {
+        shutdown = true;
+        Thread thread = worker;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+        if (!workerRunning.get()) {
+            buffer.clear();
+        }
+        // Otherwise the worker discards the pending events
+    }
+
+    boolean isWorkerRunning() {
+        return workerRunning.get();
+    }
+
+    private void signalWorker() {
+        if (!workerRunning.get()) {
+            if (workerRunning.compareAndSet(false, true)) {
+                startWorker();
+            }
+        } else if (parked) {
+            // Only read the shared state unless the worker is parked
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void startWorker() {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                dispatch();
+            }
+        }, AsyncRenderingListener.class.getSimpleName());
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    private void dispatch() {
+        long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+        // Zero if an event was delivered recently
+        long idleDeadline = 0;
+        while (!shutdown) {
+            Snapshot snapshot = buffer.poll();
+            if (snapshot == null) {
+                long now = System.nanoTime();
+                if (idleDeadline == 0) {
+                    idleDeadline = now + idleTimeoutNanos;
+                } else if (now - idleDeadline >= 0) {
+                    workerRunning.set(false);
+                    // An event might have been added in the meantime
+                    if (buffer.size() == 0
+                            || !workerRunning.compareAndSet(false, true)) {
+                        return;
+                    }
+                    idleDeadline = 0;
+                    continue;
+                }
+                parked = true;
+                // Check again so that a signal is not missed
+                if (buffer.size() == 0 && !shutdown) {
+                    LockSupport.parkNanos(this, idleDeadline - now);
+                }
+                parked = false;
+                continue;
+            }
+            idleDeadline = 0;
+            try {
+                delegate.renderingStarted(snapshot);
+                if (snapshot.finished) {
+                    delegate.renderingFinished(snapshot);
+                }
+            } catch (Exception e) {
+                logger.warn("Unable to deliver the rendering event", e);
+            } finally {
+                snapshot.release();
+            }
+        }
+        buffer.clear();
+        workerRunning.set(false);
+    }
+
+    private static final class Snapshot extends
+            AbstractReleaseCallbackContainer implements MustacheRenderingEvent {
+
+        private final String mustacheName;
+
+        private final long mustacheId;
+
+        private final Long generatedId;
+
+        // The enclosing rendering in the same thread, if any
+        private Snapshot parent;
+
+        private boolean finished;
+
+        Snapshot(MustacheRenderingEvent event, Snapshot parent) {
+            this.mustacheName = event.getMustacheName();
+            this.mustacheId = event.getMustacheGeneratedId();
+            this.generatedId = event.getGeneratedId();
+            this.parent = parent;
+        }
+
+        @Override
+        public String getMustacheName() {
+            return mustacheName;
+        }
+
+        @Override
+        public long getMustacheGeneratedId() {
+            return mustacheId;
+        }
+
+        @Override
+        public Long getGeneratedId() {
+            return generatedId;
+        }
+
+    }
+
+}
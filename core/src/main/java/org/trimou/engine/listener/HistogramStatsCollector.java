@@ -0,0 +1,457 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine.listener;
+
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.trimou.Mustache;
+import org.trimou.engine.cache.ComputingCache;
+import org.trimou.engine.resource.ReleaseCallback;
+import org.trimou.util.Checker;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * A {@link MustacheListener} recording rendering times into fixed-size
+ * log-linear histograms, i.e. the memory consumption per template does not
+ * depend on the number of renderings. The relative error of a recorded value
+ * is less than 1/32 (approx. 3%). Like {@link EnhancedStatsCollector} this
+ * listener is able to detect rendering errors and
+ * {@link Mustache#getGeneratedId()} is used to map statistics to a template.
+ *
+ * <p>
+ * If the window duration is set, the data is split into the specified number
+ * of rolling time windows and only the data from the windows that are not
+ * older than <code>windowDuration * windowCount</code> is taken into account.
+ * Otherwise the data is collected since the listener was initialized (or
+ * {@link #clearData()} was called).
+ * </p>
+ *
+ * <p>
+ * Recording is lock-free. Note that the results are approximate - a value
+ * recorded concurrently with the window rotation might be lost.
+ * </p>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ */
+public class HistogramStatsCollector extends AbstractStatsCollector {
+
+    public static final String COMPUTING_CACHE_CONSUMER_ID = HistogramStatsCollector.class
+            .getName();
+
+    private final long windowDuration;
+
+    private final int windowCount;
+
+    private final ConcurrentMap<Long, String> idsToNames;
+
+    // The id of the rendering which finished last and the end time
+    private final ThreadLocal<long[]> lastFinished;
+
+    protected ComputingCache<Long, TemplateData> data;
+
+    /**
+     *
+     */
+    public HistogramStatsCollector() {
+        this(null, null);
+    }
+
+    /**
+     *
+     * @param templatePredicate
+     * @param timeUnit
+     */
+    public HistogramStatsCollector(Predicate<String> templatePredicate,
+            TimeUnit timeUnit) {
+        this(templatePredicate, timeUnit, 0, 1);
+    }
+
+    /**
+     *
+     * @param templatePredicate
+     * @param timeUnit
+     * @param windowDuration
+     *            The duration of a time window in milliseconds, zero and
+     *            negative values mean no rolling windows are used
+     * @param windowCount
+     *            The number of rolling time windows
+     */
+    public HistogramStatsCollector(Predicate<String> templatePredicate,
+            TimeUnit timeUnit, long windowDuration, int windowCount) {
+        super(templatePredicate, timeUnit);
+        if (windowDuration > 0 && windowCount < 1) {
+            throw new IllegalArgumentException(
+                    "At least one time window must be used");
+        }
+        this.windowDuration = windowDuration;
+        this.windowCount = windowDuration > 0 ? windowCount : 1;
+        this.idsToNames = new ConcurrentHashMap<Long, String>();
+        this.lastFinished = new ThreadLocal<long[]>() {
+            @Override
+            protected long[] initialValue() {
+                return new long[] { -1l, 0l };
+            }
+        };
+    }
+
+    @Override
+    public void renderingStarted(final MustacheRenderingEvent event) {
+        if (isApplied(event.getMustacheName())) {
+            idsToNames.putIfAbsent(event.getMustacheGeneratedId(),
+                    event.getMustacheName());
+            final TemplateData templateData = data.get(event
+                    .getMustacheGeneratedId());
+            final long renderingId = event.getGeneratedId();
+            final long start = System.nanoTime();
+            // Release callbacks are invoked even if the rendering fails
+            event.registerReleaseCallback(new ReleaseCallback() {
+                @Override
+                public void release() {
+                    long[] finished = lastFinished.get();
+                    if (finished[0] == renderingId) {
+                        templateData.record(finished[1] - start);
+                    } else {
+                        templateData.recordError();
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public void renderingFinished(MustacheRenderingEvent event) {
+        if (isApplied(event.getMustacheName())) {
+            long[] finished = lastFinished.get();
+            finished[0] = event.getGeneratedId();
+            finished[1] = System.nanoTime();
+        }
+    }
+
+    @Override
+    protected void init() {
+        data = configuration.getComputingCacheFactory().create(
+                COMPUTING_CACHE_CONSUMER_ID,
+                new ComputingCache.Function<Long, TemplateData>() {
+                    @Override
+                    public TemplateData compute(Long key) {
+                        return new TemplateData(windowDuration, windowCount);
+                    }
+                }, null, null, null);
+    }
+
+    /**
+     *
+     * @param mustache
+     * @return the statistics for the given template or <code>null</code> if
+     *         no data available
+     */
+    public HistogramStats getStats(Mustache mustache) {
+        Checker.checkArgumentNotNull(mustache);
+        TemplateData templateData = data.getIfPresent(mustache
+                .getGeneratedId());
+        if (templateData != null) {
+            return parseData(mustache.getName(), mustache.getGeneratedId(),
+                    templateData);
+        }
+        return null;
+    }
+
+    /**
+     *
+     * @return the statistics
+     */
+    public Set<HistogramStats> getStats() {
+        ImmutableSet.Builder<HistogramStats> builder = ImmutableSet.builder();
+        for (Entry<Long, TemplateData> entry : data.getAllPresent().entrySet()) {
+            builder.add(parseData(idsToNames.get(entry.getKey()),
+                    entry.getKey(), entry.getValue()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Drop all the collected data.
+     */
+    public void clearData() {
+        data.clear();
+    }
+
+    private HistogramStats parseData(String mustacheName, long mustacheId,
+            TemplateData templateData) {
+        Window snapshot = templateData.snapshot();
+        long finished = snapshot.count.get();
+        long totalTime = convert(snapshot.total.get());
+        return new HistogramStats(mustacheId, mustacheName, finished,
+                snapshot.errors.get(), totalTime,
+                finished > 0 ? totalTime / finished : 0l,
+                finished > 0 ? convert(snapshot.min.get()) : 0l,
+                convert(snapshot.max.get()), convert(snapshot
+                        .getValueAtPercentile(50.0)), convert(snapshot
+                        .getValueAtPercentile(99.0)), convert(snapshot
+                        .getValueAtPercentile(99.9)));
+    }
+
+    public static class HistogramStats extends Stats {
+
+        private final long p50;
+
+        private final long p99;
+
+        private final long p999;
+
+        public HistogramStats(long id, String name, long finished,
+                long errors, long totalTime, long meanTime, long minTime,
+                long maxTime, long p50, long p99, long p999) {
+            super(id, name, finished, errors, totalTime, meanTime, minTime,
+                    maxTime);
+            this.p50 = p50;
+            this.p99 = p99;
+            this.p999 = p999;
+        }
+
+        /**
+         *
+         * @return the median
+         */
+        public long getP50() {
+            return p50;
+        }
+
+        /**
+         *
+         * @return the 99th percentile
+         */
+        public long getP99() {
+            return p99;
+        }
+
+        /**
+         *
+         * @return the 99.9th percentile
+         */
+        public long getP999() {
+            return p999;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(super.toString());
+            builder.setLength(builder.length() - 1);
+            builder.append(", p50=");
+            builder.append(p50);
+            builder.append(", p99=");
+            builder.append(p99);
+            builder.append(", p999=");
+            builder.append(p999);
+            builder.append("]");
+            return builder.toString();
+        }
+
+    }
+
+    /**
+     * The set of rolling time windows for a template.
+     */
+    static final class TemplateData {
+
+        private final long windowDuration;
+
+        private final Window[] windows;
+
+        TemplateData(long windowDuration, int windowCount) {
+            this.windowDuration = windowDuration;
+            this.windows = new Window[windowCount];
+            for (int i = 0; i < windows.length; i++) {
+                windows[i] = new Window();
+            }
+        }
+
+        void record(long value) {
+            current().record(value);
+        }
+
+        void recordError() {
+            current().errors.incrementAndGet();
+        }
+
+        Window snapshot() {
+            Window snapshot = new Window();
+            if (windowDuration <= 0) {
+                snapshot.merge(windows[0]);
+            } else {
+                long epoch = System.currentTimeMillis() / windowDuration;
+                for (Window window : windows) {
+                    if (window.epoch.get() > epoch - windows.length) {
+                        snapshot.merge(window);
+                    }
+                }
+            }
+            return snapshot;
+        }
+
+        private Window current() {
+            if (windowDuration <= 0) {
+                return windows[0];
+            }
+            long epoch = System.currentTimeMillis() / windowDuration;
+            Window window = windows[(int) (epoch % windows.length)];
+            long windowEpoch = window.epoch.get();
+            if (windowEpoch < epoch
+                    && window.epoch.compareAndSet(windowEpoch, epoch)) {
+                window.reset();
+            }
+            return window;
+        }
+
+    }
+
+    /**
+     * A time window with a log-linear histogram. Values lower than
+     * {@link #SUB_BUCKET_COUNT} are recorded exactly. Each following power of
+     * two range is split into {@link #HALF_SUB_BUCKET_COUNT} linear buckets.
+     */
+    static final class Window {
+
+        static final int SUB_BUCKET_BITS = 6;
+
+        static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+        static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+
+        static final int BUCKET_COUNT = SUB_BUCKET_COUNT
+                + (63 - SUB_BUCKET_BITS) * HALF_SUB_BUCKET_COUNT;
+
+        private final AtomicLong epoch = new AtomicLong();
+
+        private final AtomicLongArray buckets = new AtomicLongArray(
+                BUCKET_COUNT);
+
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong errors = new AtomicLong();
+
+        private final AtomicLong total = new AtomicLong();
+
+        private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            buckets.incrementAndGet(getIndex(value));
+            count.incrementAndGet();
+            total.addAndGet(value);
+            long current;
+            while (value < (current = min.get())
+                    && !min.compareAndSet(current, value)) {
+            }
+            while (value > (current = max.get())
+                    && !max.compareAndSet(current, value)) {
+            }
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            errors.set(0);
+            total.set(0);
+            min.set(Long.MAX_VALUE);
+            max.set(0);
+        }
+
+        void merge(Window window) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long value = window.buckets.get(i);
+                if (value > 0) {
+                    buckets.addAndGet(i, value);
+                }
+            }
+            count.addAndGet(window.count.get());
+            errors.addAndGet(window.errors.get());
+            total.addAndGet(window.total.get());
+            if (window.min.get() < min.get()) {
+                min.set(window.min.get());
+            }
+            if (window.max.get() > max.get()) {
+                max.set(window.max.get());
+            }
+        }
+
+        /**
+         *
+         * @param percentile
+         * @return the highest value equivalent to the value at the given
+         *         percentile, the value never exceeds the max value
+         */
+        long getValueAtPercentile(double percentile) {
+            long total = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                total += buckets.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100.0 * total);
+            if (rank < 1) {
+                rank = 1;
+            }
+            long accumulated = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                accumulated += buckets.get(i);
+                if (accumulated >= rank) {
+                    return Math.min(getHighestValue(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        static int getIndex(long value) {
+            if (value < SUB_BUCKET_COUNT) {
+                return (int) value;
+            }
+            int shift = (63 - Long.numberOfLeadingZeros(value))
+                    - (SUB_BUCKET_BITS - 1);
+            int subBucket = (int) (value >>> shift);
+            return SUB_BUCKET_COUNT + (shift - 1) * HALF_SUB_BUCKET_COUNT
+                    + (subBucket - HALF_SUB_BUCKET_COUNT);
+        }
+
+        static long getHighestValue(int index) {
+            if (index < SUB_BUCKET_COUNT) {
+                return index;
+            }
+            int shift = (index - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+            long subBucket = (index - SUB_BUCKET_COUNT) % HALF_SUB_BUCKET_COUNT
+                    + HALF_SUB_BUCKET_COUNT;
+            return ((subBucket + 1) << shift) - 1;
+        }
+
+    }
+
+}
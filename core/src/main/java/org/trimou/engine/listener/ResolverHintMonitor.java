@@ -0,0 +1,226 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine.listener;
+
+import java.beans.ConstructorProperties;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.trimou.annotations.Internal;
+import org.trimou.engine.MustacheTagInfo;
+import org.trimou.engine.config.EngineConfigurationKey;
+import org.trimou.engine.resolver.EnhancedResolver;
+import org.trimou.engine.resolver.Hints;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Collects the statistics of {@link EnhancedResolver.Hint} usage. Once
+ * registered as a {@link MustacheListener}, each evaluation of a variable,
+ * section or helper param key, which already has a hint associated, results in
+ * one of the following outcomes:
+ *
+ * <ul>
+ * <li>hit - the leading context object was resolved by the hint,</li>
+ * <li>fallback - the hint was not applicable (e.g. the runtime class of the
+ * context object changed) and the resolver chain was used instead,</li>
+ * <li>inapplicable - the hint is {@link Hints#INAPPLICABLE_HINT}, i.e. the
+ * resolver chain is always used.</li>
+ * </ul>
+ *
+ * <p>
+ * The counters are kept per call site (template name, line and key) and per
+ * resolver which created the hint. A call site with a high number of fallbacks
+ * is likely polymorphic and defeats the hint optimization.
+ * </p>
+ *
+ * <p>
+ * Note that the keys compiled before the monitor is registered are not
+ * monitored, and that nothing is collected if
+ * {@link EngineConfigurationKey#RESOLVER_HINTS_ENABLED} is set to
+ * <code>false</code>.
+ * </p>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ */
+public class ResolverHintMonitor extends AbstractMustacheListener implements
+        ResolverHintMonitorMXBean {
+
+    private final ConcurrentMap<String, HintCounter> origins;
+
+    private final ConcurrentMap<String, HintCounter> resolvers;
+
+    public ResolverHintMonitor() {
+        this.origins = new ConcurrentHashMap<String, HintCounter>();
+        this.resolvers = new ConcurrentHashMap<String, HintCounter>();
+    }
+
+    @Override
+    public Map<String, HintStats> getOriginStats() {
+        return getStats(origins);
+    }
+
+    @Override
+    public Map<String, HintStats> getResolverStats() {
+        return getStats(resolvers);
+    }
+
+    @Override
+    public void clearData() {
+        // The counters are held by the compiled keys
+        for (HintCounter counter : origins.values()) {
+            counter.reset();
+        }
+        for (HintCounter counter : resolvers.values()) {
+            counter.reset();
+        }
+    }
+
+    /**
+     *
+     * @param tagInfo
+     * @param key
+     * @return the counter for the given call site
+     */
+    @Internal
+    public HintCounter getOriginCounter(MustacheTagInfo tagInfo, String key) {
+        return getCounter(origins, tagInfo.getTemplateName() + ":"
+                + tagInfo.getLine() + " " + key);
+    }
+
+    /**
+     *
+     * @param resolverType
+     * @return the counter for the given resolver type
+     */
+    @Internal
+    public HintCounter getResolverCounter(Class<?> resolverType) {
+        return getCounter(resolvers, resolverType.getName());
+    }
+
+    private HintCounter getCounter(ConcurrentMap<String, HintCounter> counters,
+            String name) {
+        HintCounter counter = counters.get(name);
+        if (counter == null) {
+            counter = new HintCounter();
+            HintCounter previous = counters.putIfAbsent(name, counter);
+            if (previous != null) {
+                counter = previous;
+            }
+        }
+        return counter;
+    }
+
+    private Map<String, HintStats> getStats(
+            ConcurrentMap<String, HintCounter> counters) {
+        ImmutableMap.Builder<String, HintStats> builder = ImmutableMap
+                .builder();
+        for (Entry<String, HintCounter> entry : counters.entrySet()) {
+            builder.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return builder.build();
+    }
+
+    /**
+     * A thread-safe counter.
+     */
+    @Internal
+    public static final class HintCounter {
+
+        private final AtomicLong hits = new AtomicLong();
+
+        private final AtomicLong fallbacks = new AtomicLong();
+
+        private final AtomicLong inapplicable = new AtomicLong();
+
+        private HintCounter() {
+        }
+
+        public void recordHit() {
+            hits.incrementAndGet();
+        }
+
+        public void recordFallback() {
+            fallbacks.incrementAndGet();
+        }
+
+        public void recordInapplicable() {
+            inapplicable.incrementAndGet();
+        }
+
+        void reset() {
+            hits.set(0);
+            fallbacks.set(0);
+            inapplicable.set(0);
+        }
+
+        HintStats snapshot() {
+            return new HintStats(hits.get(), fallbacks.get(),
+                    inapplicable.get());
+        }
+
+    }
+
+    /**
+     * An immutable snapshot of the hint statistics.
+     */
+    public static final class HintStats {
+
+        private final long hits;
+
+        private final long fallbacks;
+
+        private final long inapplicable;
+
+        /**
+         *
+         * @param hits
+         * @param fallbacks
+         * @param inapplicable
+         */
+        @ConstructorProperties({ "hits", "fallbacks", "inapplicable" })
+        public HintStats(long hits, long fallbacks, long inapplicable) {
+            this.hits = hits;
+            this.fallbacks = fallbacks;
+            this.inapplicable = inapplicable;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getFallbacks() {
+            return fallbacks;
+        }
+
+        public long getInapplicable() {
+            return inapplicable;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "HintStats [hits=%s, fallbacks=%s, inapplicable=%s]",
+                    hits, fallbacks, inapplicable);
+        }
+
+    }
+
+}
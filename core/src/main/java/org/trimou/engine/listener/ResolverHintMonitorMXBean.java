@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine.listener;
+
+import java.util.Map;
+
+import org.trimou.engine.listener.ResolverHintMonitor.HintStats;
+
+/**
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ * @see ResolverHintMonitor
+ */
+public interface ResolverHintMonitorMXBean {
+
+    /**
+     *
+     * @return an immutable map of call sites (template name, line and key) to
+     *         statistics
+     */
+    Map<String, HintStats> getOriginStats();
+
+    /**
+     *
+     * @return an immutable map of resolver class names to statistics
+     */
+    Map<String, HintStats> getResolverStats();
+
+    /**
+     * Reset all the counters.
+     */
+    void clearData();
+
+}
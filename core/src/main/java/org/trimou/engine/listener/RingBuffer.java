@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine.listener;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free bounded ring buffer for multiple producers and a single
+ * consumer. Producers claim a slot by means of CAS and never block; the
+ * consumer does not need any atomic read-modify-write operation.
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ * @param <E>
+ */
+final class RingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+
+    private final int mask;
+
+    // The next slot to be claimed by a producer
+    private final AtomicLong tail;
+
+    // The next slot to be read by the consumer, only written by the consumer
+    private final AtomicLong head;
+
+    /**
+     *
+     * @param capacity
+     *            Rounded up to the next power of two
+     */
+    RingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "The capacity must be greater than zero");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<E>(size);
+        this.mask = size - 1;
+        this.tail = new AtomicLong();
+        this.head = new AtomicLong();
+    }
+
+    /**
+     * May be called by any thread.
+     *
+     * @param element
+     * @return <code>true</code> if the element was added, <code>false</code>
+     *         if the buffer is full
+     */
+    boolean offer(E element) {
+        long current;
+        do {
+            current = tail.get();
+            if (current - head.get() > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(current, current + 1));
+        slots.lazySet((int) current & mask, element);
+        return true;
+    }
+
+    /**
+     * Must be only called by the consumer thread.
+     *
+     * @return the next element or <code>null</code> if there is no element
+     *         available
+     */
+    E poll() {
+        long current = head.get();
+        int index = (int) current & mask;
+        // The slot may be claimed but not written yet
+        E element = slots.get(index);
+        if (element == null) {
+            return null;
+        }
+        slots.lazySet(index, null);
+        head.lazySet(current + 1);
+        return element;
+    }
+
+    /**
+     *
+     * @return the number of claimed slots
+     */
+    int size() {
+        return (int) Math.max(tail.get() - head.get(), 0);
+    }
+
+    /**
+     * Must be only called by the consumer thread.
+     */
+    void clear() {
+        while (poll() != null) {
+            // Discard
+        }
+    }
+
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine.listener;
+
+import java.io.IOException;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.trimou.engine.resource.ReleaseCallback;
+import org.trimou.engine.segment.Origin;
+import org.trimou.engine.segment.Segment;
+import org.trimou.engine.segment.SegmentType;
+import org.trimou.exception.MustacheException;
+import org.trimou.exception.MustacheProblem;
+import org.trimou.util.Strings;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * An opt-in per-segment profiler. Once registered as a {@link MustacheListener}
+ * the execution of sections, inverted sections, partials, extends and helpers
+ * is measured for the sampled renderings. The data is aggregated per
+ * {@link Origin} (template and line) and per call stack.
+ *
+ * <p>
+ * The sampling rate is the number of renderings per one profiled rendering,
+ * e.g. <code>1</code> means all the renderings are profiled and
+ * <code>100</code> means every hundredth rendering is profiled. The profiler
+ * may be also switched off and on at runtime.
+ * </p>
+ *
+ * <p>
+ * The call stacks can be exported in the collapsed-stack format (one line per
+ * stack, frames separated by semicolon, followed by the self time), which is
+ * understood by flame graph tools.
+ * </p>
+ *
+ * <p>
+ * Note that helpers executed asynchronously are not profiled.
+ * </p>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ */
+public class SegmentProfiler extends AbstractMustacheListener {
+
+    private final int samplingRate;
+
+    private final TimeUnit timeUnit;
+
+    private final AtomicLong renderings;
+
+    private final ThreadLocal<Frame> currentFrame;
+
+    private final ConcurrentMap<String, SegmentData> segments;
+
+    private final ConcurrentMap<String, AtomicLong> stacks;
+
+    private volatile boolean enabled;
+
+    /**
+     * All the renderings are profiled, times are measured in microseconds.
+     */
+    public SegmentProfiler() {
+        this(1, null);
+    }
+
+    /**
+     *
+     * @param samplingRate
+     *            The number of renderings per one profiled rendering
+     * @param timeUnit
+     *            The time unit used for the results, microseconds by default
+     */
+    public SegmentProfiler(int samplingRate, TimeUnit timeUnit) {
+        if (samplingRate < 1) {
+            throw new IllegalArgumentException(
+                    "The sampling rate must be greater than zero");
+        }
+        this.samplingRate = samplingRate;
+        this.timeUnit = timeUnit != null ? timeUnit : TimeUnit.MICROSECONDS;
+        this.renderings = new AtomicLong();
+        this.currentFrame = new ThreadLocal<Frame>();
+        this.segments = new ConcurrentHashMap<String, SegmentData>();
+        this.stacks = new ConcurrentHashMap<String, AtomicLong>();
+        this.enabled = true;
+    }
+
+    @Override
+    public void renderingStarted(MustacheRenderingEvent event) {
+        Frame parent = currentFrame.get();
+        if (parent == null
+                && (!enabled || renderings.incrementAndGet() % samplingRate != 0)) {
+            return;
+        }
+        // Nested renderings, e.g. lambda interpolation, are always profiled
+        // if the parent rendering is
+        final Frame frame = new Frame(parent, event.getMustacheName());
+        currentFrame.set(frame);
+        event.registerReleaseCallback(new ReleaseCallback() {
+            @Override
+            public void release() {
+                exit(frame);
+            }
+        });
+    }
+
+    /**
+     *
+     * @return <code>true</code> if the current rendering is profiled
+     */
+    public boolean isProfiling() {
+        return currentFrame.get() != null;
+    }
+
+    /**
+     * Start measuring the execution of the given segment. Must be always
+     * followed by {@link #exit()}.
+     *
+     * @param segment
+     */
+    public void enter(Segment segment) {
+        Frame parent = currentFrame.get();
+        if (parent != null) {
+            currentFrame.set(new Frame(parent, getName(segment)));
+        }
+    }
+
+    /**
+     * Stop measuring the execution of the current segment.
+     */
+    public void exit() {
+        Frame frame = currentFrame.get();
+        if (frame != null) {
+            exit(frame);
+        }
+    }
+
+    /**
+     * Switch the profiling on.
+     */
+    public void enable() {
+        enabled = true;
+    }
+
+    /**
+     * Switch the profiling off. The renderings which are being profiled are
+     * not affected.
+     */
+    public void disable() {
+        enabled = false;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     *
+     * @return the time unit used for the results
+     */
+    public TimeUnit getTimeUnit() {
+        return timeUnit;
+    }
+
+    /**
+     *
+     * @return the statistics for all the profiled segments and templates
+     */
+    public Set<SegmentStats> getStats() {
+        ImmutableSet.Builder<SegmentStats> builder = ImmutableSet.builder();
+        for (Entry<String, SegmentData> entry : segments.entrySet()) {
+            SegmentData data = entry.getValue();
+            builder.add(new SegmentStats(entry.getKey(), data.calls.get(),
+                    convert(data.totalTime.get()), convert(data.selfTime
+                            .get())));
+        }
+        return builder.build();
+    }
+
+    /**
+     *
+     * @return the collapsed stacks
+     * @see #writeCollapsedStacks(Appendable)
+     */
+    public String getCollapsedStacks() {
+        StringBuilder builder = new StringBuilder();
+        writeCollapsedStacks(builder);
+        return builder.toString();
+    }
+
+    /**
+     * Write the collected data in the collapsed-stack format, i.e. one line per
+     * call stack: the frames separated by semicolon followed by a space and the
+     * self time.
+     *
+     * @param appendable
+     */
+    public void writeCollapsedStacks(Appendable appendable) {
+        try {
+            for (Entry<String, AtomicLong> entry : stacks.entrySet()) {
+                appendable.append(entry.getKey());
+                appendable.append(' ');
+                appendable.append(String.valueOf(convert(entry.getValue()
+                        .get())));
+                appendable.append(Strings.LINE_SEPARATOR);
+            }
+        } catch (IOException e) {
+            throw new MustacheException(MustacheProblem.RENDER_IO_ERROR, e);
+        }
+    }
+
+    /**
+     * Drop all the collected data.
+     */
+    public void clearData() {
+        segments.clear();
+        stacks.clear();
+    }
+
+    private void exit(Frame frame) {
+        long elapsed = System.nanoTime() - frame.start;
+        long self = elapsed - frame.childTime;
+        if (frame.parent != null) {
+            frame.parent.childTime += elapsed;
+        }
+        currentFrame.set(frame.parent);
+        SegmentData data = segments.get(frame.name);
+        if (data == null) {
+            data = new SegmentData();
+            SegmentData previous = segments.putIfAbsent(frame.name, data);
+            if (previous != null) {
+                data = previous;
+            }
+        }
+        data.calls.incrementAndGet();
+        data.totalTime.addAndGet(elapsed);
+        data.selfTime.addAndGet(self);
+        AtomicLong stackTime = stacks.get(frame.stack);
+        if (stackTime == null) {
+            stackTime = new AtomicLong();
+            AtomicLong previous = stacks.putIfAbsent(frame.stack, stackTime);
+            if (previous != null) {
+                stackTime = previous;
+            }
+        }
+        stackTime.addAndGet(self);
+    }
+
+    private long convert(long value) {
+        return timeUnit.convert(value, TimeUnit.NANOSECONDS);
+    }
+
+    private static String getName(Segment segment) {
+        Origin origin = segment.getOrigin();
+        StringBuilder name = new StringBuilder();
+        name.append(origin.getTemplateName());
+        name.append(':');
+        name.append(origin.getLine());
+        name.append(' ');
+        name.append(segment.getType() == SegmentType.VALUE ? "HELPER"
+                : segment.getType().toString());
+        name.append(' ');
+        // Semicolon is used to separate the frames
+        name.append(segment.getText().replace(';', ','));
+        return name.toString();
+    }
+
+    private static final class Frame {
+
+        private final Frame parent;
+
+        private final String name;
+
+        private final String stack;
+
+        private final long start;
+
+        // The time spent in the child frames
+        private long childTime;
+
+        Frame(Frame parent, String name) {
+            this.parent = parent;
+            this.name = name;
+            this.stack = parent != null ? parent.stack + ";" + name : name;
+            this.start = System.nanoTime();
+        }
+
+    }
+
+    private static final class SegmentData {
+
+        private final AtomicLong calls = new AtomicLong();
+
+        private final AtomicLong totalTime = new AtomicLong();
+
+        private final AtomicLong selfTime = new AtomicLong();
+
+    }
+
+    /**
+     * The statistics for a segment (template name, line, type and text) or a
+     * template.
+     */
+    public static final class SegmentStats {
+
+        private final String name;
+
+        private final long calls;
+
+        private final long totalTime;
+
+        private final long selfTime;
+
+        SegmentStats(String name, long calls, long totalTime, long selfTime) {
+            this.name = name;
+            this.calls = calls;
+            this.totalTime = totalTime;
+            this.selfTime = selfTime;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        /**
+         *
+         * @return the total time including the time spent in nested segments
+         */
+        public long getTotalTime() {
+            return totalTime;
+        }
+
+        /**
+         *
+         * @return the time spent in the segment itself
+         */
+        public long getSelfTime() {
+            return selfTime;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "SegmentStats [name=%s, calls=%s, totalTime=%s, selfTime=%s]",
+                    name, calls, totalTime, selfTime);
+        }
+
+    }
+
+}
@@ -15,13 +15,17 @@
  */
 package org.trimou.engine.parser;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.trimou.Mustache;
 import org.trimou.annotations.Internal;
 import org.trimou.engine.MustacheEngine;
+import org.trimou.engine.config.EngineConfigurationKey;
 import org.trimou.engine.context.ExecutionContext;
 import org.trimou.engine.context.ExecutionContexts;
+import org.trimou.engine.listener.AbstractMustacheListener;
 import org.trimou.engine.listener.MustacheListener;
 import org.trimou.engine.listener.MustacheRenderingEvent;
 import org.trimou.engine.resource.AbstractReleaseCallbackContainer;
@@ -29,8 +33,6 @@ import org.trimou.engine.segment.RootSegment;
 import org.trimou.exception.MustacheException;
 import org.trimou.exception.MustacheProblem;
 
-import com.google.common.collect.Lists;
-
 /**
  * A Mustache template.
  *
@@ -39,6 +41,33 @@ import com.google.common.collect.Lists;
 @Internal
 public class Template implements Mustache {
 
+    private static final int MIN_OUTPUT_CAPACITY = 16;
+
+    static final int MAX_REUSED_OUTPUT_CAPACITY = 1 << 20;
+
+    /**
+     * The buffer is removed while in use so that nested renderings on the
+     * same thread allocate their own buffer
+     */
+    static final ThreadLocal<StringBuilder> OUTPUT_BUFFER = new ThreadLocal<StringBuilder>();
+
+    /**
+     * Listeners extending {@link AbstractMustacheListener} which override
+     * neither {@link MustacheListener#renderingStarted(MustacheRenderingEvent)}
+     * nor {@link MustacheListener#renderingFinished(MustacheRenderingEvent)}
+     * do not observe the rendering events
+     */
+    private static final ClassValue<Boolean> OBSERVES_RENDERING = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            if (!AbstractMustacheListener.class.isAssignableFrom(type)) {
+                return true;
+            }
+            return isOverriden(type, "renderingStarted")
+                    || isOverriden(type, "renderingFinished");
+        }
+    };
+
     private final long generatedId;
 
     private final String name;
@@ -49,6 +78,14 @@ public class Template implements Mustache {
 
     private volatile RootSegment rootSegment;
 
+    // null if no listener observes the rendering events
+    private final MustacheListener[] renderingListeners;
+
+    // Moving estimate of the output length, used to presize the output buffer
+    private volatile int outputLengthEstimate;
+
+    private final boolean reuseOutputBuffer;
+
     /**
      *
      * @param generatedId
@@ -61,6 +98,11 @@ public class Template implements Mustache {
         this.engine = engine;
         this.globalExecutionContext = ExecutionContexts
                 .newGlobalExecutionContext(engine.getConfiguration());
+        this.renderingListeners = initRenderingListeners(engine
+                .getConfiguration().getMustacheListeners());
+        this.reuseOutputBuffer = engine.getConfiguration()
+                .getBooleanPropertyValue(
+                        EngineConfigurationKey.REUSE_OUTPUT_BUFFER);
     }
 
     @Override
@@ -75,25 +117,34 @@ public class Template implements Mustache {
 
     @Override
     public String render(Object data) {
-        StringBuilder builder = new StringBuilder();
+        if (reuseOutputBuffer) {
+            return renderReusingBuffer(data);
+        }
+        StringBuilder builder = new StringBuilder(getInitialOutputCapacity());
         render(builder, data);
+        updateOutputLengthEstimate(builder.length());
         return builder.toString();
     }
 
     @Override
     public void render(Appendable appendable, Object data) {
+        if (renderingListeners == null) {
+            // No need to create and identify the event
+            RenderingCallbacks callbacks = new RenderingCallbacks();
+            try {
+                render(appendable, data, callbacks);
+            } finally {
+                callbacks.release();
+            }
+            return;
+        }
         final DefaultMustacheRenderingEvent event = new DefaultMustacheRenderingEvent(
                 name, generatedId, engine.getConfiguration()
                         .getIdentifierGenerator()
                         .generate(MustacheRenderingEvent.class));
         try {
             renderingStarted(event);
-            appendable = rootSegment.execute(
-                    appendable,
-                    data != null ? globalExecutionContext
-                            .setContextObject(data) : globalExecutionContext);
-            // We need for flush the async appendable if needed
-            RootSegment.flushAsyncAppendable(appendable);
+            render(appendable, data, event);
             renderingFinished(event);
         } finally {
             event.release();
@@ -116,24 +167,109 @@ public class Template implements Mustache {
         return engine;
     }
 
-    private void renderingStarted(MustacheRenderingEvent event) {
-        List<MustacheListener> listeners = engine.getConfiguration()
-                .getMustacheListeners();
-        if (listeners != null) {
-            for (MustacheListener listener : listeners) {
-                listener.renderingStarted(event);
+    /**
+     *
+     * @return the estimated number of bytes occupied by the compiled template
+     * @since 1.8
+     */
+    public long getEstimatedFootprint() {
+        RootSegment root = rootSegment;
+        // Name chars
+        long footprint = 40 + 2 * name.length();
+        return root != null ? footprint + root.getEstimatedFootprint()
+                : footprint;
+    }
+
+    private void render(Appendable appendable, Object data,
+            AbstractReleaseCallbackContainer container) {
+        ExecutionContext context = globalExecutionContext
+                .startRendering(container);
+        appendable = rootSegment.execute(appendable,
+                data != null ? context.setContextObject(data) : context);
+        // We need for flush the async appendable if needed
+        RootSegment.flushAsyncAppendable(appendable);
+    }
+
+    private String renderReusingBuffer(Object data) {
+        StringBuilder builder = OUTPUT_BUFFER.get();
+        if (builder != null) {
+            OUTPUT_BUFFER.remove();
+            builder.ensureCapacity(getInitialOutputCapacity());
+        } else {
+            builder = new StringBuilder(getInitialOutputCapacity());
+        }
+        try {
+            render(builder, data);
+            updateOutputLengthEstimate(builder.length());
+            return builder.toString();
+        } finally {
+            if (builder.capacity() <= MAX_REUSED_OUTPUT_CAPACITY) {
+                builder.setLength(0);
+                OUTPUT_BUFFER.set(builder);
             }
         }
     }
 
+    int getInitialOutputCapacity() {
+        int estimate = outputLengthEstimate;
+        // Add some headroom so that small deviations do not cause a copy
+        return Math.max(MIN_OUTPUT_CAPACITY,
+                (int) Math.min(Integer.MAX_VALUE - 8, (long) estimate
+                        + (estimate >> 3)));
+    }
+
+    private void updateOutputLengthEstimate(int length) {
+        // Exponential moving average - lost updates do not matter
+        int estimate = outputLengthEstimate;
+        outputLengthEstimate = estimate == 0 ? length : estimate
+                + (length - estimate) / 4;
+    }
+
+    private void renderingStarted(MustacheRenderingEvent event) {
+        for (MustacheListener listener : renderingListeners) {
+            listener.renderingStarted(event);
+        }
+    }
+
     private void renderingFinished(MustacheRenderingEvent event) {
-        List<MustacheListener> listeners = engine.getConfiguration()
-                .getMustacheListeners();
-        if (listeners != null) {
-            for (MustacheListener listener : Lists.reverse(listeners)) {
-                listener.renderingFinished(event);
+        // Reverse order
+        for (int i = renderingListeners.length - 1; i >= 0; i--) {
+            renderingListeners[i].renderingFinished(event);
+        }
+    }
+
+    private static MustacheListener[] initRenderingListeners(
+            List<MustacheListener> listeners) {
+        if (listeners == null || listeners.isEmpty()) {
+            return null;
+        }
+        List<MustacheListener> renderingListeners = new ArrayList<MustacheListener>(
+                listeners.size());
+        for (MustacheListener listener : listeners) {
+            if (OBSERVES_RENDERING.get(listener.getClass())) {
+                renderingListeners.add(listener);
             }
         }
+        return renderingListeners.isEmpty() ? null : renderingListeners
+                .toArray(new MustacheListener[renderingListeners.size()]);
+    }
+
+    private static boolean isOverriden(Class<?> listenerType, String methodName) {
+        try {
+            Method method = listenerType.getMethod(methodName,
+                    MustacheRenderingEvent.class);
+            return !method.getDeclaringClass().equals(
+                    AbstractMustacheListener.class);
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Used if no listener observes the rendering events.
+     */
+    private static final class RenderingCallbacks extends
+            AbstractReleaseCallbackContainer {
     }
 
     /**
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine.resolver;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trimou.annotations.Internal;
+import org.trimou.engine.config.Configuration;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Per-class table of resolvers applicable to a context object.
+ *
+ * <p>
+ * The table is weak-keyed and owned by the configuration so that neither the
+ * context object classes nor the engine are pinned in memory.
+ * </p>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ * @see TypeAwareResolver
+ */
+@Internal
+public final class ApplicableResolvers {
+
+    private static final Logger logger = LoggerFactory
+            .getLogger(ApplicableResolvers.class);
+
+    private final Resolver[] resolvers;
+
+    // Resolvers which may be filtered out
+    private final boolean[] typeAware;
+
+    private final Resolver[] nullContextObjectResolvers;
+
+    /**
+     * <code>null</code> if no resolver is filtered
+     */
+    private final ConcurrentMap<Class<?>, Resolver[]> table;
+
+    /**
+     *
+     * @param resolvers
+     */
+    public ApplicableResolvers(List<Resolver> resolvers) {
+        this.resolvers = resolvers.toArray(new Resolver[resolvers.size()]);
+        this.typeAware = new boolean[this.resolvers.length];
+        boolean filtered = false;
+        for (int i = 0; i < this.resolvers.length; i++) {
+            typeAware[i] = isTypeAware(this.resolvers[i]);
+            filtered |= typeAware[i];
+        }
+        if (filtered) {
+            this.table = new MapMaker().weakKeys().makeMap();
+            this.nullContextObjectResolvers = filter(null);
+        } else {
+            this.table = null;
+            this.nullContextObjectResolvers = this.resolvers;
+        }
+    }
+
+    /**
+     * The returned array must not be modified.
+     *
+     * @param contextObject
+     *            The context object, may be <code>null</code>
+     * @return the ordered array of resolvers which might be able to resolve a
+     *         value for the given context object
+     */
+    public Resolver[] get(Object contextObject) {
+        if (contextObject == null) {
+            return nullContextObjectResolvers;
+        }
+        if (table == null) {
+            return resolvers;
+        }
+        Class<?> type = contextObject.getClass();
+        Resolver[] applicable = table.get(type);
+        if (applicable == null) {
+            // Lost updates do not matter
+            applicable = filter(type);
+            table.put(type, applicable);
+        }
+        return applicable;
+    }
+
+    private Resolver[] filter(Class<?> contextObjectType) {
+        List<Resolver> applicable = new ArrayList<Resolver>(resolvers.length);
+        for (int i = 0; i < resolvers.length; i++) {
+            if (!typeAware[i]
+                    || ((TypeAwareResolver) resolvers[i])
+                            .isApplicable(contextObjectType)) {
+                applicable.add(resolvers[i]);
+            }
+        }
+        return applicable.toArray(new Resolver[applicable.size()]);
+    }
+
+    /**
+     *
+     * @param configuration
+     * @return the table for the given configuration
+     */
+    public static ApplicableResolvers of(Configuration configuration) {
+        if (configuration instanceof Provider) {
+            return ((Provider) configuration).getApplicableResolvers();
+        }
+        return new ApplicableResolvers(configuration.getResolvers());
+    }
+
+    /**
+     * A type-aware resolver is only filtered if
+     * {@link TypeAwareResolver#isApplicable(Class)} is declared by the class
+     * which declares {@link Resolver#resolve(Object, String, ResolutionContext)}
+     * or by its subclass. A subclass of a built-in resolver which only
+     * overrides the resolve method is never filtered.
+     */
+    private static boolean isTypeAware(Resolver resolver) {
+        if (!(resolver instanceof TypeAwareResolver)) {
+            return false;
+        }
+        Class<?> resolveDeclaringClass = getDeclaringClass(resolver,
+                "resolve", Object.class, String.class,
+                ResolutionContext.class);
+        Class<?> isApplicableDeclaringClass = getDeclaringClass(resolver,
+                "isApplicable", Class.class);
+        if (resolveDeclaringClass == null
+                || isApplicableDeclaringClass == null
+                || !resolveDeclaringClass
+                        .isAssignableFrom(isApplicableDeclaringClass)) {
+            logger.warn(
+                    "{} overrides resolve() but not isApplicable() - the resolver is applied to all context objects",
+                    resolver.getClass().getName());
+            return false;
+        }
+        return true;
+    }
+
+    private static Class<?> getDeclaringClass(Resolver resolver, String name,
+            Class<?>... parameterTypes) {
+        try {
+            Method method = resolver.getClass().getMethod(name,
+                    parameterTypes);
+            return method.getDeclaringClass();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A configuration which holds the table.
+     */
+    public interface Provider {
+
+        /**
+         *
+         * @return the table of applicable resolvers
+         */
+        ApplicableResolvers getApplicableResolvers();
+
+    }
+
+}
@@ -33,7 +33,8 @@ import java.lang.reflect.Array;
  * @author Martin Kouba
  * @see CombinedIndexResolver
  */
-public class ArrayIndexResolver extends IndexResolver {
+public class ArrayIndexResolver extends IndexResolver implements
+        TypeAwareResolver {
 
     public static final int ARRAY_RESOLVER_PRIORITY = rightAfter(ListIndexResolver.LIST_RESOLVER_PRIORITY);
 
@@ -62,6 +63,11 @@ public class ArrayIndexResolver extends IndexResolver {
         return null;
     }
 
+    @Override
+    public boolean isApplicable(Class<?> contextObjectType) {
+        return contextObjectType != null && contextObjectType.isArray();
+    }
+
     private boolean isArray(Object base) {
 
         if (base.getClass().isArray()) {
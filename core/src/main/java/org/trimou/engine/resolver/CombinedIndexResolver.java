@@ -34,7 +34,8 @@ import org.trimou.engine.validation.Validateable;
  * @see ListIndexResolver
  * @see ArrayIndexResolver
  */
-public class CombinedIndexResolver extends IndexResolver implements Validateable {
+public class CombinedIndexResolver extends IndexResolver implements
+        Validateable, TypeAwareResolver {
 
     private boolean isEnabled;
 
@@ -85,7 +86,12 @@ public class CombinedIndexResolver extends IndexResolver implements Validateable
         return null;
     }
 
-
+    @Override
+    public boolean isApplicable(Class<?> contextObjectType) {
+        return contextObjectType != null
+                && (contextObjectType.isArray() || List.class
+                        .isAssignableFrom(contextObjectType));
+    }
 
     @Override
     public void init(Configuration configuration) {
@@ -23,7 +23,8 @@ import java.util.UUID;
  *
  * @author Martin Kouba
  */
-public class DummyTransformResolver extends TransformResolver {
+public class DummyTransformResolver extends TransformResolver implements
+        TypeAwareResolver {
 
     private final String marker;
 
@@ -61,4 +62,11 @@ public class DummyTransformResolver extends TransformResolver {
         return null;
     }
 
+    @Override
+    public boolean isApplicable(Class<?> contextObjectType) {
+        // Null context object or marker
+        return contextObjectType == null
+                || String.class.equals(contextObjectType);
+    }
+
 }
@@ -33,7 +33,8 @@ import java.util.List;
  * @author Martin Kouba
  * @see CombinedIndexResolver
  */
-public class ListIndexResolver extends IndexResolver {
+public class ListIndexResolver extends IndexResolver implements
+        TypeAwareResolver {
 
     public static final int LIST_RESOLVER_PRIORITY = rightAfter(MapResolver.MAP_RESOLVER_PRIORITY);
 
@@ -64,4 +65,10 @@ public class ListIndexResolver extends IndexResolver {
         return null;
     }
 
+    @Override
+    public boolean isApplicable(Class<?> contextObjectType) {
+        return contextObjectType != null
+                && List.class.isAssignableFrom(contextObjectType);
+    }
+
 }
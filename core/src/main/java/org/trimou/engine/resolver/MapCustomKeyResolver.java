@@ -22,7 +22,8 @@ import java.util.Map;
  *
  * @author Martin Kouba
  */
-public abstract class MapCustomKeyResolver extends AbstractResolver {
+public abstract class MapCustomKeyResolver extends AbstractResolver
+        implements TypeAwareResolver {
 
     public MapCustomKeyResolver(int priority) {
         super(priority);
@@ -41,6 +42,12 @@ public abstract class MapCustomKeyResolver extends AbstractResolver {
         return map.get(convert(name));
     }
 
+    @Override
+    public boolean isApplicable(Class<?> contextObjectType) {
+        return contextObjectType != null
+                && Map.class.isAssignableFrom(contextObjectType);
+    }
+
     /**
      *
      * @param name
@@ -25,7 +25,8 @@ import java.util.Map;
  *
  * @author Martin Kouba
  */
-public class MapResolver extends AbstractResolver {
+public class MapResolver extends AbstractResolver implements
+        TypeAwareResolver {
 
     public static final int MAP_RESOLVER_PRIORITY = rightAfter(ThisResolver.THIS_RESOLVER_PRIORITY);
 
@@ -64,6 +65,13 @@ public class MapResolver extends AbstractResolver {
         return null;
     }
 
+    @Override
+    public boolean isApplicable(Class<?> contextObjectType) {
+        return contextObjectType != null
+                && (Map.class.isAssignableFrom(contextObjectType) || Mapper.class
+                        .isAssignableFrom(contextObjectType));
+    }
+
     @Override
     public Hint createHint(Object contextObject, String name,
             ResolutionContext context) {
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine.resolver;
+
+import org.trimou.engine.config.EngineConfigurationKey;
+
+/**
+ * Values resolved by a resolver implementing this interface are never memoized
+ * (e.g. the resolved value may change during rendering).
+ *
+ * <p>
+ * Note that if memoization is enabled, the engine does not use hints created
+ * by such resolvers.
+ * </p>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ * @see EngineConfigurationKey#RESOLUTION_MEMOIZATION_ENABLED
+ */
+public interface NonMemoizableResolver extends Resolver {
+
+}
@@ -20,8 +20,9 @@ import static org.trimou.engine.priority.Priorities.rightBefore;
 import java.lang.reflect.Field;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
-import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +38,7 @@ import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableSet;
 
 /**
  * Reflection-based resolver attempts to find a matching member on the context
@@ -47,7 +49,7 @@ import com.google.common.cache.RemovalNotification;
  * @see Reflections#findMethod(Class, String)
  */
 public class ReflectionResolver extends AbstractResolver implements
-        RemovalListener<MemberKey, Optional<MemberWrapper>> {
+        RemovalListener<MemberKey, Optional<MemberWrapper>>, TypeAwareResolver {
 
     public static final int REFLECTION_RESOLVER_PRIORITY = rightBefore(WithPriority.EXTENSION_RESOLVERS_DEFAULT_PRIORITY);
 
@@ -61,6 +63,18 @@ public class ReflectionResolver extends AbstractResolver implements
     public static final ConfigurationKey MEMBER_CACHE_MAX_SIZE_KEY = new SimpleConfigurationKey(
             ReflectionResolver.class.getName() + ".memberCacheMaxSize", 10000l);
 
+    /**
+     * If set to <code>true</code> the member cache is built on top of
+     * {@link ClassValue} instead of {@link ComputingCache}. Such a cache does
+     * not require any key allocation during lookup, and the cached members are
+     * eligible for garbage collection together with the class (and its
+     * classloader). On the other hand the cache is not bounded, i.e.
+     * {@link #MEMBER_CACHE_MAX_SIZE_KEY} is ignored.
+     */
+    public static final ConfigurationKey MEMBER_CACHE_CLASS_VALUE_ENABLED_KEY = new SimpleConfigurationKey(
+            ReflectionResolver.class.getName()
+                    + ".memberCacheClassValueEnabled", false);
+
     /**
      * Even if the runtime class of the context object changes try to apply the
      * resolver.
@@ -76,6 +90,11 @@ public class ReflectionResolver extends AbstractResolver implements
      */
     private ComputingCache<MemberKey, Optional<MemberWrapper>> memberCache;
 
+    /**
+     * {@link ClassValue}-based alternative to {@link #memberCache}
+     */
+    private volatile ClassMemberCache classMemberCache;
+
     private boolean hintFallbackEnabled;
 
     public ReflectionResolver() {
@@ -95,11 +114,16 @@ public class ReflectionResolver extends AbstractResolver implements
         }
 
         MemberWrapper wrapper;
-        MemberKey key = MemberKey.newInstance(contextObject, name);
-        if (memberCache != null) {
-            wrapper = memberCache.get(key).orNull();
+        ClassMemberCache classMembers = classMemberCache;
+        if (classMembers != null) {
+            wrapper = classMembers.get(contextObject, name);
         } else {
-            wrapper = findWrapper(key).orNull();
+            MemberKey key = MemberKey.newInstance(contextObject, name);
+            if (memberCache != null) {
+                wrapper = memberCache.get(key).orNull();
+            } else {
+                wrapper = findWrapper(key).orNull();
+            }
         }
 
         if (wrapper == null) {
@@ -114,12 +138,20 @@ public class ReflectionResolver extends AbstractResolver implements
         }
     }
 
+    @Override
+    public boolean isApplicable(Class<?> contextObjectType) {
+        return contextObjectType != null;
+    }
+
     @Override
     public Hint createHint(Object contextObject, String name,
             ResolutionContext context) {
         MemberKey key = MemberKey.newInstance(contextObject, name);
         MemberWrapper wrapper;
-        if (memberCache != null) {
+        ClassMemberCache classMembers = classMemberCache;
+        if (classMembers != null) {
+            wrapper = classMembers.get(contextObject, name);
+        } else if (memberCache != null) {
             Optional<MemberWrapper> found = memberCache.getIfPresent(key);
             wrapper = found != null ? found.get() : null;
         } else {
@@ -136,8 +168,14 @@ public class ReflectionResolver extends AbstractResolver implements
     public void init() {
         long memberCacheMaxSize = configuration
                 .getLongPropertyValue(MEMBER_CACHE_MAX_SIZE_KEY);
-        logger.debug("Initialized [memberCacheMaxSize: {}]", memberCacheMaxSize);
-        if (memberCacheMaxSize > 0) {
+        boolean classValueEnabled = configuration
+                .getBooleanPropertyValue(MEMBER_CACHE_CLASS_VALUE_ENABLED_KEY);
+        logger.debug(
+                "Initialized [memberCacheMaxSize: {}, memberCacheClassValueEnabled: {}]",
+                memberCacheMaxSize, classValueEnabled);
+        if (classValueEnabled) {
+            classMemberCache = new ClassMemberCache();
+        } else if (memberCacheMaxSize > 0) {
             memberCache = configuration.getComputingCacheFactory().create(
                     COMPUTING_CACHE_CONSUMER_ID, new MemberComputingFunction(),
                     null, memberCacheMaxSize, null);
@@ -148,8 +186,8 @@ public class ReflectionResolver extends AbstractResolver implements
 
     @Override
     public Set<ConfigurationKey> getConfigurationKeys() {
-        return Collections
-                .<ConfigurationKey> singleton(MEMBER_CACHE_MAX_SIZE_KEY);
+        return ImmutableSet.<ConfigurationKey> of(MEMBER_CACHE_MAX_SIZE_KEY,
+                MEMBER_CACHE_CLASS_VALUE_ENABLED_KEY, HINT_FALLBACK_ENABLED_KEY);
     }
 
     @Override
@@ -165,12 +203,23 @@ public class ReflectionResolver extends AbstractResolver implements
      * workaround we provide a way to invalidate the cache or some of its
      * entries (e.g. for a concrete classloader).
      *
+     * <p>
+     * Note that it's not possible to enumerate the classes for which the
+     * {@link ClassValue}-based cache contains entries. Therefore, the entire
+     * cache is always discarded if {@link #MEMBER_CACHE_CLASS_VALUE_ENABLED_KEY}
+     * is set to <code>true</code>.
+     * </p>
+     *
      * @param predicate
      *            If null, all cache entries are discarded, otherwise an entry
      *            is only discarded if the given predicate returns
      *            <code>true</code> for the {@link MemberKey#getClass()}
      */
     public void invalidateMemberCache(final Predicate<Class<?>> predicate) {
+        if (classMemberCache != null) {
+            classMemberCache = new ClassMemberCache();
+            return;
+        }
         if (memberCache == null) {
             return;
         }
@@ -192,10 +241,14 @@ public class ReflectionResolver extends AbstractResolver implements
     }
 
     private static Optional<MemberWrapper> findWrapper(MemberKey key) {
+        return findWrapper(key.getClazz(), key.getName());
+    }
+
+    private static Optional<MemberWrapper> findWrapper(Class<?> clazz,
+            String name) {
         // Find accesible method with the given name, no
         // parameters and non-void return type
-        Method foundMethod = Reflections.findMethod(key.getClazz(),
-                key.getName());
+        Method foundMethod = Reflections.findMethod(clazz, name);
 
         if (foundMethod != null) {
             if (!foundMethod.isAccessible()) {
@@ -205,7 +258,7 @@ public class ReflectionResolver extends AbstractResolver implements
         }
 
         // Find public field
-        Field foundField = Reflections.findField(key.getClazz(), key.getName());
+        Field foundField = Reflections.findField(clazz, name);
 
         if (foundField != null) {
             if (!foundField.isAccessible()) {
@@ -227,6 +280,39 @@ public class ReflectionResolver extends AbstractResolver implements
 
     }
 
+    /**
+     * Lookup attempts (both hits and misses) are stored per class. No key
+     * allocation is needed, reads are lock-free and the entries are discarded
+     * together with the class.
+     */
+    private static class ClassMemberCache extends
+            ClassValue<ConcurrentMap<String, Optional<MemberWrapper>>> {
+
+        @Override
+        protected ConcurrentMap<String, Optional<MemberWrapper>> computeValue(
+                Class<?> type) {
+            return new ConcurrentHashMap<String, Optional<MemberWrapper>>(8,
+                    0.75f, 1);
+        }
+
+        MemberWrapper get(Object contextObject, String name) {
+            Class<?> clazz = (contextObject instanceof Class<?>) ? (Class<?>) contextObject
+                    : contextObject.getClass();
+            ConcurrentMap<String, Optional<MemberWrapper>> members = get(clazz);
+            Optional<MemberWrapper> found = members.get(name);
+            if (found == null) {
+                found = findWrapper(clazz, name);
+                Optional<MemberWrapper> previous = members.putIfAbsent(name,
+                        found);
+                if (previous != null) {
+                    found = previous;
+                }
+            }
+            return found.orNull();
+        }
+
+    }
+
     private class ReflectionHint implements Hint {
 
         private final MemberKey key;
@@ -15,7 +15,10 @@
  */
 package org.trimou.engine.resolver;
 
+import java.util.Locale;
+
 import org.trimou.engine.context.ExecutionContext;
+import org.trimou.engine.locale.LocaleSupport;
 import org.trimou.engine.resource.ReleaseCallbackContainer;
 import org.trimou.engine.segment.Segment;
 
@@ -43,4 +46,15 @@ public interface ResolutionContext extends ReleaseCallbackContainer {
      */
     int getKeyPartIndex();
 
+    /**
+     * The locale is obtained from the {@link LocaleSupport} only once per
+     * rendering. Locale-aware resolvers should prefer this method over
+     * {@link LocaleSupport#getCurrentLocale()}.
+     *
+     * @return the locale of the current rendering, or <code>null</code> if not
+     *         available
+     * @since 1.8
+     */
+    Locale getLocale();
+
 }
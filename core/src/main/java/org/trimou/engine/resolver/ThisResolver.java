@@ -23,7 +23,8 @@ import org.trimou.util.Strings;
 /**
  * @author Martin Kouba
  */
-public class ThisResolver extends AbstractResolver {
+public class ThisResolver extends AbstractResolver implements
+        TypeAwareResolver {
 
     public static final int THIS_RESOLVER_PRIORITY = rightAfter(WithPriority.BUILTIN_RESOLVERS_DEFAULT_PRIORITY);
 
@@ -57,6 +58,11 @@ public class ThisResolver extends AbstractResolver {
         return null;
     }
 
+    @Override
+    public boolean isApplicable(Class<?> contextObjectType) {
+        return contextObjectType != null;
+    }
+
     @Override
     public Hint createHint(Object contextObject, String name, ResolutionContext context) {
         return hint;
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine.resolver;
+
+/**
+ * A type-aware resolver declares the types of context objects it's able to
+ * handle. The engine uses this information to build a per-class table of
+ * applicable resolvers so that the resolver chain does not contain resolvers
+ * which would return <code>null</code> anyway.
+ *
+ * <p>
+ * If {@link #isApplicable(Class)} returns <code>false</code> for a specific
+ * type, {@link #resolve(Object, String, ResolutionContext)} must always return
+ * <code>null</code> for any context object of such type. A subclass which
+ * overrides {@link #resolve(Object, String, ResolutionContext)} but not
+ * {@link #isApplicable(Class)} is never filtered out (and a warning is logged)
+ * so that subclasses of the built-in resolvers keep working.
+ * </p>
+ *
+ * <p>
+ * Note that the result for a specific type is computed lazily and cached, i.e.
+ * the result must not change during the lifetime of the engine.
+ * </p>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ * @see ApplicableResolvers
+ */
+public interface TypeAwareResolver extends Resolver {
+
+    /**
+     *
+     * @param contextObjectType
+     *            The runtime class of the context object, <code>null</code>
+     *            represents a <code>null</code> context object (e.g. the
+     *            leading context object could not be found on the context
+     *            stack)
+     * @return <code>true</code> if the resolver may be able to resolve a value
+     *         for a context object of the given type, <code>false</code>
+     *         otherwise
+     */
+    boolean isApplicable(Class<?> contextObjectType);
+
+}
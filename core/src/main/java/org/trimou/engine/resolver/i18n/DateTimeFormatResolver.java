@@ -18,10 +18,10 @@ package org.trimou.engine.resolver.i18n;
 import static org.trimou.engine.priority.Priorities.rightAfter;
 
 import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Locale;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -31,6 +31,8 @@ import org.trimou.engine.config.SimpleConfigurationKey;
 import org.trimou.engine.resolver.ArrayIndexResolver;
 import org.trimou.engine.resolver.ResolutionContext;
 import org.trimou.engine.resolver.TransformResolver;
+import org.trimou.engine.resolver.TypeAwareResolver;
+import org.trimou.util.FormatCache;
 
 /**
  * Basic date and time formatting resolver.
@@ -45,7 +47,8 @@ import org.trimou.engine.resolver.TransformResolver;
  *
  * @author Martin Kouba
  */
-public class DateTimeFormatResolver extends TransformResolver {
+public class DateTimeFormatResolver extends TransformResolver implements
+        TypeAwareResolver {
 
     private static final Logger logger = LoggerFactory
             .getLogger(DateTimeFormatResolver.class);
@@ -66,6 +69,8 @@ public class DateTimeFormatResolver extends TransformResolver {
 
     private String customPattern;
 
+    private final FormatCache formatCache = new FormatCache();
+
     /**
      *
      */
@@ -92,19 +97,29 @@ public class DateTimeFormatResolver extends TransformResolver {
             return null;
         }
 
+        Locale locale = getCurrentLocale(context);
+
         if (NAME_FORMAT.equals(name)) {
-            return format(DateFormat.MEDIUM, formattableObject);
+            return format(DateFormat.MEDIUM, formattableObject, locale);
         } else if (NAME_FORMAT_SHORT.equals(name)) {
-            return format(DateFormat.SHORT, formattableObject);
+            return format(DateFormat.SHORT, formattableObject, locale);
         } else if (NAME_FORMAT_CUSTOM.equals(name)) {
-            return formatCustom(formattableObject);
+            return formatCustom(formattableObject, locale);
         }
         if (NAME_FORMAT_DATE.equals(name)) {
-            return formatDate(DateFormat.MEDIUM, formattableObject);
+            return formatDate(DateFormat.MEDIUM, formattableObject, locale);
         }
         return null;
     }
 
+    @Override
+    public boolean isApplicable(Class<?> contextObjectType) {
+        return contextObjectType != null
+                && (Date.class.isAssignableFrom(contextObjectType)
+                        || Number.class.isAssignableFrom(contextObjectType) || Calendar.class
+                            .isAssignableFrom(contextObjectType));
+    }
+
     @Override
     public void init() {
         super.init();
@@ -127,19 +142,16 @@ public class DateTimeFormatResolver extends TransformResolver {
         return null;
     }
 
-    private String format(int style, Object object) {
-        return DateFormat.getDateTimeInstance(style, style, getCurrentLocale())
-                .format(object);
+    private String format(int style, Object object, Locale locale) {
+        return formatCache.formatDateTime(object, style, style, locale, null);
     }
 
-    private String formatDate(int style, Object object) {
-        return DateFormat.getDateInstance(style, getCurrentLocale()).format(
-                object);
+    private String formatDate(int style, Object object, Locale locale) {
+        return formatCache.formatDate(object, style, locale, null);
     }
 
-    private String formatCustom(Object object) {
-        return new SimpleDateFormat(customPattern, getCurrentLocale())
-                .format(object);
+    private String formatCustom(Object object, Locale locale) {
+        return formatCache.formatPattern(object, customPattern, locale, null);
     }
 
 }
@@ -19,6 +19,7 @@ import java.util.Locale;
 
 import org.trimou.engine.locale.LocaleSupport;
 import org.trimou.engine.resolver.AbstractResolver;
+import org.trimou.engine.resolver.ResolutionContext;
 
 /**
  *
@@ -37,8 +38,27 @@ public abstract class LocaleAwareResolver extends AbstractResolver {
         localeSupport = configuration.getLocaleSupport();
     }
 
+    /**
+     *
+     * @return the current locale by means of {@link LocaleSupport}
+     * @see #getCurrentLocale(ResolutionContext)
+     */
     protected Locale getCurrentLocale() {
         return localeSupport.getCurrentLocale();
     }
 
+    /**
+     *
+     * @param context
+     *            May be <code>null</code>
+     * @return the locale of the current rendering if available, or the current
+     *         locale by means of {@link LocaleSupport}
+     * @see ResolutionContext#getLocale()
+     * @since 1.8
+     */
+    protected Locale getCurrentLocale(ResolutionContext context) {
+        Locale locale = context != null ? context.getLocale() : null;
+        return locale != null ? locale : getCurrentLocale();
+    }
+
 }
@@ -17,11 +17,11 @@ package org.trimou.engine.resolver.i18n;
 
 import static org.trimou.engine.priority.Priorities.rightAfter;
 
-import java.text.NumberFormat;
-
 import org.trimou.engine.resolver.ArrayIndexResolver;
 import org.trimou.engine.resolver.ResolutionContext;
 import org.trimou.engine.resolver.TransformResolver;
+import org.trimou.engine.resolver.TypeAwareResolver;
+import org.trimou.util.FormatCache;
 
 /**
  * Basic number formatting resolver.
@@ -37,7 +37,8 @@ import org.trimou.engine.resolver.TransformResolver;
  *
  * @author Martin Kouba
  */
-public class NumberFormatResolver extends TransformResolver {
+public class NumberFormatResolver extends TransformResolver implements
+        TypeAwareResolver {
 
     public static final int NUMBER_FORMAT_RESOLVER_PRIORITY = rightAfter(ArrayIndexResolver.ARRAY_RESOLVER_PRIORITY);
 
@@ -47,6 +48,8 @@ public class NumberFormatResolver extends TransformResolver {
 
     static final String NAME_FORMAT_CURR = "formatCurrency";
 
+    private final FormatCache formatCache = new FormatCache();
+
     /**
      *
      */
@@ -68,19 +71,25 @@ public class NumberFormatResolver extends TransformResolver {
                 && (contextObject instanceof Number);
     }
 
+    @Override
+    public boolean isApplicable(Class<?> contextObjectType) {
+        return contextObjectType != null
+                && Number.class.isAssignableFrom(contextObjectType);
+    }
+
     @Override
     public Object transform(Object contextObject, String name,
             ResolutionContext context) {
 
         if (NAME_FORMAT.equals(name)) {
-            return NumberFormat.getNumberInstance(getCurrentLocale()).format(
-                    contextObject);
+            return formatCache.formatNumber(contextObject,
+                    getCurrentLocale(context));
         } else if (NAME_FORMAT_PERCENT.equals(name)) {
-            return NumberFormat.getPercentInstance(getCurrentLocale()).format(
-                    contextObject);
+            return formatCache.formatPercent(contextObject,
+                    getCurrentLocale(context));
         } else if (NAME_FORMAT_CURR.equals(name)) {
-            return NumberFormat.getCurrencyInstance(getCurrentLocale()).format(
-                    contextObject);
+            return formatCache.formatCurrency(contextObject,
+                    getCurrentLocale(context));
         }
         return null;
     }
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.engine.resolver.i18n;
+
+import java.text.MessageFormat;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.trimou.annotations.Internal;
+import org.trimou.engine.cache.ComputingCache;
+import org.trimou.engine.cache.ComputingCacheFactory;
+import org.trimou.handlebars.i18n.ResourceBundleHelper;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * A cache of resource bundle messages, keyed by base name and the locale of
+ * the bundle found (e.g. requests for <code>en_US</code> and
+ * <code>en_GB</code> share the messages of the <code>en</code> bundle). Each
+ * bundle is indexed once, i.e. all the keys (including the keys from parent
+ * bundles) are copied to an immutable map. {@link MessageFormat} patterns are
+ * parsed lazily and only once per key.
+ *
+ * <p>
+ * Both the mapping of requested locales to bundle locales and the messages
+ * are bounded since the requested locale may be derived from the client
+ * request.
+ * </p>
+ *
+ * <p>
+ * If the expiration timeout is set the bundles are reloaded once the entry
+ * expires, i.e. the JDK resource bundle cache is bypassed.
+ * </p>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ * @see ResourceBundleResolver
+ * @see ResourceBundleHelper
+ */
+@Internal
+public final class ResourceBundleCache {
+
+    private static final ResourceBundle.Control NO_CACHE_CONTROL = new ResourceBundle.Control() {
+
+        @Override
+        public long getTimeToLive(String baseName, Locale locale) {
+            return TTL_DONT_CACHE;
+        }
+
+    };
+
+    // Requested locale -> bundle locale
+    private final ComputingCache<BundleKey, Optional<Locale>> locales;
+
+    // Bundle locale -> messages
+    private final ComputingCache<BundleKey, Optional<Messages>> messages;
+
+    /**
+     *
+     * @param consumerId
+     * @param computingCacheFactory
+     * @param expirationTimeout
+     *            Expiration timeout in milliseconds, zero and negative values
+     *            mean no timeout
+     * @param maxSize
+     *            The max number of cached bundles and requested locales
+     */
+    public ResourceBundleCache(String consumerId,
+            ComputingCacheFactory computingCacheFactory,
+            final long expirationTimeout, long maxSize) {
+        Long timeout = expirationTimeout > 0 ? expirationTimeout : null;
+        this.locales = computingCacheFactory.create(consumerId + ".locales",
+                new ComputingCache.Function<BundleKey, Optional<Locale>>() {
+                    @Override
+                    public Optional<Locale> compute(BundleKey key) {
+                        ResourceBundle bundle = getBundle(key,
+                                expirationTimeout);
+                        return bundle != null ? Optional.of(bundle
+                                .getLocale()) : Optional.<Locale> absent();
+                    }
+                }, timeout, maxSize, null);
+        this.messages = computingCacheFactory.create(consumerId,
+                new ComputingCache.Function<BundleKey, Optional<Messages>>() {
+                    @Override
+                    public Optional<Messages> compute(BundleKey key) {
+                        ResourceBundle bundle = getBundle(key,
+                                expirationTimeout);
+                        return bundle != null ? Optional.of(new Messages(
+                                bundle)) : Optional.<Messages> absent();
+                    }
+                }, timeout, maxSize, null);
+    }
+
+    /**
+     *
+     * @param baseName
+     * @param locale
+     * @return the messages for the given base name and locale
+     * @throws MissingResourceException
+     *             If no resource bundle for the specified base name can be
+     *             found
+     */
+    public Messages get(String baseName, Locale locale) {
+        Optional<Locale> bundleLocale = locales.get(new BundleKey(baseName,
+                locale));
+        Optional<Messages> found = bundleLocale.isPresent() ? messages
+                .get(new BundleKey(baseName, bundleLocale.get())) : Optional
+                .<Messages> absent();
+        if (!found.isPresent()) {
+            throw new MissingResourceException(String.format(
+                    "Can't find bundle for base name %s, locale %s", baseName,
+                    locale), baseName + "_" + locale, "");
+        }
+        return found.get();
+    }
+
+    /**
+     * Discard all the cached messages.
+     */
+    public void clear() {
+        locales.clear();
+        messages.clear();
+    }
+
+    private static ResourceBundle getBundle(BundleKey key,
+            long expirationTimeout) {
+        try {
+            return expirationTimeout > 0 ? ResourceBundle.getBundle(
+                    key.baseName, key.locale, NO_CACHE_CONTROL)
+                    : ResourceBundle.getBundle(key.baseName, key.locale);
+        } catch (MissingResourceException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Immutable index of a resource bundle.
+     */
+    public static final class Messages {
+
+        private final Map<String, Object> values;
+
+        private final ConcurrentMap<String, MessageFormat> messageFormats;
+
+        private Messages(ResourceBundle bundle) {
+            // Custom bundles may return duplicate keys
+            Map<String, Object> values = new HashMap<String, Object>();
+            for (Enumeration<String> keys = bundle.getKeys(); keys
+                    .hasMoreElements();) {
+                String key = keys.nextElement();
+                values.put(key, bundle.getObject(key));
+            }
+            this.values = ImmutableMap.copyOf(values);
+            this.messageFormats = new ConcurrentHashMap<String, MessageFormat>();
+        }
+
+        public boolean containsKey(String key) {
+            return values.containsKey(key);
+        }
+
+        /**
+         *
+         * @param key
+         * @return the object for the given key or <code>null</code>
+         */
+        public Object getObject(String key) {
+            return values.get(key);
+        }
+
+        /**
+         *
+         * @param key
+         * @return the string for the given key or <code>null</code>
+         * @throws ClassCastException
+         *             If the object found for the given key is not a string
+         */
+        public String getString(String key) {
+            return (String) values.get(key);
+        }
+
+        /**
+         * {@link MessageFormat} is not thread-safe, therefore a copy of the
+         * parsed format is returned.
+         *
+         * @param key
+         * @return the message format for the given key or <code>null</code>
+         */
+        public MessageFormat getMessageFormat(String key) {
+            MessageFormat format = messageFormats.get(key);
+            if (format == null) {
+                String pattern = getString(key);
+                if (pattern == null) {
+                    return null;
+                }
+                format = new MessageFormat(pattern);
+                MessageFormat previous = messageFormats.putIfAbsent(key,
+                        format);
+                if (previous != null) {
+                    format = previous;
+                }
+            }
+            return (MessageFormat) format.clone();
+        }
+
+    }
+
+    private static final class BundleKey {
+
+        private final String baseName;
+
+        private final Locale locale;
+
+        BundleKey(String baseName, Locale locale) {
+            this.baseName = baseName;
+            this.locale = locale;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + baseName.hashCode();
+            result = prime * result
+                    + ((locale == null) ? 0 : locale.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof BundleKey)) {
+                return false;
+            }
+            BundleKey other = (BundleKey) obj;
+            if (!baseName.equals(other.baseName)) {
+                return false;
+            }
+            return locale == null ? other.locale == null : locale
+                    .equals(other.locale);
+        }
+
+    }
+
+}
@@ -18,12 +18,17 @@ package org.trimou.engine.resolver.i18n;
 import static org.trimou.engine.priority.Priorities.rightAfter;
 
 import java.util.ResourceBundle;
+import java.util.Set;
 
+import org.trimou.engine.config.ConfigurationKey;
+import org.trimou.engine.config.SimpleConfigurationKey;
 import org.trimou.engine.resolver.ArrayIndexResolver;
 import org.trimou.engine.resolver.DummyTransformResolver;
 import org.trimou.engine.resolver.ResolutionContext;
 import org.trimou.lambda.i18n.ResourceBundleLambda;
 
+import com.google.common.collect.ImmutableSet;
+
 /**
  * {@link ResourceBundle} resolver. Unlike {@link ResourceBundleLambda} this
  * resolver is not limited to String-based values. However keep in mind that
@@ -35,6 +40,26 @@ import org.trimou.lambda.i18n.ResourceBundleLambda;
  */
 public class ResourceBundleResolver extends DummyTransformResolver {
 
+    public static final String COMPUTING_CACHE_CONSUMER_ID = ResourceBundleResolver.class
+            .getName();
+
+    /**
+     * The bundle cache expiration timeout in seconds. Zero and negative values
+     * mean no timeout, i.e. the bundles are never reloaded.
+     */
+    public static final ConfigurationKey BUNDLE_CACHE_EXPIRATION_TIMEOUT_KEY = new SimpleConfigurationKey(
+            ResourceBundleResolver.class.getName()
+                    + ".bundleCacheExpirationTimeout", 0l);
+
+    /**
+     * The max number of cached bundles. The same limit applies to the number
+     * of cached requested locales.
+     */
+    public static final ConfigurationKey BUNDLE_CACHE_MAX_SIZE_KEY = new SimpleConfigurationKey(
+            ResourceBundleResolver.class.getName() + ".bundleCacheMaxSize", 100l);
+
+    private ResourceBundleCache bundleCache;
+
     /**
      *
      * @param baseName
@@ -57,12 +82,25 @@ public class ResourceBundleResolver extends DummyTransformResolver {
     @Override
     public Object transform(Object contextObject, String name,
             ResolutionContext context) {
-        ResourceBundle bundle = ResourceBundle.getBundle(matchingName(0),
-                getCurrentLocale());
-        if (bundle.containsKey(name)) {
-            return bundle.getObject(name);
-        }
-        return null;
+        return bundleCache.get(matchingName(0), getCurrentLocale(context))
+                .getObject(name);
+    }
+
+    @Override
+    public void init() {
+        super.init();
+        bundleCache = new ResourceBundleCache(
+                COMPUTING_CACHE_CONSUMER_ID,
+                configuration.getComputingCacheFactory(),
+                configuration
+                        .getLongPropertyValue(BUNDLE_CACHE_EXPIRATION_TIMEOUT_KEY) * 1000,
+                configuration.getLongPropertyValue(BUNDLE_CACHE_MAX_SIZE_KEY));
+    }
+
+    @Override
+    public Set<ConfigurationKey> getConfigurationKeys() {
+        return ImmutableSet.<ConfigurationKey> of(
+                BUNDLE_CACHE_EXPIRATION_TIMEOUT_KEY, BUNDLE_CACHE_MAX_SIZE_KEY);
     }
 
 }
@@ -56,6 +56,15 @@ public abstract class AbstractReleaseCallbackContainer implements
         }
     }
 
+    /**
+     *
+     * @return the number of registered callbacks
+     * @since 1.8
+     */
+    protected int getReleaseCallbacksCount() {
+        return releaseCallbacks != null ? releaseCallbacks.size() : 0;
+    }
+
     @Override
     public void registerReleaseCallback(ReleaseCallback callback) {
         if (releaseCallbacks == null) {
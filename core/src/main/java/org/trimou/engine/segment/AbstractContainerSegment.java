@@ -20,6 +20,7 @@ import java.util.List;
 
 import org.trimou.engine.MustacheTagInfo;
 import org.trimou.engine.context.ExecutionContext;
+import org.trimou.engine.listener.SegmentProfiler;
 
 import com.google.common.collect.ImmutableList;
 
@@ -33,6 +34,8 @@ abstract class AbstractContainerSegment extends AbstractSegment implements
 
     private final List<Segment> segments;
 
+    private final SegmentProfiler profiler;
+
     /**
      *
      * @param name
@@ -42,15 +45,36 @@ abstract class AbstractContainerSegment extends AbstractSegment implements
     public AbstractContainerSegment(String name, Origin origin, List<Segment> segments) {
         super(name, origin);
         this.segments = segments;
+        this.profiler = Segments.getProfiler(getEngineConfiguration());
     }
 
     public Appendable execute(Appendable appendable, ExecutionContext context) {
+        if (profiler != null && profiler.isProfiling()) {
+            return executeProfiled(appendable, context);
+        }
         for (Segment segment : segments) {
             appendable = segment.execute(appendable, context);
         }
         return appendable;
     }
 
+    private Appendable executeProfiled(Appendable appendable,
+            ExecutionContext context) {
+        for (Segment segment : segments) {
+            if (Segments.isProfiled(segment)) {
+                profiler.enter(segment);
+                try {
+                    appendable = segment.execute(appendable, context);
+                } finally {
+                    profiler.exit();
+                }
+            } else {
+                appendable = segment.execute(appendable, context);
+            }
+        }
+        return appendable;
+    }
+
     @Override
     public Iterator<Segment> iterator() {
         return getSegments().iterator();
@@ -46,4 +46,8 @@ abstract class AbstractSectionSegment extends AbstractContainerSegment {
         return super.getContentLiteralBlock();
     }
 
+    String getCachedContentLiteralBlock() {
+        return cachedContentLiteralBlock;
+    }
+
 }
@@ -21,12 +21,14 @@ import static org.trimou.engine.config.EngineConfigurationKey.START_DELIMITER;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.trimou.engine.MustacheEngine;
 import org.trimou.engine.MustacheTagInfo;
 import org.trimou.engine.MustacheTagType;
 import org.trimou.engine.config.Configuration;
 import org.trimou.engine.config.EngineConfigurationKey;
+import org.trimou.engine.context.ValueKey;
 import org.trimou.engine.parser.Template;
 import org.trimou.exception.MustacheException;
 import org.trimou.exception.MustacheProblem;
@@ -40,11 +42,15 @@ import org.trimou.util.Strings;
  */
 abstract class AbstractSegment implements Segment {
 
+    private static final AtomicReferenceFieldUpdater<AbstractSegment, MustacheTagInfo> INFO_UPDATER = AtomicReferenceFieldUpdater
+            .newUpdater(AbstractSegment.class, MustacheTagInfo.class, "info");
+
     private final Origin origin;
 
     private final String text;
 
-    private final MustacheTagInfo info;
+    // Created lazily - most segments never need the tag info
+    private volatile MustacheTagInfo info;
 
     /**
      *
@@ -53,9 +59,9 @@ abstract class AbstractSegment implements Segment {
      */
     public AbstractSegment(String text, Origin origin) {
         Checker.checkArgumentsNotNull(text, origin);
-        this.text = text;
+        // Equal texts are shared across all the templates
+        this.text = Strings.intern(text);
         this.origin = origin;
-        this.info = new DefaultSegmentInfo();
     }
 
     public String getText() {
@@ -69,7 +75,12 @@ abstract class AbstractSegment implements Segment {
 
     @Override
     public MustacheTagInfo getTagInfo() {
-        return info;
+        MustacheTagInfo value = info;
+        if (value == null) {
+            INFO_UPDATER.compareAndSet(this, null, new DefaultSegmentInfo());
+            value = info;
+        }
+        return value;
     }
 
     @Override
@@ -107,6 +118,19 @@ abstract class AbstractSegment implements Segment {
         return getDefaultStartDelimiter() + content + getDefaultEndDelimiter();
     }
 
+    /**
+     * The tag info is only created if needed, i.e. if resolver hints are
+     * monitored.
+     *
+     * @return a new value key for the segment text
+     */
+    protected ValueKey createValueKey() {
+        Configuration configuration = getEngineConfiguration();
+        return ValueKey.of(text, configuration,
+                ValueKey.getHintMonitor(configuration) != null ? getTagInfo()
+                        : null);
+    }
+
     protected boolean isHandlebarsSupportEnabled() {
         return getEngineConfiguration().getBooleanPropertyValue(
                 EngineConfigurationKey.HANDLEBARS_SUPPORT_ENABLED);
@@ -21,6 +21,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.Callable;
@@ -31,7 +32,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.trimou.engine.MustacheEngine;
 import org.trimou.engine.MustacheTagInfo;
+import org.trimou.engine.config.Configuration;
+import org.trimou.engine.config.EngineConfigurationKey;
 import org.trimou.engine.context.ExecutionContext;
+import org.trimou.engine.context.ValueKey;
 import org.trimou.engine.context.ValueWrapper;
 import org.trimou.engine.parser.Template;
 import org.trimou.exception.MustacheException;
@@ -56,6 +60,13 @@ import com.google.common.collect.ImmutableMap;
  */
 class HelperExecutionHandler {
 
+    private static final ThreadLocal<OptionsPool> OPTIONS_POOL = new ThreadLocal<OptionsPool>() {
+        @Override
+        protected OptionsPool initialValue() {
+            return new OptionsPool();
+        }
+    };
+
     private final Helper helper;
 
     private final OptionsBuilder optionsBuilder;
@@ -138,11 +149,48 @@ class HelperExecutionHandler {
         }
     }
 
+    /**
+     *
+     * @return the estimated number of bytes occupied by the handler, i.e. the
+     *         options builder, params and hash
+     */
+    long getEstimatedFootprint() {
+        long footprint = Segments.HANDLER_SHALLOW_SIZE
+                + Segments.estimateListFootprint(optionsBuilder.parameters
+                        .size());
+        for (Object param : optionsBuilder.parameters) {
+            footprint += estimateFootprint(param);
+        }
+        for (Entry<String, Object> entry : optionsBuilder.hash.entrySet()) {
+            footprint += Segments.MAP_ENTRY_SHALLOW_SIZE
+                    + Segments.estimateFootprint(entry.getKey())
+                    + estimateFootprint(entry.getValue());
+        }
+        return footprint;
+    }
+
+    private static long estimateFootprint(Object value) {
+        if (value instanceof DefaultValuePlaceholder) {
+            return Segments.PLACEHOLDER_SHALLOW_SIZE
+                    + Segments.estimateKeyFootprint(((DefaultValuePlaceholder) value)
+                            .getName());
+        } else if (value instanceof String) {
+            return Segments.estimateFootprint((String) value);
+        }
+        return Segments.OBJECT_SHALLOW_SIZE;
+    }
+
     private static Object getLiteralOrPlaceholder(String value,
             MustacheEngine engine, HelperAwareSegment segment) {
         Object literal = engine.getConfiguration().getLiteralSupport()
                 .getLiteral(value, segment.getTagInfo());
-        return literal != null ? literal : new DefaultValuePlaceholder(value);
+        if (literal != null) {
+            return literal;
+        }
+        // The tag info is only needed if resolver hints are monitored
+        return new DefaultValuePlaceholder(value, engine.getConfiguration(),
+                ValueKey.getHintMonitor(engine.getConfiguration()) != null ? segment
+                        .getTagInfo() : null);
     }
 
     private static class OptionsBuilder implements HelperDefinition {
@@ -161,6 +209,8 @@ class HelperExecutionHandler {
         // true if not placeholder found, also if hash map is empty
         private final boolean isHashValuePlaceholderFound;
 
+        private final boolean isOptionsReuseEnabled;
+
         private OptionsBuilder(List<Object> parameters,
                 Map<String, Object> hash, HelperAwareSegment segment,
                 MustacheEngine engine) {
@@ -170,6 +220,10 @@ class HelperExecutionHandler {
             this.engine = engine;
             this.isParamValuePlaceholderFound = initParamValuePlaceholderFound(parameters);
             this.isHashValuePlaceholderFound = initHashValuePlaceholderFound(hash);
+            this.isOptionsReuseEnabled = engine
+                    .getConfiguration()
+                    .getBooleanPropertyValue(
+                            EngineConfigurationKey.HELPER_OPTIONS_REUSE_ENABLED);
         }
 
         @Override
@@ -199,76 +253,22 @@ class HelperExecutionHandler {
         public DefaultOptions build(Appendable appendable,
                 ExecutionContext executionContext) {
 
-            List<ValueWrapper> valueWrappers = new ArrayList<ValueWrapper>();
-            List<Object> finalParams;
-            Map<String, Object> finalHash;
-
-            if (isParamValuePlaceholderFound) {
-                // At this point parameters list is never empty
-                int size = parameters.size();
-                switch (size) {
-                case 1:
-                    // Very often there will be only single param
-                    finalParams = Collections
-                            .singletonList(resolveValue(parameters.get(0),
-                                    valueWrappers, executionContext));
-                    break;
-                default:
-                    finalParams = new ArrayList<Object>(size);
-                    for (Object param : parameters) {
-                        finalParams.add(resolveValue(param, valueWrappers,
-                                executionContext));
-                    }
-                    finalParams = Collections.unmodifiableList(finalParams);
-                    break;
-                }
-            } else {
-                finalParams = parameters;
-            }
-
-            if (isHashValuePlaceholderFound) {
-                // At this point hash map is never empty
-                int size = hash.size();
-                switch (size) {
-                case 1:
-                    Entry<String, Object> singleEntry = hash.entrySet()
-                            .iterator().next();
-                    finalHash = Collections.singletonMap(
-                            singleEntry.getKey(),
-                            resolveValue(singleEntry.getValue(), valueWrappers,
-                                    executionContext));
-                    break;
-                default:
-                    finalHash = new HashMap<String, Object>();
-                    for (Entry<String, Object> entry : hash.entrySet()) {
-                        finalHash.put(
-                                entry.getKey(),
-                                resolveValue(entry.getValue(), valueWrappers,
-                                        executionContext));
-                    }
-                    finalHash = Collections.unmodifiableMap(finalHash);
-                    break;
-                }
-            } else {
-                finalHash = hash;
-            }
-
-            return new DefaultOptions(appendable, executionContext, segment,
-                    finalParams, finalHash, valueWrappers, engine);
-        }
-
-        private Object resolveValue(Object value,
-                List<ValueWrapper> valueWrappers,
-                ExecutionContext executionContext) {
-
-            if (value instanceof ValuePlaceholder) {
-                ValueWrapper wrapper = executionContext
-                        .getValue(((ValuePlaceholder) value).getName());
-                valueWrappers.add(wrapper);
-                return wrapper.get();
-            } else {
-                return value;
+            DefaultOptions options = isOptionsReuseEnabled ? OPTIONS_POOL
+                    .get().acquire() : new DefaultOptions(null);
+            try {
+                options.init(appendable, executionContext, segment, engine);
+                // If no placeholder is found the immutable lists/maps are
+                // shared
+                options.parameters = isParamValuePlaceholderFound ? options
+                        .resolveParameters(parameters) : parameters;
+                options.hash = isHashValuePlaceholderFound ? options
+                        .resolveHash(hash) : hash;
+            } catch (RuntimeException e) {
+                // Release the pooled instance and the wrappers resolved so far
+                options.release();
+                throw e;
             }
+            return options;
         }
 
         private boolean initParamValuePlaceholderFound(List<Object> parameters) {
@@ -302,21 +302,46 @@ class HelperExecutionHandler {
         private static final Logger logger = LoggerFactory
                 .getLogger(DefaultOptions.class);
 
-        protected final List<ValueWrapper> valueWrappers;
+        // null if not reused
+        private final OptionsPool pool;
 
-        protected Appendable appendable;
+        // Lazily initialized
+        private List<ValueWrapper> valueWrappers;
 
-        protected int pushed;
+        private Appendable appendable;
 
-        protected ExecutionContext executionContext;
+        private int pushed;
 
-        private final MustacheEngine engine;
+        private ExecutionContext executionContext;
 
-        private final HelperAwareSegment segment;
+        private MustacheEngine engine;
 
-        private final List<Object> parameters;
+        private HelperAwareSegment segment;
 
-        private final Map<String, Object> hash;
+        private List<Object> parameters;
+
+        private Map<String, Object> hash;
+
+        private boolean isReusable;
+
+        // The following buffers are only used if the instance is reused
+
+        private List<Object> parametersBuffer;
+
+        private List<Object> parametersView;
+
+        private Map<String, Object> hashBuffer;
+
+        private Map<String, Object> hashView;
+
+        /**
+         *
+         * @param pool
+         */
+        DefaultOptions(OptionsPool pool) {
+            this.pool = pool;
+            this.isReusable = pool != null;
+        }
 
         /**
          *
@@ -325,24 +350,105 @@ class HelperExecutionHandler {
          * @param segment
          * @param parameters
          * @param hash
-         * @param valueWrappers
          * @param engine
          */
         DefaultOptions(Appendable appendable,
                 ExecutionContext executionContext, HelperAwareSegment segment,
                 List<Object> parameters, Map<String, Object> hash,
-                List<ValueWrapper> valueWrappers, MustacheEngine engine) {
+                MustacheEngine engine) {
+            this(null);
+            init(appendable, executionContext, segment, engine);
+            this.parameters = parameters;
+            this.hash = hash;
+        }
+
+        void init(Appendable appendable, ExecutionContext executionContext,
+                HelperAwareSegment segment, MustacheEngine engine) {
             this.appendable = appendable;
-            this.valueWrappers = valueWrappers;
             this.executionContext = executionContext;
             this.pushed = 0;
-            this.executionContext = executionContext;
             this.segment = segment;
-            this.parameters = parameters;
-            this.hash = hash;
             this.engine = engine;
         }
 
+        List<Object> resolveParameters(List<Object> parameters) {
+            // At this point parameters list is never empty
+            if (pool != null) {
+                if (parametersBuffer == null) {
+                    parametersBuffer = new ArrayList<Object>(parameters.size());
+                    parametersView = Collections
+                            .unmodifiableList(parametersBuffer);
+                }
+                for (Object param : parameters) {
+                    parametersBuffer.add(resolveValue(param));
+                }
+                return parametersView;
+            }
+            int size = parameters.size();
+            switch (size) {
+            case 1:
+                // Very often there will be only single param
+                return Collections.singletonList(resolveValue(parameters
+                        .get(0)));
+            default:
+                List<Object> finalParams = new ArrayList<Object>(size);
+                for (Object param : parameters) {
+                    finalParams.add(resolveValue(param));
+                }
+                return Collections.unmodifiableList(finalParams);
+            }
+        }
+
+        Map<String, Object> resolveHash(Map<String, Object> hash) {
+            // At this point hash map is never empty
+            if (pool != null) {
+                if (hashBuffer == null) {
+                    hashBuffer = new HashMap<String, Object>();
+                    hashView = Collections.unmodifiableMap(hashBuffer);
+                }
+                for (Entry<String, Object> entry : hash.entrySet()) {
+                    hashBuffer.put(entry.getKey(),
+                            resolveValue(entry.getValue()));
+                }
+                return hashView;
+            }
+            int size = hash.size();
+            switch (size) {
+            case 1:
+                Entry<String, Object> singleEntry = hash.entrySet().iterator()
+                        .next();
+                return Collections.singletonMap(singleEntry.getKey(),
+                        resolveValue(singleEntry.getValue()));
+            default:
+                Map<String, Object> finalHash = new HashMap<String, Object>();
+                for (Entry<String, Object> entry : hash.entrySet()) {
+                    finalHash.put(entry.getKey(),
+                            resolveValue(entry.getValue()));
+                }
+                return Collections.unmodifiableMap(finalHash);
+            }
+        }
+
+        private Object resolveValue(Object value) {
+            if (value instanceof ValuePlaceholder) {
+                ValueWrapper wrapper = value instanceof DefaultValuePlaceholder ? executionContext
+                        .getValue(((DefaultValuePlaceholder) value).key)
+                        : executionContext.getValue(((ValuePlaceholder) value)
+                                .getName());
+                addValueWrapper(wrapper);
+                return wrapper.get();
+            } else {
+                return value;
+            }
+        }
+
+        private void addValueWrapper(ValueWrapper wrapper) {
+            if (valueWrappers == null) {
+                valueWrappers = new ArrayList<ValueWrapper>(4);
+            }
+            valueWrappers.add(wrapper);
+        }
+
         @Override
         public List<Object> getParameters() {
             return parameters;
@@ -398,7 +504,14 @@ class HelperExecutionHandler {
         @Override
         public Object getValue(String key) {
             ValueWrapper wrapper = executionContext.getValue(key);
-            valueWrappers.add(wrapper);
+            addValueWrapper(wrapper);
+            return wrapper.get();
+        }
+
+        @Override
+        public Object getValue(ValueKey key) {
+            ValueWrapper wrapper = executionContext.getValue(key);
+            addValueWrapper(wrapper);
             return wrapper.get();
         }
 
@@ -409,9 +522,20 @@ class HelperExecutionHandler {
 
         @Override
         public void executeAsync(final HelperExecutable executable) {
+            // Capture the locale of the current rendering first - LocaleSupport
+            // might not work in a different thread
+            executionContext.getLocale();
+            // This instance must not be reused - the executable might hold a
+            // reference
+            isReusable = false;
             // For async execution we need to wrap the original appendable
             final AsyncAppendable asyncAppendable = new AsyncAppendable(
                     appendable);
+            final ExecutionContext executionContext = this.executionContext;
+            final HelperAwareSegment segment = this.segment;
+            final List<Object> parameters = this.parameters;
+            final Map<String, Object> hash = this.hash;
+            final MustacheEngine engine = this.engine;
 
             // Now submit the executable and get the future
             ExecutorService executor = engine.getConfiguration()
@@ -430,7 +554,7 @@ class HelperExecutionHandler {
                             DefaultOptions asyncOptions = new DefaultOptions(
                                     new AsyncAppendable(asyncAppendable),
                                     executionContext, segment, parameters,
-                                    hash, new ArrayList<ValueWrapper>(), engine);
+                                    hash, engine);
                             executable.execute(asyncOptions);
                             return (AsyncAppendable) asyncOptions
                                     .getAppendable();
@@ -460,6 +584,11 @@ class HelperExecutionHandler {
             return appendable;
         }
 
+        @Override
+        public Locale getLocale() {
+            return executionContext.getLocale();
+        }
+
         @Override
         public void fn(Appendable appendable) {
             segment.fn(appendable, executionContext);
@@ -498,12 +627,14 @@ class HelperExecutionHandler {
         }
 
         void release() {
-            int wrappersSize = valueWrappers.size();
-            if (wrappersSize == 1) {
-                valueWrappers.get(0).release();
-            } else if (wrappersSize > 1) {
-                for (ValueWrapper wrapper : valueWrappers) {
-                    wrapper.release();
+            if (valueWrappers != null) {
+                int wrappersSize = valueWrappers.size();
+                if (wrappersSize == 1) {
+                    valueWrappers.get(0).release();
+                } else if (wrappersSize > 1) {
+                    for (ValueWrapper wrapper : valueWrappers) {
+                        wrapper.release();
+                    }
                 }
             }
             if (pushed > 0) {
@@ -517,6 +648,68 @@ class HelperExecutionHandler {
                                                 segment).next(),
                                 segment.getTagInfo().getTemplateName() });
             }
+            if (pool != null) {
+                if (isReusable) {
+                    // Do not hold the references
+                    if (valueWrappers != null) {
+                        valueWrappers.clear();
+                    }
+                    if (parametersBuffer != null) {
+                        parametersBuffer.clear();
+                    }
+                    if (hashBuffer != null) {
+                        hashBuffer.clear();
+                    }
+                    appendable = null;
+                    executionContext = null;
+                    segment = null;
+                    engine = null;
+                    parameters = null;
+                    hash = null;
+                }
+                pool.release(this);
+            }
+        }
+
+        boolean isReusable() {
+            return isReusable;
+        }
+
+    }
+
+    /**
+     * A thread-confined pool of {@link DefaultOptions} instances. Helper
+     * executions are nested, therefore instances are acquired and released in
+     * LIFO order.
+     */
+    private static final class OptionsPool {
+
+        private static final int MAX_DEPTH = 32;
+
+        private final DefaultOptions[] instances = new DefaultOptions[MAX_DEPTH];
+
+        private int depth = 0;
+
+        DefaultOptions acquire() {
+            if (depth >= MAX_DEPTH) {
+                depth++;
+                return new DefaultOptions(this);
+            }
+            DefaultOptions options = instances[depth];
+            if (options == null) {
+                options = new DefaultOptions(this);
+                instances[depth] = options;
+            }
+            depth++;
+            return options;
+        }
+
+        void release(DefaultOptions options) {
+            depth--;
+            if (depth < MAX_DEPTH && !options.isReusable()) {
+                // Discard the instance
+                instances[depth] = null;
+            }
         }
 
     }
@@ -525,8 +718,12 @@ class HelperExecutionHandler {
 
         private final String name;
 
-        public DefaultValuePlaceholder(String name) {
+        private final ValueKey key;
+
+        public DefaultValuePlaceholder(String name,
+                Configuration configuration, MustacheTagInfo tagInfo) {
             this.name = name;
+            this.key = ValueKey.of(name, configuration, tagInfo);
         }
 
         public String getName() {
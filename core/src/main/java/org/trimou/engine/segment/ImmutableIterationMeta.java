@@ -63,6 +63,42 @@ public final class ImmutableIterationMeta implements Mapper {
         this.value = value;
     }
 
+    /**
+     * Creates the metadata for an iteration over elements whose total number is
+     * not known in advance, e.g. a one-pass stream. {@link #hasNext()} and
+     * {@link #isLast()} work as expected.
+     *
+     * @param alias
+     * @param index
+     * @param hasNext
+     *            <code>true</code> if there are more elements after the current
+     *            one
+     * @return the iteration metadata
+     * @since 1.8
+     */
+    public static ImmutableIterationMeta lookahead(String alias, int index,
+            boolean hasNext) {
+        return lookahead(alias, index, hasNext, null, null);
+    }
+
+    /**
+     *
+     * @param alias
+     * @param index
+     * @param hasNext
+     * @param valueAlias
+     * @param value
+     * @return the iteration metadata
+     * @see #lookahead(String, int, boolean)
+     * @since 1.8
+     */
+    public static ImmutableIterationMeta lookahead(String alias, int index,
+            boolean hasNext, String valueAlias, Object value) {
+        // The size is only used to compute hasNext and isLast
+        return new ImmutableIterationMeta(alias, hasNext ? index + 1 : index,
+                index, valueAlias, value);
+    }
+
     /**
      * The first element is at index <code>1</code>.
      *
@@ -22,6 +22,7 @@ import java.util.List;
 
 import org.trimou.annotations.Internal;
 import org.trimou.engine.context.ExecutionContext;
+import org.trimou.engine.context.ValueKey;
 import org.trimou.engine.context.ValueWrapper;
 
 /**
@@ -39,17 +40,24 @@ import org.trimou.engine.context.ValueWrapper;
 @Internal
 public class InvertedSectionSegment extends AbstractSectionSegment {
 
+    private final ValueKey key;
+
     public InvertedSectionSegment(String text, Origin origin,
             List<Segment> segments) {
         super(text, origin, segments);
+        this.key = createValueKey();
     }
 
     public SegmentType getType() {
         return SegmentType.INVERTED_SECTION;
     }
 
+    ValueKey getKey() {
+        return key;
+    }
+
     public Appendable execute(Appendable appendable, ExecutionContext context) {
-        ValueWrapper value = context.getValue(getText());
+        ValueWrapper value = context.getValue(key);
         try {
             if (value.isNull() || process(value.get())) {
                 return super.execute(appendable, context);
@@ -12,18 +12,23 @@ import org.trimou.util.Strings;
 @Internal
 public class Origin {
 
+    // Primitive fields are used to avoid boxing
+    private static final int NOT_AVAILABLE = -1;
+
     private final Template template;
 
     /**
      * The original line where the segment comes from (we cannot calculate this
-     * because of "remove standalone lines" spec feature)
+     * because of "remove standalone lines" spec feature), or
+     * {@link #NOT_AVAILABLE}
      */
-    private final Integer line;
+    private final int line;
 
     /**
-     * An index within the template (segments are parsed sequentially)
+     * An index within the template (segments are parsed sequentially), or
+     * {@link #NOT_AVAILABLE}
      */
-    private final Integer index;
+    private final int index;
 
     /**
      * An artificial segment.
@@ -32,8 +37,8 @@ public class Origin {
      */
     public Origin(Template template) {
         this.template = template;
-        this.line = null;
-        this.index = null;
+        this.line = NOT_AVAILABLE;
+        this.index = NOT_AVAILABLE;
     }
 
     /**
@@ -53,11 +58,11 @@ public class Origin {
     }
 
     public Integer getLine() {
-        return line;
+        return line != NOT_AVAILABLE ? line : null;
     }
 
     public Integer getIndex() {
-        return index;
+        return index != NOT_AVAILABLE ? index : null;
     }
 
     public String getTemplateName() {
@@ -67,8 +72,8 @@ public class Origin {
     @Override
     public String toString() {
         return String.format("[template: %s, line: %s, idx: %s]", template
-                .getName(), line != null ? line : Strings.NOT_AVAILABLE,
-                index != null ? index : Strings.NOT_AVAILABLE);
+                .getName(), line != NOT_AVAILABLE ? line : Strings.NOT_AVAILABLE,
+                index != NOT_AVAILABLE ? index : Strings.NOT_AVAILABLE);
     }
 
 }
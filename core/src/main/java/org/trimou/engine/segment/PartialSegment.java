@@ -129,4 +129,8 @@ public class PartialSegment extends AbstractSegment {
         return partialLines;
     }
 
+    List<List<Segment>> getCachedPartialLines() {
+        return cachedPartialLines;
+    }
+
 }
@@ -15,9 +15,11 @@
  */
 package org.trimou.engine.segment;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.trimou.annotations.Internal;
+import org.trimou.engine.MustacheTagInfo;
 import org.trimou.engine.context.ExecutionContext;
 
 /**
@@ -48,6 +50,29 @@ public class RootSegment extends AbstractContainerSegment {
                 context.setTemplateInvocation(getTemplate()));
     }
 
+    /**
+     *
+     * @return the estimated number of bytes occupied by the segment tree
+     * @since 1.8
+     */
+    public long getEstimatedFootprint() {
+        return Segments.estimateFootprint(this);
+    }
+
+    /**
+     * A tag is cold if its key could make use of a resolver hint but no hint
+     * has been installed yet, i.e. the key was not resolved by a hint-capable
+     * resolver so far. Helpers and partial templates are not inspected.
+     *
+     * @return the info of all cold tags
+     * @since 1.8
+     */
+    public List<MustacheTagInfo> getColdTags() {
+        List<MustacheTagInfo> coldTags = new ArrayList<MustacheTagInfo>();
+        Segments.collectColdTags(this, coldTags);
+        return coldTags;
+    }
+
     public static void flushAsyncAppendable(Appendable appendable) {
         AsyncAppendable.flushIfNeeded(appendable);
     }
@@ -16,6 +16,7 @@
 package org.trimou.engine.segment;
 
 import java.lang.reflect.Array;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
@@ -23,13 +24,12 @@ import org.trimou.annotations.Internal;
 import org.trimou.engine.MustacheTagType;
 import org.trimou.engine.config.EngineConfigurationKey;
 import org.trimou.engine.context.ExecutionContext;
+import org.trimou.engine.context.ValueKey;
 import org.trimou.engine.context.ValueWrapper;
 import org.trimou.engine.parser.Template;
 import org.trimou.handlebars.HelperValidator;
 import org.trimou.lambda.Lambda;
 
-import com.google.common.collect.Iterables;
-
 /**
  * Section segment.
  *
@@ -49,7 +49,8 @@ import com.google.common.collect.Iterables;
  * </p>
  * <ul>
  * <li>non-empty {@link Iterable} or array, the content is rendered for each
- * element,</li>
+ * element (an {@link Iterable} which is not a {@link Collection} is only
+ * iterated once),</li>
  * <li>a {@link Boolean} of value <code>true</code>, the content is rendered
  * once,</li>
  * <li>an instance of {@link Lambda}, the content is processed according to the
@@ -67,26 +68,46 @@ public class SectionSegment extends AbstractSectionSegment implements
 
     private final String iterationMetaAlias;
 
+    // If false the iteration metadata are not pushed on the context stack
+    private final boolean iterationMetaUsed;
+
     private final HelperExecutionHandler helperHandler;
 
+    // null if the segment represents a helper
+    private final ValueKey key;
+
     public SectionSegment(String text, Origin origin, List<Segment> segments) {
         super(text, origin, segments);
         this.helperHandler = isHandlebarsSupportEnabled() ? HelperExecutionHandler
                 .from(text, getEngine(), this) : null;
+        this.key = helperHandler == null ? createValueKey() : null;
         this.iterationMetaAlias = getEngineConfiguration()
                 .getStringPropertyValue(
                         EngineConfigurationKey.ITERATION_METADATA_ALIAS);
+        this.iterationMetaUsed = helperHandler != null
+                || !getEngineConfiguration().getBooleanPropertyValue(
+                        EngineConfigurationKey.SKIP_UNUSED_ITERATION_METADATA)
+                || Segments.isIterationMetaUsed(segments, iterationMetaAlias,
+                        getEngineConfiguration().getHelpers());
     }
 
     public SegmentType getType() {
         return SegmentType.SECTION;
     }
 
+    HelperExecutionHandler getHelperHandler() {
+        return helperHandler;
+    }
+
+    ValueKey getKey() {
+        return key;
+    }
+
     public Appendable execute(Appendable appendable, ExecutionContext context) {
         if (helperHandler != null) {
             return helperHandler.execute(appendable, context);
         } else {
-            ValueWrapper value = context.getValue(getText());
+            ValueWrapper value = context.getValue(key);
             try {
                 if (value.isNull()) {
                     return appendable;
@@ -145,17 +166,33 @@ public class SectionSegment extends AbstractSectionSegment implements
     @SuppressWarnings("rawtypes")
     private void processIterable(Appendable appendable,
             ExecutionContext context, Object value) {
-        Iterable<?> iterable = (Iterable<?>) value;
-        int size = Iterables.size(iterable);
-        if (size < 1) {
+        Iterator iterator = ((Iterable<?>) value).iterator();
+        if (!iterator.hasNext()) {
             return;
         }
-        Iterator iterator = iterable.iterator();
-        int i = 1;
-        while (iterator.hasNext()) {
-            processIteration(appendable,
-                    context.setContextObject(new ImmutableIterationMeta(
-                            iterationMetaAlias, size, i++)), iterator.next());
+        if (!iterationMetaUsed) {
+            while (iterator.hasNext()) {
+                processIteration(appendable, context, iterator.next());
+            }
+        } else if (value instanceof Collection) {
+            int size = ((Collection<?>) value).size();
+            int i = 1;
+            while (iterator.hasNext()) {
+                processIteration(appendable,
+                        context.setContextObject(new ImmutableIterationMeta(
+                                iterationMetaAlias, size, i++)), iterator
+                                .next());
+            }
+        } else {
+            // The size is not known - iterate just once, e.g. for streams
+            int i = 1;
+            while (iterator.hasNext()) {
+                Object next = iterator.next();
+                processIteration(appendable, context
+                        .setContextObject(ImmutableIterationMeta.lookahead(
+                                iterationMetaAlias, i++, iterator.hasNext())),
+                        next);
+            }
         }
     }
 
@@ -165,6 +202,12 @@ public class SectionSegment extends AbstractSectionSegment implements
         if (length < 1) {
             return;
         }
+        if (!iterationMetaUsed) {
+            for (int i = 0; i < length; i++) {
+                processIteration(appendable, context, Array.get(array, i));
+            }
+            return;
+        }
         for (int i = 0; i < length; i++) {
             processIteration(appendable,
                     context.setContextObject(new ImmutableIterationMeta(
@@ -190,7 +233,11 @@ public class SectionSegment extends AbstractSectionSegment implements
             input = getContentLiteralBlock();
             break;
         case PROCESSED:
-            StringBuilder processed = new StringBuilder();
+            // The content literal (if cached) is a good hint for the output
+            // length
+            String literal = getCachedContentLiteralBlock();
+            StringBuilder processed = literal != null ? new StringBuilder(
+                    literal.length()) : new StringBuilder();
             super.execute(processed, context);
             input = processed.toString();
             break;
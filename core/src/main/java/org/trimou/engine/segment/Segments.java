@@ -22,12 +22,22 @@ import static org.trimou.util.Strings.LINE_SEPARATOR;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.lang3.StringUtils;
 import org.trimou.engine.MustacheEngine;
+import org.trimou.engine.MustacheTagInfo;
 import org.trimou.engine.config.Configuration;
+import org.trimou.engine.context.ValueKey;
+import org.trimou.engine.listener.MustacheListener;
+import org.trimou.engine.listener.SegmentProfiler;
 import org.trimou.engine.parser.Template;
+import org.trimou.handlebars.EvalHelper;
+import org.trimou.handlebars.Helper;
+
+import com.google.common.collect.Sets;
 
 /**
  * {@link Segment} utils.
@@ -36,6 +46,30 @@ import org.trimou.engine.parser.Template;
  */
 final class Segments {
 
+    // The following sizes are rough estimates for a 64-bit JVM with
+    // compressed references
+
+    static final long OBJECT_SHALLOW_SIZE = 16;
+
+    // A segment together with its origin (the tag info is created lazily)
+    static final long SEGMENT_SHALLOW_SIZE = 64;
+
+    // A helper handler together with its options builder
+    static final long HANDLER_SHALLOW_SIZE = 64;
+
+    static final long PLACEHOLDER_SHALLOW_SIZE = 24;
+
+    static final long MAP_ENTRY_SHALLOW_SIZE = 32;
+
+    // A value key together with its parts array
+    static final long KEY_SHALLOW_SIZE = 48;
+
+    static final long LIST_SHALLOW_SIZE = 40;
+
+    static final long STRING_SHALLOW_SIZE = 40;
+
+    static final long REFERENCE_SIZE = 4;
+
     private Segments() {
     }
 
@@ -185,4 +219,206 @@ final class Segments {
         return tree.toString();
     }
 
+    /**
+     * The check is conservative - any tag which contains the alias or a legacy
+     * iteration key (e.g. <code>iterIndex</code>), any partial or extend tag
+     * and any {@link EvalHelper} (the key is built dynamically) is considered
+     * a possible reference.
+     *
+     * @param segments
+     * @param alias
+     * @param helpers
+     * @return <code>true</code> if the iteration metadata might be referenced
+     *         from the given segments, <code>false</code> otherwise
+     */
+    static boolean isIterationMetaUsed(List<Segment> segments, String alias,
+            Map<String, Helper> helpers) {
+        for (Segment segment : segments) {
+            switch (segment.getType()) {
+            case PARTIAL:
+            case EXTEND:
+            case EXTEND_SECTION:
+                return true;
+            case VALUE:
+            case SECTION:
+            case INVERTED_SECTION:
+                String text = segment.getText();
+                if (text.contains(alias) || text.contains(IterationMeta.KEY_INDEX)
+                        || text.contains(IterationMeta.KEY_HAS_NEXT)
+                        || text.contains(IterationMeta.KEY_FIRST)
+                        || text.contains(IterationMeta.KEY_LAST)) {
+                    return true;
+                }
+                if (helpers != null
+                        && helpers.get(getFirstPart(text)) instanceof EvalHelper) {
+                    return true;
+                }
+                break;
+            default:
+                break;
+            }
+            if (segment instanceof AbstractContainerSegment
+                    && isIterationMetaUsed(
+                            ((AbstractContainerSegment) segment).getSegments(),
+                            alias, helpers)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getFirstPart(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                return text.substring(0, i);
+            }
+        }
+        return text;
+    }
+
+    /**
+     *
+     * @param configuration
+     * @return the first registered {@link SegmentProfiler} or
+     *         <code>null</code> if no profiler is registered
+     */
+    static SegmentProfiler getProfiler(Configuration configuration) {
+        if (configuration.getMustacheListeners() != null) {
+            for (MustacheListener listener : configuration
+                    .getMustacheListeners()) {
+                if (listener instanceof SegmentProfiler) {
+                    return (SegmentProfiler) listener;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     *
+     * @param segment
+     * @return <code>true</code> if the execution of the given segment should be
+     *         measured by the {@link SegmentProfiler}
+     */
+    static boolean isProfiled(Segment segment) {
+        switch (segment.getType()) {
+        case SECTION:
+        case INVERTED_SECTION:
+        case PARTIAL:
+        case EXTEND:
+        case EXTEND_SECTION:
+            return true;
+        case VALUE:
+            return ((ValueSegment) segment).isHelper();
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * The estimate covers the segment tree, texts, keys, helper handlers,
+     * cached literal blocks and cached partial lines. Shared segments (e.g.
+     * reused line separators) are only counted once. Partial and extended
+     * templates are not included.
+     *
+     * @param segment
+     * @return the estimated number of bytes occupied by the given segment
+     */
+    static long estimateFootprint(Segment segment) {
+        return estimateFootprint(segment, Sets.<Segment> newIdentityHashSet());
+    }
+
+    static long estimateFootprint(String value) {
+        return value != null ? STRING_SHALLOW_SIZE + 2 * value.length() : 0;
+    }
+
+    static long estimateKeyFootprint(String key) {
+        // The key string and its parts
+        return KEY_SHALLOW_SIZE + 2 * estimateFootprint(key);
+    }
+
+    static long estimateListFootprint(int size) {
+        return LIST_SHALLOW_SIZE + REFERENCE_SIZE * size;
+    }
+
+    private static long estimateFootprint(Segment segment, Set<Segment> visited) {
+        if (!visited.add(segment)) {
+            return 0;
+        }
+        long footprint = SEGMENT_SHALLOW_SIZE
+                + estimateFootprint(segment.getText());
+        switch (segment.getType()) {
+        case VALUE:
+            HelperExecutionHandler valueHandler = ((ValueSegment) segment)
+                    .getHelperHandler();
+            footprint += valueHandler != null ? valueHandler
+                    .getEstimatedFootprint() : estimateKeyFootprint(segment
+                    .getText());
+            break;
+        case SECTION:
+            HelperExecutionHandler sectionHandler = ((SectionSegment) segment)
+                    .getHelperHandler();
+            footprint += sectionHandler != null ? sectionHandler
+                    .getEstimatedFootprint() : estimateKeyFootprint(segment
+                    .getText());
+            break;
+        case INVERTED_SECTION:
+            footprint += estimateKeyFootprint(segment.getText());
+            break;
+        case PARTIAL:
+            List<List<Segment>> lines = ((PartialSegment) segment)
+                    .getCachedPartialLines();
+            if (lines != null) {
+                // The segments are held by the partial template
+                footprint += estimateListFootprint(lines.size());
+                for (List<Segment> line : lines) {
+                    footprint += estimateListFootprint(line.size());
+                }
+            }
+            break;
+        default:
+            break;
+        }
+        if (segment instanceof AbstractSectionSegment) {
+            footprint += estimateFootprint(((AbstractSectionSegment) segment)
+                    .getCachedContentLiteralBlock());
+        }
+        if (segment instanceof AbstractContainerSegment) {
+            List<Segment> segments = ((AbstractContainerSegment) segment)
+                    .getSegments();
+            footprint += estimateListFootprint(segments.size());
+            for (Segment child : segments) {
+                footprint += estimateFootprint(child, visited);
+            }
+        }
+        return footprint;
+    }
+
+    static void collectColdTags(Segment segment,
+            List<MustacheTagInfo> coldTags) {
+        ValueKey key = null;
+        switch (segment.getType()) {
+        case VALUE:
+            key = ((ValueSegment) segment).getKey();
+            break;
+        case SECTION:
+            key = ((SectionSegment) segment).getKey();
+            break;
+        case INVERTED_SECTION:
+            key = ((InvertedSectionSegment) segment).getKey();
+            break;
+        default:
+            break;
+        }
+        if (key != null && key.isHintMissing()) {
+            coldTags.add(segment.getTagInfo());
+        }
+        if (segment instanceof AbstractContainerSegment) {
+            for (Segment child : ((AbstractContainerSegment) segment)
+                    .getSegments()) {
+                collectColdTags(child, coldTags);
+            }
+        }
+    }
+
 }
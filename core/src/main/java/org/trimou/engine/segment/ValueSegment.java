@@ -15,17 +15,13 @@
  */
 package org.trimou.engine.segment;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.concurrent.atomic.AtomicReference;
-
 import org.trimou.annotations.Internal;
 import org.trimou.engine.MustacheTagType;
 import org.trimou.engine.config.EngineConfigurationKey;
 import org.trimou.engine.context.ExecutionContext;
+import org.trimou.engine.context.ValueKey;
 import org.trimou.engine.context.ValueWrapper;
 import org.trimou.engine.parser.Template;
-import org.trimou.engine.resolver.EnhancedResolver.Hint;
 import org.trimou.engine.text.TextSupport;
 import org.trimou.lambda.Lambda;
 import org.trimou.util.Strings;
@@ -44,15 +40,12 @@ public class ValueSegment extends AbstractSegment implements HelperAwareSegment
 
     private final TextSupport textSupport;
 
-    private final String[] keyParts;
-
     /**
-     * The hint is currently only used to skip the resolver chain for a simple
-     * value reference - a key with single part, i.e. {{this}}
+     * The pre-split key, holds the resolver hint if enabled
      *
      * @see EngineConfigurationKey#RESOLVER_HINTS_ENABLED
      */
-    private final AtomicReference<Hint> hint;
+    private final ValueKey key;
 
     /**
      *
@@ -67,22 +60,10 @@ public class ValueSegment extends AbstractSegment implements HelperAwareSegment
                 .from(text, getEngine(), this) : null;
         if (helperHandler == null) {
             this.textSupport = getEngineConfiguration().getTextSupport();
-            ArrayList<String> parts = new ArrayList<String>();
-            for (Iterator<String> iterator = getEngineConfiguration()
-                    .getKeySplitter().split(text); iterator.hasNext();) {
-                parts.add(iterator.next());
-            }
-            this.keyParts = parts.toArray(new String[parts.size()]);
-            if (getEngineConfiguration().getBooleanPropertyValue(
-                    EngineConfigurationKey.RESOLVER_HINTS_ENABLED)) {
-                this.hint = new AtomicReference<Hint>();
-            } else {
-                this.hint = null;
-            }
+            this.key = createValueKey();
         } else {
             this.textSupport = null;
-            this.keyParts = null;
-            this.hint = null;
+            this.key = null;
         }
     }
 
@@ -94,11 +75,23 @@ public class ValueSegment extends AbstractSegment implements HelperAwareSegment
         return unescape;
     }
 
+    boolean isHelper() {
+        return helperHandler != null;
+    }
+
+    ValueKey getKey() {
+        return key;
+    }
+
+    HelperExecutionHandler getHelperHandler() {
+        return helperHandler;
+    }
+
     public Appendable execute(Appendable appendable, ExecutionContext context) {
         if (helperHandler != null) {
             return helperHandler.execute(appendable, context);
         } else {
-            ValueWrapper value = context.getValue(getText(), keyParts, hint);
+            ValueWrapper value = context.getValue(key);
             try {
                 if (value.isNull()) {
                     Object replacement = getEngineConfiguration()
@@ -107,9 +100,6 @@ public class ValueSegment extends AbstractSegment implements HelperAwareSegment
                         processValue(appendable, context, replacement);
                     }
                 } else {
-                    if (hint != null && value.getHint() != null) {
-                        hint.compareAndSet(null, value.getHint());
-                    }
                     processValue(appendable, context, value.get());
                 }
             } finally {
@@ -167,7 +157,8 @@ public class ValueSegment extends AbstractSegment implements HelperAwareSegment
         } else if (!returnValue.equals(Strings.EMPTY)) {
             if (lambda.isReturnValueInterpolated()) {
                 // Parse and interpolate the return value
-                StringBuilder interpolated = new StringBuilder();
+                StringBuilder interpolated = new StringBuilder(
+                        returnValue.length() + 16);
                 Template temp = (Template) getEngine().compileMustache(
                         Lambdas.constructLambdaOneoffTemplateName(this),
                         returnValue);
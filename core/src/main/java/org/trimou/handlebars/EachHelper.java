@@ -19,6 +19,7 @@ import static org.trimou.handlebars.OptionsHashKeys.APPLY;
 import static org.trimou.handlebars.OptionsHashKeys.AS;
 
 import java.lang.reflect.Array;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.Set;
 
@@ -29,7 +30,6 @@ import org.trimou.exception.MustacheProblem;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
 
 /**
  * <code>
@@ -108,15 +108,29 @@ public class EachHelper extends BasicSectionHelper {
 
     @SuppressWarnings("rawtypes")
     private void processIterable(Iterable iterable, Options options) {
-        int size = Iterables.size(iterable);
-        if (size < 1) {
+        final Iterator iterator = iterable.iterator();
+        if (!iterator.hasNext()) {
             return;
         }
-        final Iterator iterator = iterable.iterator();
-        int i = 1;
-        while (iterator.hasNext()) {
-            nextElement(options, iterator.next(), size, i++,
-                    initFunction(options), initValueAlias(options));
+        Function function = initFunction(options);
+        String valueAlias = initValueAlias(options);
+        if (iterable instanceof Collection) {
+            int size = ((Collection) iterable).size();
+            int i = 1;
+            while (iterator.hasNext()) {
+                nextElement(options, iterator.next(), size, i++, function,
+                        valueAlias);
+            }
+        } else {
+            // The size is not known - iterate just once, e.g. for streams
+            int i = 1;
+            while (iterator.hasNext()) {
+                Object next = iterator.next();
+                int index = i++;
+                // The size is only used to compute hasNext and isLast
+                nextElement(options, next, iterator.hasNext() ? index + 1
+                        : index, index, function, valueAlias);
+            }
         }
     }
 
@@ -15,9 +15,15 @@
  */
 package org.trimou.handlebars;
 
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
+import org.trimou.engine.cache.ComputingCache;
+import org.trimou.engine.config.ConfigurationKey;
+import org.trimou.engine.config.SimpleConfigurationKey;
+import org.trimou.engine.context.ValueKey;
 import org.trimou.engine.interpolation.BracketDotKeySplitter;
 import org.trimou.engine.interpolation.DotKeySplitter;
 import org.trimou.engine.interpolation.KeySplitter;
@@ -66,14 +72,34 @@ import com.google.common.base.Optional;
  * {{/with}}
  * </pre>
  *
+ * <p>
+ * The built keys are cached so that the repeated evaluation of the same key
+ * does not need to split the key again and may reuse the resolver hint.
+ * </p>
+ *
  * @author Martin Kouba
  * @see Notation
  * @see KeySplitter
  */
 public class EvalHelper extends BasicHelper {
 
+    public static final String COMPUTING_CACHE_CONSUMER_ID = EvalHelper.class
+            .getName();
+
+    /**
+     * Limit the size of the key cache. Zero or negative value means the cache
+     * is disabled.
+     *
+     * @since 1.8
+     */
+    public static final ConfigurationKey KEY_CACHE_MAX_SIZE_KEY = new SimpleConfigurationKey(
+            EvalHelper.class.getName() + ".keyCacheMaxSize", 500l);
+
     private final Notation notation;
 
+    // null if disabled
+    private ComputingCache<String, ValueKey> keyCache;
+
     public EvalHelper() {
         this(new DotNotation());
     }
@@ -83,13 +109,27 @@ public class EvalHelper extends BasicHelper {
     }
 
     @Override
-    public void execute(Options options) {
-        StringBuilder key = new StringBuilder();
-        Iterator<Object> iterator = options.getParameters().iterator();
-        while (iterator.hasNext()) {
-            notation.append(key, iterator.next().toString());
+    protected void init() {
+        super.init();
+        long keyCacheMaxSize = configuration
+                .getLongPropertyValue(KEY_CACHE_MAX_SIZE_KEY);
+        if (keyCacheMaxSize > 0) {
+            keyCache = configuration.getComputingCacheFactory().create(
+                    COMPUTING_CACHE_CONSUMER_ID,
+                    new ComputingCache.Function<String, ValueKey>() {
+                        @Override
+                        public ValueKey compute(String key) {
+                            return ValueKey.of(key, configuration);
+                        }
+                    }, null, keyCacheMaxSize, null);
         }
-        Object value = options.getValue(key.toString());
+    }
+
+    @Override
+    public void execute(Options options) {
+        String key = buildKey(options.getParameters());
+        Object value = keyCache != null ? options.getValue(keyCache.get(key))
+                : options.getValue(key);
         if (isSection(options)) {
             if (value != null) {
                 options.push(value);
@@ -112,6 +152,20 @@ public class EvalHelper extends BasicHelper {
         return NO_SUPPORTED_HASH_KEYS;
     }
 
+    @Override
+    public Set<ConfigurationKey> getConfigurationKeys() {
+        return Collections.<ConfigurationKey> singleton(KEY_CACHE_MAX_SIZE_KEY);
+    }
+
+    private String buildKey(List<Object> params) {
+        StringBuilder key = new StringBuilder();
+        Iterator<Object> iterator = params.iterator();
+        while (iterator.hasNext()) {
+            notation.append(key, iterator.next().toString());
+        }
+        return key.toString();
+    }
+
     public interface Notation {
 
         /**
@@ -15,6 +15,8 @@
  */
 package org.trimou.handlebars;
 
+import java.util.Set;
+
 import org.trimou.engine.MustacheTagInfo;
 import org.trimou.exception.MustacheException;
 import org.trimou.exception.MustacheProblem;
@@ -34,10 +36,22 @@ public class Flow implements Nested<Object> {
 
     private final Object parent;
 
+    // Tags with a literal value whose match was resolved in advance
+    private final Set<MustacheTagInfo> dispatchedTags;
+
+    private final MustacheTagInfo matchingTag;
+
     Flow(Object parent) {
+        this(parent, null, null);
+    }
+
+    Flow(Object parent, Set<MustacheTagInfo> dispatchedTags,
+            MustacheTagInfo matchingTag) {
         this.isTerminated = false;
         this.isFallThrough = false;
         this.parent = parent;
+        this.dispatchedTags = dispatchedTags;
+        this.matchingTag = matchingTag;
     }
 
     boolean isTerminated() {
@@ -56,6 +70,13 @@ public class Flow implements Nested<Object> {
         isTerminated = true;
     }
 
+    boolean matches(MustacheTagInfo tag, Object value) {
+        if (dispatchedTags != null && dispatchedTags.contains(tag)) {
+            return tag == matchingTag;
+        }
+        return parent.equals(value);
+    }
+
     public Object up() {
         return parent;
     }
@@ -21,15 +21,21 @@ import static org.trimou.handlebars.OptionsHashKeys.OUTPUT;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
+import org.trimou.engine.MustacheTagInfo;
 import org.trimou.exception.MustacheException;
 import org.trimou.exception.MustacheProblem;
 import org.trimou.handlebars.HelperDefinition.ValuePlaceholder;
 
+import com.google.common.collect.MapMaker;
+
 /**
- * A simple numeric expression helper. During evaluation all the params are
- * converted to {@link BigDecimal}s.
+ * A simple numeric expression helper. Integral params ({@link Integer} and
+ * {@link Long}) and {@link Double}s are compared directly, all the other
+ * params are converted to {@link BigDecimal}s.
  *
  * <pre>
  * {{numExpr val op="neg" out='It is a negative number!'}}
@@ -47,25 +53,51 @@ import org.trimou.handlebars.HelperDefinition.ValuePlaceholder;
  * {{/numExpr}}
  * </pre>
  *
+ * <p>
+ * A static operator and literal params are processed during validation.
+ * </p>
+ *
  * @author Martin Kouba
  */
 public class NumericExpressionHelper extends BasicHelper {
 
+    private static final Long ZERO = Long.valueOf(0);
+
+    private static final BigDecimal LONG_MIN = BigDecimal
+            .valueOf(Long.MIN_VALUE);
+
+    private static final BigDecimal LONG_MAX = BigDecimal
+            .valueOf(Long.MAX_VALUE);
+
+    private static final Expression DYNAMIC = new Expression(null,
+            new Object[0]);
+
+    // The tag info is held by the segment
+    private final ConcurrentMap<MustacheTagInfo, Expression> expressions = new MapMaker()
+            .weakKeys().makeMap();
+
     @Override
     public void execute(Options options) {
 
-        Operator operator = initOperator(options);
+        Expression expression = expressions.get(options.getTagInfo());
+        if (expression == null) {
+            expression = DYNAMIC;
+        }
+        Operator operator = expression.operator;
 
-        if (operator.getMinParams() > options.getParameters().size()) {
-            throw new MustacheException(
-                    MustacheProblem.RENDER_HELPER_INVALID_OPTIONS,
-                    "More parameters required [helper: %s, template: %s, line: %s]",
-                    NumericExpressionHelper.class.getName(), options
-                            .getTagInfo().getTemplateName(), options
-                            .getTagInfo().getLine());
+        if (operator == null) {
+            operator = initOperator(options);
+            if (operator.getMinParams() > options.getParameters().size()) {
+                throw new MustacheException(
+                        MustacheProblem.RENDER_HELPER_INVALID_OPTIONS,
+                        "More parameters required [helper: %s, template: %s, line: %s]",
+                        NumericExpressionHelper.class.getName(), options
+                                .getTagInfo().getTemplateName(), options
+                                .getTagInfo().getLine());
+            }
         }
 
-        boolean result = operator.evaluate(options);
+        boolean result = operator.evaluate(expression, options);
 
         if (result) {
             if (isSection(options)) {
@@ -101,6 +133,13 @@ public class NumericExpressionHelper extends BasicHelper {
                             .getTemplateName(), definition.getTagInfo()
                             .getLine());
         }
+        List<Object> params = definition.getParameters();
+        Object[] literals = new Object[params.size()];
+        for (int i = 0; i < literals.length; i++) {
+            literals[i] = toLiteralOperand(params.get(i));
+        }
+        expressions.put(definition.getTagInfo(), new Expression(operator,
+                literals));
     }
 
     private Operator initOperator(Options options) {
@@ -111,30 +150,187 @@ public class NumericExpressionHelper extends BasicHelper {
         return Operator.EQ;
     }
 
-    private static BigDecimal getDecimal(int index, Options options) {
-        BigDecimal decimal;
-        Object value = options.getParameters().get(index);
-        if (value instanceof BigDecimal) {
-            decimal = (BigDecimal) value;
+    /**
+     *
+     * @param value
+     * @return the operand for the given literal value or <code>null</code> if
+     *         the value is not a literal or cannot be converted
+     */
+    private static Object toLiteralOperand(Object value) {
+        if (value instanceof ValuePlaceholder) {
+            return null;
+        }
+        if (value instanceof String) {
+            BigDecimal decimal;
+            try {
+                decimal = new BigDecimal(value.toString());
+            } catch (NumberFormatException e) {
+                // The conversion will fail during evaluation
+                return null;
+            }
+            return narrow(decimal);
+        }
+        return toOperand(value);
+    }
+
+    /**
+     *
+     * @param value
+     * @return the operand, i.e. an {@link Integer}, a {@link Long}, a
+     *         {@link Double} or a {@link BigDecimal}, or <code>null</code> if
+     *         the value is not valid
+     */
+    private static Object toOperand(Object value) {
+        if (value instanceof Long || value instanceof Integer
+                || value instanceof Double || value instanceof BigDecimal) {
+            return value;
         } else if (value instanceof BigInteger) {
-            decimal = new BigDecimal((BigInteger) value);
-        } else if (value instanceof Long) {
-            decimal = new BigDecimal((Long) value);
-        } else if (value instanceof Integer) {
-            decimal = new BigDecimal((Integer) value);
-        } else if (value instanceof Double) {
-            decimal = new BigDecimal((Double) value);
+            return new BigDecimal((BigInteger) value);
         } else if (value instanceof String) {
-            decimal = new BigDecimal(value.toString());
-        } else {
-            throw new MustacheException(
-                    MustacheProblem.RENDER_HELPER_INVALID_OPTIONS,
-                    "Parameter is not valid [param: %s, helper: %s, template: %s, line: %s]",
-                    value, NumericExpressionHelper.class.getName(), options
-                            .getTagInfo().getTemplateName(), options
-                            .getTagInfo().getLine());
+            return new BigDecimal(value.toString());
         }
-        return decimal;
+        return null;
+    }
+
+    /**
+     *
+     * @param decimal
+     * @return a {@link Long} if the decimal value is integral and fits, the
+     *         stripped decimal otherwise
+     */
+    private static Object narrow(BigDecimal decimal) {
+        if (decimal.signum() == 0) {
+            return ZERO;
+        }
+        BigDecimal stripped = decimal.stripTrailingZeros();
+        if (stripped.scale() <= 0 && stripped.compareTo(LONG_MIN) >= 0
+                && stripped.compareTo(LONG_MAX) <= 0) {
+            return Long.valueOf(stripped.longValue());
+        }
+        return stripped;
+    }
+
+    private static boolean isIntegral(Object operand) {
+        return operand instanceof Long || operand instanceof Integer;
+    }
+
+    private static BigDecimal toDecimal(Object operand) {
+        if (operand instanceof BigDecimal) {
+            return (BigDecimal) operand;
+        } else if (operand instanceof Double) {
+            return new BigDecimal((Double) operand);
+        }
+        return BigDecimal.valueOf(((Number) operand).longValue());
+    }
+
+    private static int compare(Object operand1, Object operand2) {
+        if (isIntegral(operand1) && isIntegral(operand2)) {
+            long val1 = ((Number) operand1).longValue();
+            long val2 = ((Number) operand2).longValue();
+            return val1 < val2 ? -1 : (val1 == val2 ? 0 : 1);
+        }
+        if (operand1 instanceof Double && operand2 instanceof Double) {
+            double val1 = (Double) operand1;
+            double val2 = (Double) operand2;
+            if (val1 < val2) {
+                return -1;
+            } else if (val1 > val2) {
+                return 1;
+            } else if (val1 == val2) {
+                return 0;
+            }
+            // NaN - BigDecimal conversion fails
+        }
+        return toDecimal(operand1).compareTo(toDecimal(operand2));
+    }
+
+    /**
+     * Operator and operands processed during validation.
+     */
+    static final class Expression {
+
+        /**
+         * <code>null</code> if set dynamically
+         */
+        private final Operator operator;
+
+        /**
+         * <code>null</code> elements represent non-literal params
+         */
+        private final Object[] literals;
+
+        /**
+         * Integral and non-integral values to match if all the
+         * {@link Operator#IN} params are literals, <code>null</code> otherwise
+         */
+        private final Set<Long> inLongs;
+
+        private final Set<BigDecimal> inDecimals;
+
+        Expression(Operator operator, Object[] literals) {
+            this.operator = operator;
+            this.literals = literals;
+            if (literals.length > 1
+                    && (operator == null || operator == Operator.IN)) {
+                Set<Long> longs = new HashSet<Long>();
+                Set<BigDecimal> decimals = new HashSet<BigDecimal>();
+                for (int i = 1; i < literals.length; i++) {
+                    if (literals[i] == null) {
+                        longs = null;
+                        decimals = null;
+                        break;
+                    }
+                    Object value = narrow(toDecimal(literals[i]));
+                    if (value instanceof Long) {
+                        longs.add((Long) value);
+                    } else {
+                        decimals.add((BigDecimal) value);
+                    }
+                }
+                this.inLongs = longs;
+                this.inDecimals = decimals;
+            } else {
+                this.inLongs = null;
+                this.inDecimals = null;
+            }
+        }
+
+        Object getOperand(int index, Options options) {
+            Object operand = index < literals.length ? literals[index] : null;
+            if (operand != null) {
+                return operand;
+            }
+            Object value = options.getParameters().get(index);
+            operand = toOperand(value);
+            if (operand == null) {
+                throw new MustacheException(
+                        MustacheProblem.RENDER_HELPER_INVALID_OPTIONS,
+                        "Parameter is not valid [param: %s, helper: %s, template: %s, line: %s]",
+                        value, NumericExpressionHelper.class.getName(),
+                        options.getTagInfo().getTemplateName(), options
+                                .getTagInfo().getLine());
+            }
+            return operand;
+        }
+
+        boolean isIn(Options options) {
+            Object val = getOperand(0, options);
+            if (inLongs != null) {
+                if (isIntegral(val)) {
+                    return inLongs.contains(((Number) val).longValue());
+                }
+                Object narrowed = narrow(toDecimal(val));
+                return narrowed instanceof Long ? inLongs.contains(narrowed)
+                        : inDecimals.contains(narrowed);
+            }
+            for (int i = 1; i < options.getParameters().size(); i++) {
+                if (compare(val, getOperand(i, options)) == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
     }
 
     /**
@@ -143,80 +339,58 @@ public class NumericExpressionHelper extends BasicHelper {
      */
     static enum Operator {
 
-        EQ(new Evaluator() {
+        EQ(new ComparisonEvaluator() {
             @Override
-            public boolean evaluate(Options options) {
-                BigDecimal val1 = getDecimal(0, options);
-                BigDecimal val2 = getDecimal(1, options);
-                return val1.compareTo(val2) == 0;
+            boolean test(int result) {
+                return result == 0;
             }
         }),
-        NEQ(new Evaluator() {
+        NEQ(new ComparisonEvaluator() {
             @Override
-            public boolean evaluate(Options options) {
-                BigDecimal val1 = getDecimal(0, options);
-                BigDecimal val2 = getDecimal(1, options);
-                return val1.compareTo(val2) != 0;
+            boolean test(int result) {
+                return result != 0;
             }
         }),
-        GT(new Evaluator() {
+        GT(new ComparisonEvaluator() {
             @Override
-            public boolean evaluate(Options options) {
-                BigDecimal val1 = getDecimal(0, options);
-                BigDecimal val2 = getDecimal(1, options);
-                return val1.compareTo(val2) > 0;
+            boolean test(int result) {
+                return result > 0;
             }
         }),
-        GE(new Evaluator() {
+        GE(new ComparisonEvaluator() {
             @Override
-            public boolean evaluate(Options options) {
-                BigDecimal val1 = getDecimal(0, options);
-                BigDecimal val2 = getDecimal(1, options);
-                return val1.compareTo(val2) >= 0;
+            boolean test(int result) {
+                return result >= 0;
             }
         }),
-        LT(new Evaluator() {
+        LT(new ComparisonEvaluator() {
             @Override
-            public boolean evaluate(Options options) {
-                BigDecimal val1 = getDecimal(0, options);
-                BigDecimal val2 = getDecimal(1, options);
-                return val1.compareTo(val2) < 0;
+            boolean test(int result) {
+                return result < 0;
             }
         }),
-        LE(new Evaluator() {
+        LE(new ComparisonEvaluator() {
             @Override
-            public boolean evaluate(Options options) {
-                BigDecimal val1 = getDecimal(0, options);
-                BigDecimal val2 = getDecimal(1, options);
-                return val1.compareTo(val2) <= 0;
+            boolean test(int result) {
+                return result <= 0;
             }
         }),
         NEG(1, new Evaluator() {
             @Override
-            public boolean evaluate(Options options) {
-                return getDecimal(0, options).compareTo(BigDecimal.ZERO) < 0;
+            public boolean evaluate(Expression expression, Options options) {
+                return compare(expression.getOperand(0, options), ZERO) < 0;
             }
         }),
         POS(1, new Evaluator() {
             @Override
-            public boolean evaluate(Options options) {
-                return getDecimal(0, options).compareTo(BigDecimal.ZERO) > 0;
+            public boolean evaluate(Expression expression, Options options) {
+                return compare(expression.getOperand(0, options), ZERO) > 0;
             }
         }),
         IN(new Evaluator() {
             @Override
-            public boolean evaluate(Options options) {
-                BigDecimal val = getDecimal(0, options);
-                Set<BigDecimal> decimals = new HashSet<BigDecimal>();
-                for (int i = 1; i < options.getParameters().size(); i++) {
-                    decimals.add(getDecimal(i, options));
-                }
-                for (BigDecimal decimal : decimals) {
-                    if (decimal.compareTo(val) == 0) {
-                        return true;
-                    }
-                }
-                return false;
+            public boolean evaluate(Expression expression, Options options) {
+                return expression.isIn(options);
             }
         }),
 
@@ -239,8 +413,8 @@ public class NumericExpressionHelper extends BasicHelper {
             return minParams;
         }
 
-        public boolean evaluate(Options options) {
-            return evaluator.evaluate(options);
+        public boolean evaluate(Expression expression, Options options) {
+            return evaluator.evaluate(expression, options);
         }
 
         static Operator from(String value) {
@@ -256,7 +430,19 @@ public class NumericExpressionHelper extends BasicHelper {
 
     static interface Evaluator {
 
-        boolean evaluate(Options options);
+        boolean evaluate(Expression expression, Options options);
+    }
+
+    abstract static class ComparisonEvaluator implements Evaluator {
+
+        @Override
+        public boolean evaluate(Expression expression, Options options) {
+            return test(compare(expression.getOperand(0, options),
+                    expression.getOperand(1, options)));
+        }
+
+        abstract boolean test(int result);
+
     }
 
 }
@@ -15,12 +15,19 @@
  */
 package org.trimou.handlebars;
 
+import java.util.Locale;
+
+import org.trimou.engine.context.ValueKey;
 import org.trimou.engine.interpolation.KeySplitter;
+import org.trimou.engine.locale.LocaleSupport;
 import org.trimou.exception.MustacheException;
 
 /**
  * This objects represents a helper execution context. A new instance is created
- * for every execution. It is not thread-safe.
+ * for every execution, unless
+ * {@link org.trimou.engine.config.EngineConfigurationKey#HELPER_OPTIONS_REUSE_ENABLED}
+ * is set to <code>true</code>. In any case, the instance must not be used after
+ * the execution finished. It is not thread-safe.
  *
  * @author Martin Kouba
  * @since 1.5
@@ -121,6 +128,18 @@ public interface Options extends HelperDefinition {
      */
     Object getValue(String key);
 
+    /**
+     * Unlike {@link #getValue(String)} the key is not processed by the
+     * {@link KeySplitter} again and the resolver hint is reused.
+     *
+     * @param key
+     * @return the value from the context for the given key, or
+     *         <code>null</code> if no such value exists
+     * @see ValueKey
+     * @since 1.8
+     */
+    Object getValue(ValueKey key);
+
     /**
      * Render the template with the current context and append the result to the
      * given appendable.
@@ -140,6 +159,15 @@ public interface Options extends HelperDefinition {
      */
     void executeAsync(HelperExecutable executable);
 
+    /**
+     * The locale is obtained from the {@link LocaleSupport} only once per
+     * rendering. It's also available during asynchronous execution.
+     *
+     * @return the locale of the current rendering
+     * @since 1.8
+     */
+    Locale getLocale();
+
     /**
      * A helper task to be executed asynchronously.
      *
@@ -18,10 +18,13 @@ package org.trimou.handlebars;
 import static org.trimou.handlebars.OptionsHashKeys.BREAK;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,6 +33,8 @@ import org.trimou.engine.MustacheTagType;
 import org.trimou.util.Nested;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Sets;
 
 /**
  * This helper works similarly as the Java switch statement.
@@ -79,6 +84,13 @@ import com.google.common.base.Optional;
  * {{/switch}}
  * </pre>
  *
+ * <p>
+ * If a <b>case</b> section matches a literal value (e.g. <code>"foo"</code>
+ * or <code>1</code>), the matching section is found by means of a lookup table
+ * built during validation. Note that all the <b>case</b> sections are still
+ * executed - a literal case only checks whether it is the matching section
+ * instead of comparing the values.
+ * </p>
  *
  * @author Martin Kouba
  * @see HelpersBuilder#addSwitch()
@@ -88,6 +100,10 @@ public class SwitchHelper extends BasicSectionHelper {
     private static final Logger logger = LoggerFactory
             .getLogger(SwitchHelper.class);
 
+    // The switch tag info is held by the segment
+    private final ConcurrentMap<MustacheTagInfo, Dispatch> dispatchTables = new MapMaker()
+            .weakKeys().makeMap();
+
     @Override
     protected int numberOfRequiredParameters() {
         return 0;
@@ -102,7 +118,9 @@ public class SwitchHelper extends BasicSectionHelper {
             // Don't match a null value
             return;
         }
-        options.push(new Flow(value));
+        Dispatch dispatch = dispatchTables.get(options.getTagInfo());
+        options.push(dispatch != null ? new Flow(value, dispatch.cases,
+                dispatch.get(value)) : new Flow(value));
         options.fn();
         options.pop();
     }
@@ -116,19 +134,51 @@ public class SwitchHelper extends BasicSectionHelper {
     public void validate(HelperDefinition definition) {
         super.validate(definition);
         Set<String> validNames = new HashSet<String>(4);
+        Set<String> caseNames = new HashSet<String>(2);
         for (Entry<String, Helper> entry : configuration.getHelpers()
                 .entrySet()) {
-            if (entry.getValue() instanceof CaseHelper
-                    || entry.getValue() instanceof DefaultHelper) {
+            if (entry.getValue() instanceof CaseHelper) {
+                validNames.add(entry.getKey());
+                caseNames.add(entry.getKey());
+            } else if (entry.getValue() instanceof DefaultHelper) {
                 validNames.add(entry.getKey());
             }
         }
+        Dispatch dispatch = new Dispatch();
         for (MustacheTagInfo info : definition.getTagInfo().getChildTags()) {
             if (!isValid(info, validNames)) {
                 logger.warn(
                         "Invalid content detected {}. This helper should only contain case and default sections. Other types of segments are always rendered!",
                         info);
+            } else {
+                addLiteralCase(info, caseNames, dispatch);
+            }
+        }
+        if (!dispatch.cases.isEmpty()) {
+            dispatchTables.put(definition.getTagInfo(), dispatch);
+        }
+    }
+
+    private void addLiteralCase(MustacheTagInfo info, Set<String> caseNames,
+            Dispatch dispatch) {
+        Iterator<String> parts = HelperValidator.splitHelperName(
+                info.getText(), null);
+        if (!caseNames.contains(parts.next())) {
+            return;
+        }
+        while (parts.hasNext()) {
+            String part = parts.next();
+            if (HelperValidator.getFirstDeterminingEqualsCharPosition(part) != -1) {
+                // Hash
+                continue;
+            }
+            // The first param is the matching value
+            Object literal = configuration.getLiteralSupport().getLiteral(
+                    part, info);
+            if (literal != null) {
+                dispatch.add(literal, info);
             }
+            return;
         }
     }
 
@@ -178,7 +228,8 @@ public class SwitchHelper extends BasicSectionHelper {
                 Flow flow = (Flow) contextObject;
                 if (!flow.isTerminated()) {
                     if (flow.isFallThrough()
-                            || flow.up().equals(options.getParameters().get(0))) {
+                            || flow.matches(options.getTagInfo(),
+                                    options.getParameters().get(0))) {
                         options.fn();
                         flow.setFallThrough();
                         if (isBreak(options.getHash())) {
@@ -234,4 +285,26 @@ public class SwitchHelper extends BasicSectionHelper {
 
     }
 
+    /**
+     * Maps literal values to the first matching case tag.
+     */
+    private static class Dispatch {
+
+        private final Map<Object, MustacheTagInfo> table = new HashMap<Object, MustacheTagInfo>();
+
+        private final Set<MustacheTagInfo> cases = Sets.newIdentityHashSet();
+
+        void add(Object literal, MustacheTagInfo caseTag) {
+            if (!table.containsKey(literal)) {
+                table.put(literal, caseTag);
+            }
+            cases.add(caseTag);
+        }
+
+        MustacheTagInfo get(Object value) {
+            return table.get(value);
+        }
+
+    }
+
 }
@@ -16,7 +16,6 @@
 package org.trimou.handlebars.i18n;
 
 import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
@@ -24,6 +23,7 @@ import java.util.TimeZone;
 
 import org.trimou.engine.MustacheTagInfo;
 import org.trimou.engine.resolver.i18n.DateTimeFormatResolver;
+import org.trimou.util.FormatCache;
 
 /**
  * This is an alternative to {@link DateTimeFormatResolver}. The main advantage
@@ -40,6 +40,8 @@ import org.trimou.engine.resolver.i18n.DateTimeFormatResolver;
 public class DateTimeFormatHelper extends
         AbstractTimeFormatHelper<Object, Integer> {
 
+    private final FormatCache formatCache = new FormatCache();
+
     @Override
     protected String defaultFormat(Object value, Locale locale,
             TimeZone timeZone) {
@@ -49,19 +51,14 @@ public class DateTimeFormatHelper extends
     @Override
     protected String format(Object value, Integer style, Locale locale,
             TimeZone timeZone) {
-        DateFormat dateFormat = DateFormat.getDateTimeInstance(style, style,
-                locale);
-        dateFormat.setTimeZone(timeZone);
-        return dateFormat.format(value);
+        return formatCache.formatDateTime(value, style, style, locale,
+                timeZone);
     }
 
     @Override
     protected String format(Object value, String pattern, Locale locale,
             TimeZone timeZone) {
-        SimpleDateFormat simpleDateFormat = new SimpleDateFormat(pattern,
-                locale);
-        simpleDateFormat.setTimeZone(timeZone);
-        return simpleDateFormat.format(value);
+        return formatCache.formatPattern(value, pattern, locale, timeZone);
     }
 
     protected Object getFormattableObject(Object value, Locale locale,
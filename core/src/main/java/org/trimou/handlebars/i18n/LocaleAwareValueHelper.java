@@ -51,9 +51,10 @@ public abstract class LocaleAwareValueHelper extends BasicValueHelper {
      *
      * @param options
      * @return the locale set via options hash with
-     *         {@link OptionsHashKeys#LOCALE} key, or the current locale by
-     *         means of {@link LocaleSupport}
+     *         {@link OptionsHashKeys#LOCALE} key, or the locale of the current
+     *         rendering
      * @see Locale#forLanguageTag(String)
+     * @see Options#getLocale()
      */
     protected Locale getLocale(Options options) {
 
@@ -67,7 +68,7 @@ public abstract class LocaleAwareValueHelper extends BasicValueHelper {
                 locale = Locale.forLanguageTag(localeObject.toString());
             }
         } else {
-            locale = getCurrentLocale();
+            locale = options.getLocale();
         }
         return locale;
     }
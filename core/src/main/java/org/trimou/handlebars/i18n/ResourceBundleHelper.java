@@ -24,12 +24,15 @@ import java.util.Formatter;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.ResourceBundle;
 import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.trimou.engine.config.ConfigurationKey;
+import org.trimou.engine.config.SimpleConfigurationKey;
 import org.trimou.engine.locale.LocaleSupport;
+import org.trimou.engine.resolver.i18n.ResourceBundleCache;
+import org.trimou.engine.resolver.i18n.ResourceBundleCache.Messages;
 import org.trimou.exception.MustacheException;
 import org.trimou.exception.MustacheProblem;
 import org.trimou.handlebars.Options;
@@ -102,6 +105,24 @@ public class ResourceBundleHelper extends LocaleAwareValueHelper {
     private static final Logger logger = LoggerFactory
             .getLogger(ResourceBundleHelper.class);
 
+    public static final String COMPUTING_CACHE_CONSUMER_ID = ResourceBundleHelper.class
+            .getName();
+
+    /**
+     * The bundle cache expiration timeout in seconds. Zero and negative values
+     * mean no timeout, i.e. the bundles are never reloaded.
+     */
+    public static final ConfigurationKey BUNDLE_CACHE_EXPIRATION_TIMEOUT_KEY = new SimpleConfigurationKey(
+            ResourceBundleHelper.class.getName()
+                    + ".bundleCacheExpirationTimeout", 0l);
+
+    /**
+     * The max number of cached bundles. The same limit applies to the number
+     * of cached requested locales.
+     */
+    public static final ConfigurationKey BUNDLE_CACHE_MAX_SIZE_KEY = new SimpleConfigurationKey(
+            ResourceBundleHelper.class.getName() + ".bundleCacheMaxSize", 100l);
+
     private static final Set<String> SUPPORTED_HASH_KEYS = ImmutableSet
             .<String> builder().add(FORMAT).add(BASE_NAME).add(LOCALE).build();
 
@@ -109,6 +130,8 @@ public class ResourceBundleHelper extends LocaleAwareValueHelper {
 
     private final Format defaultFormat;
 
+    private ResourceBundleCache bundleCache;
+
     /**
      *
      * @param defaultBaseName
@@ -132,7 +155,7 @@ public class ResourceBundleHelper extends LocaleAwareValueHelper {
 
         String key = options.getParameters().get(0).toString();
         Object baseName = getHashValue(options, BASE_NAME);
-        ResourceBundle bundle = ResourceBundle.getBundle(
+        Messages bundle = bundleCache.get(
                 baseName != null ? baseName.toString() : defaultBaseName,
                 getLocale(options));
 
@@ -147,11 +170,11 @@ public class ResourceBundleHelper extends LocaleAwareValueHelper {
                 Object[] formatParams = getFormatParams(options.getParameters());
                 try {
                     if (Format.PRINTF.equals(format)) {
-                        append(options, String.format(bundle.getString(key),
+                        append(options, String.format(stringValue,
                                 formatParams));
                     } else if (Format.MESSAGE.equals(format)) {
-                        append(options, MessageFormat.format(
-                                bundle.getString(key), formatParams));
+                        append(options, bundle.getMessageFormat(key).format(
+                                formatParams));
                     }
                 } catch (Exception e) {
                     throw new MustacheException(
@@ -161,6 +184,23 @@ public class ResourceBundleHelper extends LocaleAwareValueHelper {
         }
     }
 
+    @Override
+    protected void init() {
+        super.init();
+        bundleCache = new ResourceBundleCache(
+                COMPUTING_CACHE_CONSUMER_ID,
+                configuration.getComputingCacheFactory(),
+                configuration
+                        .getLongPropertyValue(BUNDLE_CACHE_EXPIRATION_TIMEOUT_KEY) * 1000,
+                configuration.getLongPropertyValue(BUNDLE_CACHE_MAX_SIZE_KEY));
+    }
+
+    @Override
+    public Set<ConfigurationKey> getConfigurationKeys() {
+        return ImmutableSet.<ConfigurationKey> of(
+                BUNDLE_CACHE_EXPIRATION_TIMEOUT_KEY, BUNDLE_CACHE_MAX_SIZE_KEY);
+    }
+
     @Override
     protected Optional<Set<String>> getSupportedHashKeys() {
         return Optional.of(SUPPORTED_HASH_KEYS);
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.util;
+
+import java.text.DateFormat;
+import java.text.Format;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.trimou.annotations.Internal;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * A cache of {@link java.text} formats. Since these formats are not
+ * thread-safe, the cache holds a small pool of instances for each combination
+ * of the format type, style or pattern, locale and time zone. An instance is
+ * only used by one thread at a time. The number of combinations is bounded
+ * (LRU).
+ *
+ * <p>
+ * No thread-local state is used so that no stale instances outlive the owner
+ * of the cache. If no time zone is specified the default time zone at the time
+ * of creation is used.
+ * </p>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ */
+@Internal
+public final class FormatCache {
+
+    public static final int DEFAULT_MAX_SIZE = 64;
+
+    /**
+     * The max number of idle instances held for a single combination
+     */
+    static final int MAX_POOLED_INSTANCES = 8;
+
+    private static final int TYPE_DATE_TIME = 0;
+
+    private static final int TYPE_DATE = 1;
+
+    private static final int TYPE_DATE_PATTERN = 2;
+
+    private static final int TYPE_NUMBER = 3;
+
+    private static final int TYPE_PERCENT = 4;
+
+    private static final int TYPE_CURRENCY = 5;
+
+    private final LoadingCache<FormatKey, FormatPool> pools;
+
+    /**
+     *
+     */
+    public FormatCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     *
+     * @param maxSize
+     *            The max number of format combinations
+     */
+    public FormatCache(int maxSize) {
+        this.pools = CacheBuilder.newBuilder().concurrencyLevel(1)
+                .maximumSize(maxSize)
+                .build(new CacheLoader<FormatKey, FormatPool>() {
+                    @Override
+                    public FormatPool load(FormatKey key) {
+                        return new FormatPool(key);
+                    }
+                });
+    }
+
+    /**
+     *
+     * @param value
+     * @param dateStyle
+     * @param timeStyle
+     * @param locale
+     * @param timeZone
+     *            May be <code>null</code>
+     * @return the formatted value
+     * @see DateFormat#getDateTimeInstance(int, int, Locale)
+     */
+    public String formatDateTime(Object value, int dateStyle, int timeStyle,
+            Locale locale, TimeZone timeZone) {
+        // Styles are small non-negative numbers
+        return format(new FormatKey(TYPE_DATE_TIME,
+                (dateStyle << 4) | timeStyle, null, locale, timeZone), value);
+    }
+
+    /**
+     *
+     * @param value
+     * @param style
+     * @param locale
+     * @param timeZone
+     *            May be <code>null</code>
+     * @return the formatted value
+     * @see DateFormat#getDateInstance(int, Locale)
+     */
+    public String formatDate(Object value, int style, Locale locale,
+            TimeZone timeZone) {
+        return format(new FormatKey(TYPE_DATE, style, null, locale, timeZone),
+                value);
+    }
+
+    /**
+     *
+     * @param value
+     * @param pattern
+     * @param locale
+     * @param timeZone
+     *            May be <code>null</code>
+     * @return the formatted value
+     * @see SimpleDateFormat#SimpleDateFormat(String, Locale)
+     */
+    public String formatPattern(Object value, String pattern, Locale locale,
+            TimeZone timeZone) {
+        return format(new FormatKey(TYPE_DATE_PATTERN, 0, pattern, locale,
+                timeZone), value);
+    }
+
+    /**
+     *
+     * @param value
+     * @param locale
+     * @return the formatted value
+     * @see NumberFormat#getNumberInstance(Locale)
+     */
+    public String formatNumber(Object value, Locale locale) {
+        return format(new FormatKey(TYPE_NUMBER, 0, null, locale, null), value);
+    }
+
+    /**
+     *
+     * @param value
+     * @param locale
+     * @return the formatted value
+     * @see NumberFormat#getPercentInstance(Locale)
+     */
+    public String formatPercent(Object value, Locale locale) {
+        return format(new FormatKey(TYPE_PERCENT, 0, null, locale, null), value);
+    }
+
+    /**
+     *
+     * @param value
+     * @param locale
+     * @return the formatted value
+     * @see NumberFormat#getCurrencyInstance(Locale)
+     */
+    public String formatCurrency(Object value, Locale locale) {
+        return format(new FormatKey(TYPE_CURRENCY, 0, null, locale, null),
+                value);
+    }
+
+    /**
+     * Discard all the cached formats.
+     */
+    public void clear() {
+        pools.invalidateAll();
+    }
+
+    /**
+     *
+     * @return the number of cached format combinations
+     */
+    long size() {
+        pools.cleanUp();
+        return pools.size();
+    }
+
+    /**
+     *
+     * @return the number of idle instances for the given pattern format
+     */
+    int getIdleCount(String pattern, Locale locale, TimeZone timeZone) {
+        FormatPool pool = pools.getIfPresent(new FormatKey(TYPE_DATE_PATTERN,
+                0, pattern, locale, timeZone));
+        return pool != null ? pool.idle.get() : 0;
+    }
+
+    private String format(FormatKey key, Object value) {
+        FormatPool pool = pools.getUnchecked(key);
+        Format format = pool.acquire();
+        try {
+            return format.format(value);
+        } finally {
+            pool.release(format);
+        }
+    }
+
+    /**
+     * Idle instances of a single format combination.
+     */
+    private static final class FormatPool {
+
+        private final FormatKey key;
+
+        private final Queue<Format> instances;
+
+        private final AtomicInteger idle;
+
+        FormatPool(FormatKey key) {
+            this.key = key;
+            this.instances = new ConcurrentLinkedQueue<Format>();
+            this.idle = new AtomicInteger();
+        }
+
+        Format acquire() {
+            Format format = instances.poll();
+            if (format != null) {
+                idle.decrementAndGet();
+                return format;
+            }
+            return create(key);
+        }
+
+        void release(Format format) {
+            if (idle.incrementAndGet() <= MAX_POOLED_INSTANCES) {
+                instances.offer(format);
+            } else {
+                // Discard the instance
+                idle.decrementAndGet();
+            }
+        }
+
+    }
+
+    private static Format create(FormatKey key) {
+        DateFormat dateFormat;
+        switch (key.type) {
+        case TYPE_DATE_TIME:
+            dateFormat = DateFormat.getDateTimeInstance(key.style >> 4,
+                    key.style & 0xF, key.locale);
+            break;
+        case TYPE_DATE:
+            dateFormat = DateFormat.getDateInstance(key.style, key.locale);
+            break;
+        case TYPE_DATE_PATTERN:
+            dateFormat = new SimpleDateFormat(key.pattern, key.locale);
+            break;
+        case TYPE_NUMBER:
+            return NumberFormat.getNumberInstance(key.locale);
+        case TYPE_PERCENT:
+            return NumberFormat.getPercentInstance(key.locale);
+        case TYPE_CURRENCY:
+            return NumberFormat.getCurrencyInstance(key.locale);
+        default:
+            throw new IllegalStateException("Unsupported format type: "
+                    + key.type);
+        }
+        if (key.timeZone != null) {
+            dateFormat.setTimeZone(key.timeZone);
+        }
+        return dateFormat;
+    }
+
+    private static final class FormatKey {
+
+        private final int type;
+
+        private final int style;
+
+        private final String pattern;
+
+        private final Locale locale;
+
+        private final TimeZone timeZone;
+
+        private final int hashCode;
+
+        FormatKey(int type, int style, String pattern, Locale locale,
+                TimeZone timeZone) {
+            this.type = type;
+            this.style = style;
+            this.pattern = pattern;
+            this.locale = locale;
+            this.timeZone = timeZone;
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + type;
+            result = prime * result + style;
+            result = prime * result
+                    + ((pattern == null) ? 0 : pattern.hashCode());
+            result = prime * result
+                    + ((locale == null) ? 0 : locale.hashCode());
+            result = prime * result
+                    + ((timeZone == null) ? 0 : timeZone.getID().hashCode());
+            this.hashCode = result;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof FormatKey)) {
+                return false;
+            }
+            FormatKey other = (FormatKey) obj;
+            return type == other.type && style == other.style
+                    && hashCode == other.hashCode
+                    && equals(pattern, other.pattern)
+                    && equals(locale, other.locale)
+                    && equals(timeZone, other.timeZone);
+        }
+
+        private static boolean equals(Object o1, Object o2) {
+            return o1 == null ? o2 == null : o1.equals(o2);
+        }
+
+    }
+
+}
@@ -17,6 +17,9 @@ package org.trimou.util;
 
 import org.trimou.annotations.Internal;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
 /**
  *
  * @author Martin Kouba
@@ -65,6 +68,9 @@ public final class Strings {
 
     public static final String THIS = "this";
 
+    private static final Interner<String> INTERNER = Interners
+            .newWeakInterner();
+
     /**
      *
      * @param character
@@ -75,4 +81,16 @@ public final class Strings {
         return character == '"' || character == '\'';
     }
 
+    /**
+     * Unlike {@link String#intern()} the canonical instances are weakly
+     * referenced.
+     *
+     * @param value
+     * @return the canonical instance of the given string or <code>null</code>
+     * @since 1.8
+     */
+    public static String intern(String value) {
+        return value != null ? INTERNER.intern(value) : null;
+    }
+
 }
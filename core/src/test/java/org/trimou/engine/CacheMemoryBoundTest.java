@@ -0,0 +1,104 @@
+package org.trimou.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.trimou.engine.cache.ComputingCache;
+import org.trimou.engine.cache.DefaultComputingCacheFactory;
+
+/**
+ *
+ * @author Martin Kouba
+ */
+public class CacheMemoryBoundTest {
+
+    @Test
+    public void testAccounting() {
+        final CacheMemoryBound<StringBuilder> bound = new CacheMemoryBound<StringBuilder>(
+                25);
+        ComputingCache<String, StringBuilder> cache = newCache(bound);
+
+        StringBuilder alpha = cache.get("alpha");
+        assertFalse(bound.isLoaded("alpha", alpha));
+        bound.loaded(cache, "alpha", alpha, 10);
+        assertTrue(bound.isLoaded("alpha", alpha));
+        assertEquals(10, bound.getTotal());
+
+        // The value was invalidated before it was accounted for
+        StringBuilder bravo = cache.get("bravo");
+        invalidate(cache, "bravo");
+        bound.loaded(cache, "bravo", bravo, 10);
+        assertFalse(bound.isLoaded("bravo", bravo));
+        assertEquals(10, bound.getTotal());
+
+        // Reloaded value is not accounted for yet
+        invalidate(cache, "alpha");
+        assertEquals(0, bound.getTotal());
+        StringBuilder alpha2 = cache.get("alpha");
+        assertFalse(bound.isLoaded("alpha", alpha2));
+        bound.loaded(cache, "alpha", alpha2, 10);
+        bravo = cache.get("bravo");
+        bound.loaded(cache, "bravo", bravo, 10);
+        StringBuilder charlie = cache.get("charlie");
+        bound.loaded(cache, "charlie", charlie, 10);
+        assertEquals(30, bound.getTotal());
+
+        // The oldest entry is evicted
+        bound.enforce(cache);
+        assertEquals(20, bound.getTotal());
+        assertNull(cache.getIfPresent("alpha"));
+        assertTrue(bound.isLoaded("charlie", charlie));
+    }
+
+    @Test
+    public void testNoStaleEntries() {
+        final CacheMemoryBound<StringBuilder> bound = new CacheMemoryBound<StringBuilder>(
+                Long.MAX_VALUE);
+        ComputingCache<String, StringBuilder> cache = newCache(bound);
+        for (int i = 0; i < 100; i++) {
+            // Loaded and removed, e.g. expired
+            bound.loaded(cache, "alpha", cache.get("alpha"), 10);
+            invalidate(cache, "alpha");
+            // Invalidated before accounted for
+            StringBuilder bravo = cache.get("bravo");
+            invalidate(cache, "bravo");
+            bound.loaded(cache, "bravo", bravo, 10);
+            // Reloaded
+            bound.loaded(cache, "charlie", cache.get("charlie"), 10);
+            bound.loaded(cache, "charlie", cache.get("charlie"), 10);
+            bound.enforce(cache);
+        }
+        assertEquals(1, bound.size());
+        assertEquals(10, bound.getTotal());
+    }
+
+    private ComputingCache<String, StringBuilder> newCache(
+            final CacheMemoryBound<StringBuilder> bound) {
+        return new DefaultComputingCacheFactory().create("test",
+                new ComputingCache.Function<String, StringBuilder>() {
+                    @Override
+                    public StringBuilder compute(String key) {
+                        return new StringBuilder(key);
+                    }
+                }, null, null, new ComputingCache.Listener<String>() {
+                    @Override
+                    public void entryInvalidated(String key, String cause) {
+                        bound.removed(key);
+                    }
+                });
+    }
+
+    private void invalidate(ComputingCache<String, StringBuilder> cache,
+            final String key) {
+        cache.invalidate(new ComputingCache.KeyPredicate<String>() {
+            @Override
+            public boolean apply(String k) {
+                return key.equals(k);
+            }
+        });
+    }
+
+}
@@ -28,6 +28,10 @@ import org.trimou.engine.locator.AbstractTemplateLocator;
 import org.trimou.engine.locator.MapTemplateLocator;
 import org.trimou.engine.locator.TemplateLocator;
 import org.trimou.exception.MustacheException;
+import org.trimou.handlebars.BasicValueHelper;
+import org.trimou.handlebars.EvalHelper;
+import org.trimou.handlebars.HelpersBuilder;
+import org.trimou.handlebars.Options;
 import org.trimou.lambda.Lambda;
 import org.trimou.lambda.SpecCompliantLambda;
 
@@ -86,6 +90,60 @@ public class MustacheEngineTest extends AbstractEngineTest {
                 mustache.render(null));
     }
 
+    @Test
+    public void testGlobalDataShadowing() {
+        String templateContents = "{{foo}}|{{#archiveType.values}}{{suffix}}{{/archiveType.values}}|{{^foo}}no{{/foo}}|{{#each bar}}{{foo}}{{/each}}|{{#with foo}}{{this}}{{/with}}";
+        Map<String, Object> data = ImmutableMap.<String, Object> of("foo",
+                "data", "bar", ImmutableList.of(ImmutableMap.of("foo", 1)),
+                "archiveType", "data");
+        assertEquals(
+                "data|||1|data",
+                MustacheEngineBuilder.newBuilder()
+                        .addGlobalData("foo", "global")
+                        .addGlobalData("archiveType", ArchiveType.class)
+                        .build()
+                        .compileMustache("global_data_shadowing",
+                                templateContents).render(data));
+        assertEquals(
+                "global|jarwarear||global|global",
+                MustacheEngineBuilder
+                        .newBuilder()
+                        .setProperty(
+                                EngineConfigurationKey.GLOBAL_DATA_SHADOWING_ENABLED,
+                                false)
+                        .addGlobalData("foo", "global")
+                        .addGlobalData("archiveType", ArchiveType.class)
+                        .build()
+                        .compileMustache("global_data_no_shadowing",
+                                templateContents).render(data));
+    }
+
+    @Test
+    public void testGlobalDataShadowingDisabledForDynamicKeys() {
+        MustacheEngine engine = MustacheEngineBuilder
+                .newBuilder()
+                .setProperty(
+                        EngineConfigurationKey.GLOBAL_DATA_SHADOWING_ENABLED,
+                        false)
+                .setProperty(EvalHelper.KEY_CACHE_MAX_SIZE_KEY, 0l)
+                .addGlobalData("foo", "global")
+                .registerHelpers(HelpersBuilder.empty().addEval().build())
+                .registerHelper("get", new BasicValueHelper() {
+                    @Override
+                    public void execute(Options options) {
+                        options.append(options.getValue(
+                                options.getParameters().get(0).toString())
+                                .toString());
+                    }
+                }).build();
+        // Compiled keys, eval helper without the key cache, Options.getValue()
+        assertEquals(
+                "global|global|global",
+                engine.compileMustache("global_data_no_shadowing_dynamic",
+                        "{{foo}}|{{eval \"foo\"}}|{{get \"foo\"}}").render(
+                        ImmutableMap.of("foo", "data")));
+    }
+
     @Test
     public void testDelimitersConfiguration() {
         assertEquals(
@@ -266,6 +324,100 @@ public class MustacheEngineTest extends AbstractEngineTest {
         assertNotEquals(engine.compileMustache("foo", "{{foo}}").getGeneratedId(), engine.compileMustache("foo", "{{foo}}").getGeneratedId());
     }
 
+    @Test
+    public void testFootprintReport() {
+        MustacheEngine engine = MustacheEngineBuilder
+                .newBuilder()
+                .addTemplateLocator(
+                        new MapTemplateLocator(ImmutableMap.of("small",
+                                "{{foo}}", "large",
+                                "{{#each items}}{{name}} {{age}}{{/each}}")))
+                .build();
+        assertEquals(0, engine.getFootprintReport(10).getTemplatesCount());
+        long small = ((org.trimou.engine.parser.Template) engine
+                .getMustache("small")).getEstimatedFootprint();
+        long large = ((org.trimou.engine.parser.Template) engine
+                .getMustache("large")).getEstimatedFootprint();
+        assertTrue(small > 0);
+        assertTrue(large > small);
+        engine.getMustacheSource("small");
+        FootprintReport report = engine.getFootprintReport(1);
+        assertEquals(2, report.getTemplatesCount());
+        assertEquals(small + large, report.getTemplatesFootprint());
+        assertEquals(1, report.getSourcesCount());
+        assertTrue(report.getSourcesFootprint() > 0);
+        assertEquals(1, report.getLargestTemplates().size());
+        assertEquals("large", report.getLargestTemplates().get(0).getName());
+        assertEquals(large, report.getLargestTemplates().get(0)
+                .getFootprint());
+        engine.invalidateTemplateCache();
+        assertEquals(0, engine.getFootprintReport(10).getTemplatesCount());
+    }
+
+    @Test
+    public void testTemplateCacheMaxMemory() {
+        Map<String, String> templates = ImmutableMap.of("alpha",
+                "{{foo}} alpha", "bravo", "{{foo}} bravo", "charlie",
+                "{{foo}} charlie");
+        long footprint = ((org.trimou.engine.parser.Template) MustacheEngineBuilder
+                .newBuilder().build()
+                .compileMustache("charlie", templates.get("charlie")))
+                .getEstimatedFootprint();
+        MustacheEngine engine = MustacheEngineBuilder
+                .newBuilder()
+                .addTemplateLocator(new MapTemplateLocator(templates))
+                .setProperty(EngineConfigurationKey.TEMPLATE_CACHE_MAX_MEMORY,
+                        2 * footprint).build();
+        engine.getMustache("alpha");
+        engine.getMustache("bravo");
+        assertEquals(2, engine.getFootprintReport(10).getTemplatesCount());
+        engine.getMustache("charlie");
+        // The oldest template is evicted
+        FootprintReport report = engine.getFootprintReport(10);
+        assertEquals(2, report.getTemplatesCount());
+        assertTrue(report.getTemplatesFootprint() <= 2 * footprint);
+        for (FootprintReport.TemplateFootprint template : report
+                .getLargestTemplates()) {
+            assertNotEquals("alpha", template.getName());
+        }
+        assertEquals("Hello alpha",
+                engine.getMustache("alpha").render(ImmutableMap.of("foo", "Hello")));
+    }
+
+    @Test
+    public void testReuseOutputBuffer() {
+        final MustacheEngine engine = MustacheEngineBuilder
+                .newBuilder()
+                .addTemplateLocator(
+                        new MapTemplateLocator(ImmutableMap.of("inner",
+                                "[{{this}}]")))
+                .setProperty(EngineConfigurationKey.REUSE_OUTPUT_BUFFER, true)
+                .build();
+        Lambda nested = new SpecCompliantLambda() {
+            @Override
+            public String invoke(String text) {
+                // Nested rendering on the same thread
+                return engine.getMustache("inner").render(text);
+            }
+
+            @Override
+            public boolean isReturnValueInterpolated() {
+                return false;
+            }
+        };
+        Mustache outer = engine.compileMustache("outer",
+                "{{#each items}}{{.}}{{/each}}:{{#nested}}{{size}}{{/nested}}");
+        StringBuilder expected = new StringBuilder();
+        List<String> items = new ArrayList<String>();
+        for (int i = 0; i < 50; i++) {
+            items.add("item" + i);
+            expected.append("item").append(i);
+            assertEquals(expected + ":[{{size}}]", outer.render(ImmutableMap
+                    .<String, Object> of("items", items, "nested", nested)));
+        }
+        assertEquals("[a]", engine.getMustache("inner").render("a"));
+    }
+
     private static class MyStringReader extends StringReader {
 
         final AtomicBoolean isCloseInvoked;
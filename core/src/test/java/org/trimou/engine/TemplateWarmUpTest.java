@@ -0,0 +1,94 @@
+package org.trimou.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+import org.trimou.engine.locator.MapTemplateLocator;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ *
+ * @author Martin Kouba
+ */
+public class TemplateWarmUpTest {
+
+    @Test
+    public void testWarmUp() {
+        MustacheEngine engine = MustacheEngineBuilder
+                .newBuilder()
+                .addTemplateLocator(
+                        new MapTemplateLocator(ImmutableMap.of("hello",
+                                "Hello {{name}}! {{#if age}}{{age}}{{/if}}",
+                                "bye", "{{#items}}{{name}}{{/items}}", "fail",
+                                "{{#each this}}{{/each}}"))).build();
+
+        TemplateWarmUp.Report report = TemplateWarmUp.forEngine(engine)
+                .addSample("hello", new Person("Foo", 10))
+                .addSample("fail", 1).addTemplate("unknown").addAllTemplates()
+                .run();
+        assertEquals(3, report.getTemplatesCount());
+        assertEquals(1, report.getRenderingsCount());
+        assertEquals(1, report.getNotFound().size());
+        assertTrue(report.getNotFound().contains("unknown"));
+        assertEquals(1, report.getFailures().size());
+        assertTrue(report.getFailures().containsKey("fail"));
+        // hello is warm, bye was not rendered at all
+        assertFalse(report.getColdTags().containsKey("hello"));
+        List<MustacheTagInfo> coldTags = report.getColdTags().get("bye");
+        assertEquals(2, coldTags.size());
+        assertEquals("items", coldTags.get(0).getText());
+        assertEquals("name", coldTags.get(1).getText());
+        assertFalse(report.isComplete());
+    }
+
+    @Test
+    public void testParallelWarmUp() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            MustacheEngine engine = MustacheEngineBuilder
+                    .newBuilder()
+                    .addTemplateLocator(
+                            new MapTemplateLocator(ImmutableMap.of("foo",
+                                    "{{name}}", "bar", "{{age}}"))).build();
+            TemplateWarmUp.Report report = TemplateWarmUp.forEngine(engine)
+                    .addSample("foo", new Person("Foo", 1))
+                    .addSample("foo", new Person("Bar", 2))
+                    .addSample("bar", ImmutableMap.of("age", 1))
+                    .setExecutor(executor).run();
+            assertEquals(2, report.getTemplatesCount());
+            assertEquals(3, report.getRenderingsCount());
+            assertTrue(report.isComplete());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public static class Person {
+
+        private final String name;
+
+        private final int age;
+
+        public Person(String name, int age) {
+            this.name = name;
+            this.age = age;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+    }
+
+}
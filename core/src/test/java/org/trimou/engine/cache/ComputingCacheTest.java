@@ -3,6 +3,7 @@ package org.trimou.engine.cache;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -12,10 +13,16 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.trimou.AbstractEngineTest;
+import org.trimou.engine.MustacheEngine;
+import org.trimou.engine.MustacheEngineBuilder;
 
 /**
  * All {@link ComputingCache} implementations should pass this naive concurrency
@@ -153,4 +160,70 @@ public class ComputingCacheTest extends AbstractEngineTest {
         assertTrue(result.getCache().size() < actions);
     }
 
+    @Test
+    public void testStats() throws Exception {
+        MustacheEngine engine = buildStatsEngine();
+        ComputingCacheFactory factory = engine.getConfiguration()
+                .getComputingCacheFactory();
+        assertTrue(factory instanceof ComputingCacheStatsMXBean);
+        ComputingCacheStatsMXBean statsBean = (ComputingCacheStatsMXBean) factory;
+        assertTrue(statsBean.isStatsEnabled());
+
+        ComputingCache<Long, String> cache = factory.create("stats",
+                new ComputingCache.Function<Long, String>() {
+                    @Override
+                    public String compute(Long key) {
+                        return "" + key;
+                    }
+                }, null, null, null);
+        for (int i = 0; i < 2; i++) {
+            for (long j = 0; j < 10; j++) {
+                cache.get(j);
+            }
+        }
+        cache.getIfPresent(100l);
+        ComputingCacheStats stats = statsBean.getStats().get("stats");
+        assertEquals(21, stats.getRequestCount());
+        assertEquals(11, stats.getMissCount());
+        assertEquals(10, stats.getHitCount());
+        assertEquals(10, stats.getLoadCount());
+        assertTrue(stats.getTotalLoadTime() > 0);
+        assertEquals(0, stats.getEvictionCount());
+
+        ComputingCache<Long, String> boundedCache = factory.create(
+                "statsBounded", new ComputingCache.Function<Long, String>() {
+                    @Override
+                    public String compute(Long key) {
+                        return "" + key;
+                    }
+                }, null, 5l, null);
+        for (long i = 0; i < 20; i++) {
+            boundedCache.get(i);
+        }
+        assertTrue(statsBean.getStats().get("statsBounded")
+                .getEvictionCount() > 0);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(
+                "org.trimou:type=ComputingCacheStats,name="
+                        + getClass().getSimpleName());
+        server.registerMBean(factory, name);
+        try {
+            assertEquals(Boolean.TRUE,
+                    server.getAttribute(name, "StatsEnabled"));
+            TabularData data = (TabularData) server.getAttribute(name,
+                    "Stats");
+            assertEquals(statsBean.getStats().size(), data.size());
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    protected MustacheEngine buildStatsEngine() {
+        return MustacheEngineBuilder
+                .newBuilder()
+                .setProperty(DefaultComputingCacheFactory.STATS_ENABLED_KEY,
+                        true).build();
+    }
+
 }
@@ -5,12 +5,22 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.trimou.AbstractEngineTest;
 import org.trimou.Hammer;
+import org.trimou.engine.MustacheEngine;
+import org.trimou.engine.MustacheEngineBuilder;
+import org.trimou.engine.config.EngineConfigurationKey;
+import org.trimou.engine.resolver.AbstractResolver;
+import org.trimou.engine.resolver.NonMemoizableResolver;
+import org.trimou.engine.resolver.ResolutionContext;
 import org.trimou.engine.segment.Segment;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
 /**
  *
  * @author Martin Kouba
@@ -39,4 +49,124 @@ public class DefaultExecutionContextTest extends AbstractEngineTest {
         assertNull(ctx03.getDefiningSection("foo"));
     }
 
+    @Test
+    public void testResolutionMemoization() {
+        String template = "{{user.name}}{{#each items}}{{user.name}}{{/each}}{{counter.next}}";
+        User user = new User("Edgar");
+        Object data = ImmutableMap.of("user", user, "items",
+                ImmutableList.of(1, 2), "counter", new Counter());
+
+        // Disabled by default
+        assertEquals("EdgarEdgarEdgar1",
+                engine.compileMustache("memoization_disabled", template)
+                        .render(data));
+        assertEquals(3, user.invocations.get());
+
+        MustacheEngine engine = MustacheEngineBuilder
+                .newBuilder()
+                .setProperty(
+                        EngineConfigurationKey.RESOLUTION_MEMOIZATION_ENABLED,
+                        true)
+                .setProperty(
+                        EngineConfigurationKey.RESOLUTION_MEMOIZATION_EXCLUDED_KEYS,
+                        "counter.next").build();
+        user.invocations.set(0);
+        String template2 = template + "{{counter.next}}";
+        assertEquals("EdgarEdgarEdgar23",
+                engine.compileMustache("memoization_enabled", template2)
+                        .render(data));
+        assertEquals(1, user.invocations.get());
+        // The cache is render-scoped
+        assertEquals("EdgarEdgarEdgar45",
+                engine.compileMustache("memoization_enabled", template2)
+                        .render(data));
+        assertEquals(2, user.invocations.get());
+    }
+
+    @Test
+    public void testResolutionMemoizationExcludedNestedKey() {
+        MustacheEngine engine = MustacheEngineBuilder
+                .newBuilder()
+                .setProperty(
+                        EngineConfigurationKey.RESOLUTION_MEMOIZATION_ENABLED,
+                        true)
+                .setProperty(
+                        EngineConfigurationKey.RESOLUTION_MEMOIZATION_EXCLUDED_KEYS,
+                        "counter.next").build();
+        Counter counter = new Counter();
+        assertEquals(
+                "1:2|3:4|5",
+                engine.compileMustache(
+                        "memoization_excluded_nested",
+                        "{{#counter}}{{next}}:{{next}}{{/counter}}"
+                                + "|{{#with counter}}{{this.next}}:{{next}}{{/with}}"
+                                + "|{{counter.next}}").render(
+                        ImmutableMap.of("counter", counter)));
+    }
+
+    @Test
+    public void testNonMemoizableResolver() {
+        final AtomicInteger invocations = new AtomicInteger();
+        MustacheEngine engine = MustacheEngineBuilder
+                .newBuilder()
+                .setProperty(
+                        EngineConfigurationKey.RESOLUTION_MEMOIZATION_ENABLED,
+                        true).addResolver(new NowResolver(invocations))
+                .build();
+        assertEquals(
+                "1:2:3",
+                engine.compileMustache("memoization_non_memoizable",
+                        "{{this.now}}:{{this.now}}:{{this.now}}").render(
+                        "foo"));
+        assertEquals(3, invocations.get());
+    }
+
+    public static class User {
+
+        private final String name;
+
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        User(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            invocations.incrementAndGet();
+            return name;
+        }
+
+    }
+
+    public static class Counter {
+
+        private final AtomicInteger value = new AtomicInteger();
+
+        public int next() {
+            return value.incrementAndGet();
+        }
+
+    }
+
+    private static class NowResolver extends AbstractResolver implements
+            NonMemoizableResolver {
+
+        private final AtomicInteger invocations;
+
+        NowResolver(AtomicInteger invocations) {
+            super(100);
+            this.invocations = invocations;
+        }
+
+        @Override
+        public Object resolve(Object contextObject, String name,
+                ResolutionContext context) {
+            if ("now".equals(name)) {
+                return invocations.incrementAndGet();
+            }
+            return null;
+        }
+
+    }
+
 }
@@ -0,0 +1,63 @@
+package org.trimou.engine.id;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+/**
+ *
+ * @author Martin Kouba
+ */
+public class BlockIdentifierGeneratorTest {
+
+    @Test
+    public void testUniqueness() throws Exception {
+        final BlockIdentifierGenerator generator = new BlockIdentifierGenerator(
+                10);
+        final Set<Long> ids = Sets.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        final int threads = 8;
+        final int actions = 1005;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < threads; i++) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (int j = 0; j < actions; j++) {
+                        assertTrue(ids.add(generator.generate(null)));
+                    }
+                    return null;
+                }
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(threads * actions, ids.size());
+    }
+
+    @Test
+    public void testSingleThread() {
+        BlockIdentifierGenerator generator = new BlockIdentifierGenerator(2);
+        for (long i = 1; i < 10; i++) {
+            assertEquals(i, generator.generate(null));
+        }
+    }
+
+}
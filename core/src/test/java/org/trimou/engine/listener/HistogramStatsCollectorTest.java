@@ -0,0 +1,155 @@
+package org.trimou.engine.listener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.trimou.AbstractEngineTest;
+import org.trimou.Mustache;
+import org.trimou.engine.MustacheEngine;
+import org.trimou.engine.MustacheEngineBuilder;
+import org.trimou.engine.listener.HistogramStatsCollector.HistogramStats;
+import org.trimou.engine.listener.HistogramStatsCollector.Window;
+import org.trimou.lambda.InputLiteralLambda;
+import org.trimou.lambda.Lambda;
+
+import com.google.common.base.Predicates;
+
+/**
+ *
+ * @author Martin Kouba
+ */
+public class HistogramStatsCollectorTest extends AbstractEngineTest {
+
+    @Override
+    @Before
+    public void buildEngine() {
+    }
+
+    @Test
+    public void testDataCollecting() {
+
+        final AtomicInteger counter = new AtomicInteger();
+        HistogramStatsCollector collector = new HistogramStatsCollector();
+        MustacheEngine engine = MustacheEngineBuilder.newBuilder()
+                .addMustacheListener(collector).build();
+        Lambda sleeper = new InputLiteralLambda() {
+
+            @Override
+            public boolean isReturnValueInterpolated() {
+                return false;
+            }
+
+            @Override
+            public String invoke(String text) {
+                try {
+                    int count = counter.incrementAndGet();
+                    // The first execution results in error
+                    if (count == 1) {
+                        throw new RuntimeException();
+                    }
+                    // The last execution takes much longer
+                    Thread.sleep(count == 50 ? 50 : 2);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException();
+                }
+                return text;
+            }
+        };
+
+        Mustache mustache = engine.compileMustache("foo", "{{this}}");
+        int loop = 50;
+        for (int i = 0; i < loop; i++) {
+            try {
+                mustache.render(sleeper);
+            } catch (Exception e) {
+                // Expected
+            }
+        }
+
+        HistogramStats stats = collector.getStats(mustache);
+        assertNotNull(stats);
+        assertEquals(loop - 1, stats.getFinished());
+        assertEquals(1l, stats.getErrors());
+        assertTrue(stats.getMinTime() >= 2);
+        assertTrue(stats.getMaxTime() >= 50);
+        assertTrue(stats.getP50() >= 2 && stats.getP50() < 50);
+        assertTrue(stats.getP99() >= 50);
+        assertTrue(stats.getP999() <= stats.getMaxTime());
+        assertTrue(stats.getMeanTime() > 0
+                && stats.getMeanTime() <= stats.getMaxTime());
+        assertEquals(1, collector.getStats().size());
+    }
+
+    @Test
+    public void testClearData() {
+        HistogramStatsCollector collector = new HistogramStatsCollector();
+        Mustache mustache = MustacheEngineBuilder.newBuilder()
+                .addMustacheListener(collector).build()
+                .compileMustache("bar", "BAR");
+        mustache.render(null);
+        assertEquals(1, collector.getStats(mustache).getFinished());
+        collector.clearData();
+        assertNull(collector.getStats(mustache));
+    }
+
+    @Test
+    public void testCustomPredicate() {
+        HistogramStatsCollector collector = new HistogramStatsCollector(
+                Predicates.<String> alwaysFalse(), TimeUnit.DAYS);
+        Mustache mustache = MustacheEngineBuilder.newBuilder()
+                .addMustacheListener(collector).build()
+                .compileMustache("qux", "Oops");
+        mustache.render(null);
+        assertNull(collector.getStats(mustache));
+    }
+
+    @Test
+    public void testRollingWindows() throws InterruptedException {
+        HistogramStatsCollector collector = new HistogramStatsCollector(null,
+                TimeUnit.NANOSECONDS, 20, 2);
+        Mustache mustache = MustacheEngineBuilder.newBuilder()
+                .addMustacheListener(collector).build()
+                .compileMustache("baz", "BAZ");
+        mustache.render(null);
+        mustache.render(null);
+        assertTrue(collector.getStats(mustache).getFinished() > 0);
+        // All the windows expired
+        Thread.sleep(100);
+        HistogramStats stats = collector.getStats(mustache);
+        assertEquals(0, stats.getFinished());
+        assertEquals(0, stats.getP99());
+        mustache.render(null);
+        assertEquals(1, collector.getStats(mustache).getFinished());
+    }
+
+    @Test
+    public void testHistogram() {
+        long[] values = { 0, 1, 63, 64, 65, 127, 128, 1000, 123456789,
+                Long.MAX_VALUE };
+        for (long value : values) {
+            int index = Window.getIndex(value);
+            assertTrue(index >= 0 && index < Window.BUCKET_COUNT);
+            long highest = Window.getHighestValue(index);
+            assertTrue(highest >= value);
+            // Relative error
+            assertTrue((highest - value) <= value / 32);
+        }
+        Window window = new Window();
+        for (int i = 1; i <= 1000; i++) {
+            window.record(i * 1000);
+        }
+        long p50 = window.getValueAtPercentile(50.0);
+        assertTrue(p50 >= 500000 && p50 <= 500000 + 500000 / 32);
+        long p999 = window.getValueAtPercentile(99.9);
+        assertTrue(p999 >= 999000 && p999 <= 1000000);
+        assertEquals(1000000, window.getValueAtPercentile(100.0));
+    }
+
+}
@@ -1,17 +1,27 @@
 package org.trimou.engine.listener;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.trimou.AbstractEngineTest;
+import org.trimou.Mustache;
+import org.trimou.engine.MustacheEngine;
 import org.trimou.engine.MustacheEngineBuilder;
+import org.trimou.engine.id.Identified;
+import org.trimou.engine.id.SequenceIdentifierGenerator;
 import org.trimou.engine.resource.ReleaseCallback;
 import org.trimou.lambda.SpecCompliantLambda;
 
@@ -169,4 +179,114 @@ public class MustacheListenerTest extends AbstractEngineTest {
                 renderingEnds.get(0));
         assertTrue(callbackInvoked.get());
     }
+    @Test
+    public void testRenderingEventsSkipped() {
+        final AtomicInteger generated = new AtomicInteger();
+        final AtomicInteger compiled = new AtomicInteger();
+        MustacheEngine engine = MustacheEngineBuilder
+                .newBuilder()
+                .setIdentifierGenerator(new SequenceIdentifierGenerator() {
+                    @Override
+                    public long generate(
+                            Class<? extends Identified> componentType) {
+                        if (MustacheRenderingEvent.class.equals(componentType)) {
+                            generated.incrementAndGet();
+                        }
+                        return super.generate(componentType);
+                    }
+                }).addMustacheListener(new AbstractMustacheListener() {
+                    @Override
+                    public void compilationFinished(
+                            MustacheCompilationEvent event) {
+                        compiled.incrementAndGet();
+                    }
+                }).build();
+        assertEquals("foo", engine.compileMustache("events_skipped", "{{this}}")
+                .render("foo"));
+        assertEquals(1, compiled.get());
+        assertEquals(0, generated.get());
+    }
+
+    @Test
+    public void testAsyncRenderingListener() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(3);
+        final List<String> events = Collections
+                .synchronizedList(new ArrayList<String>());
+        final List<Thread> threads = Collections
+                .synchronizedList(new ArrayList<Thread>());
+        AsyncRenderingListener listener = new AsyncRenderingListener(
+                new AbstractMustacheListener() {
+                    @Override
+                    public void renderingStarted(MustacheRenderingEvent event) {
+                        threads.add(Thread.currentThread());
+                        events.add("started:" + event.getMustacheName());
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void renderingFinished(MustacheRenderingEvent event) {
+                        events.add("finished:" + event.getMustacheName());
+                        latch.countDown();
+                    }
+                });
+        MustacheEngine engine = MustacheEngineBuilder.newBuilder()
+                .addMustacheListener(listener).build();
+        assertEquals("foo", engine.compileMustache("async_foo", "{{this}}")
+                .render("foo"));
+        try {
+            engine.compileMustache("async_fail", "{{#this}}{{/this}}").render(
+                    new Iterable<Object>() {
+                        @Override
+                        public Iterator<Object> iterator() {
+                            throw new IllegalStateException();
+                        }
+                    });
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        // Started and finished for async_foo, the rendering of async_fail
+        // only started
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(3, events.size());
+        assertEquals("started:async_foo", events.get(0));
+        assertEquals("finished:async_foo", events.get(1));
+        assertEquals("started:async_fail", events.get(2));
+        assertFalse(threads.contains(Thread.currentThread()));
+        assertEquals(0, listener.getDroppedCount());
+        listener.shutdown();
+    }
+
+    @Test
+    public void testAsyncRenderingListenerIdleWorker()
+            throws InterruptedException {
+        final AtomicInteger started = new AtomicInteger();
+        AsyncRenderingListener listener = new AsyncRenderingListener(
+                new AbstractMustacheListener() {
+                    @Override
+                    public void renderingStarted(MustacheRenderingEvent event) {
+                        started.incrementAndGet();
+                    }
+                }, 10, 50);
+        Mustache mustache = MustacheEngineBuilder.newBuilder()
+                .addMustacheListener(listener).build()
+                .compileMustache("async_idle", "{{this}}");
+        // No thread is started until the first event is buffered
+        assertFalse(listener.isWorkerRunning());
+        for (int i = 1; i <= 2; i++) {
+            assertEquals("foo", mustache.render("foo"));
+            long timeout = System.currentTimeMillis() + 5000;
+            // The worker terminates once idle
+            while ((started.get() < i || listener.isWorkerRunning())
+                    && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+            assertEquals(i, started.get());
+            assertFalse(listener.isWorkerRunning());
+        }
+        listener.shutdown();
+        assertEquals("foo", mustache.render("foo"));
+        assertFalse(listener.isWorkerRunning());
+        assertEquals(0, listener.getPendingCount());
+    }
+
 }
@@ -0,0 +1,77 @@
+package org.trimou.engine.listener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.trimou.AbstractEngineTest;
+import org.trimou.Hammer;
+import org.trimou.engine.MustacheEngine;
+import org.trimou.engine.MustacheEngineBuilder;
+import org.trimou.engine.listener.ResolverHintMonitor.HintStats;
+import org.trimou.engine.resolver.ReflectionResolver;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ *
+ * @author Martin Kouba
+ */
+public class ResolverHintMonitorTest extends AbstractEngineTest {
+
+    @Override
+    @Before
+    public void buildEngine() {
+    }
+
+    @Test
+    public void testCounters() throws Exception {
+        ResolverHintMonitor monitor = new ResolverHintMonitor();
+        MustacheEngine engine = MustacheEngineBuilder.newBuilder()
+                .addMustacheListener(monitor).build();
+        assertEquals(
+                "EdgarEdgarFoo",
+                engine.compileMustache("hint_monitor",
+                        "{{#each this}}{{name}}{{/each}}").render(
+                        ImmutableList.of(new Hammer(), new Hammer(),
+                                ImmutableMap.of("name", "Foo"))));
+
+        // The first evaluation creates the hint, the second one uses it and
+        // the last one falls back to the resolver chain
+        HintStats origin = monitor.getOriginStats().get("hint_monitor:1 name");
+        assertNotNull(origin);
+        assertEquals(1, origin.getHits());
+        assertEquals(1, origin.getFallbacks());
+        assertEquals(0, origin.getInapplicable());
+        HintStats resolver = monitor.getResolverStats().get(
+                ReflectionResolver.class.getName());
+        assertNotNull(resolver);
+        assertEquals(1, resolver.getHits());
+        assertEquals(1, resolver.getFallbacks());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(
+                "org.trimou:type=ResolverHintMonitor,name=test");
+        server.registerMBean(monitor, name);
+        try {
+            TabularData data = (TabularData) server.getAttribute(name,
+                    "OriginStats");
+            assertTrue(data.size() > 0);
+            server.invoke(name, "clearData", null, null);
+        } finally {
+            server.unregisterMBean(name);
+        }
+        assertEquals(0, monitor.getOriginStats().get("hint_monitor:1 name")
+                .getHits());
+    }
+
+}
@@ -0,0 +1,80 @@
+package org.trimou.engine.listener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Martin Kouba
+ */
+public class RingBufferTest {
+
+    @Test
+    public void testCapacity() {
+        RingBuffer<String> buffer = new RingBuffer<String>(3);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer("" + i));
+        }
+        // Rounded up to 4
+        assertFalse(buffer.offer("4"));
+        assertEquals(4, buffer.size());
+        assertEquals("0", buffer.poll());
+        assertTrue(buffer.offer("4"));
+        buffer.clear();
+        assertEquals(0, buffer.size());
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        final int producers = 4;
+        final int elements = 10000;
+        final RingBuffer<Integer> buffer = new RingBuffer<Integer>(64);
+        final CountDownLatch latch = new CountDownLatch(producers);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            for (int i = 0; i < producers; i++) {
+                final int offset = i * elements;
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < elements; j++) {
+                            while (!buffer.offer(offset + j)) {
+                                Thread.yield();
+                            }
+                        }
+                        latch.countDown();
+                    }
+                });
+            }
+            BitSet received = new BitSet(producers * elements);
+            int count = 0;
+            long timeout = System.currentTimeMillis() + 10000;
+            while (count < producers * elements
+                    && System.currentTimeMillis() < timeout) {
+                Integer element = buffer.poll();
+                if (element != null) {
+                    assertFalse(received.get(element));
+                    received.set(element);
+                    count++;
+                }
+            }
+            assertTrue(latch.await(1, TimeUnit.SECONDS));
+            assertEquals(producers * elements, count);
+            assertNull(buffer.poll());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
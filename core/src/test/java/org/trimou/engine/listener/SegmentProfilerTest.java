@@ -0,0 +1,104 @@
+package org.trimou.engine.listener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.trimou.AbstractEngineTest;
+import org.trimou.Mustache;
+import org.trimou.engine.MustacheEngine;
+import org.trimou.engine.MustacheEngineBuilder;
+import org.trimou.engine.listener.SegmentProfiler.SegmentStats;
+import org.trimou.engine.locator.MapTemplateLocator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ *
+ * @author Martin Kouba
+ */
+public class SegmentProfilerTest extends AbstractEngineTest {
+
+    @Override
+    @Before
+    public void buildEngine() {
+    }
+
+    @Test
+    public void testProfiling() {
+        SegmentProfiler profiler = new SegmentProfiler();
+        MustacheEngine engine = MustacheEngineBuilder
+                .newBuilder()
+                .addMustacheListener(profiler)
+                .addTemplateLocator(
+                        new MapTemplateLocator(ImmutableMap.of("item",
+                                "{{#if this}}{{this}}{{/if}}")))
+                .build();
+        Mustache mustache = engine.compileMustache("profiler",
+                "{{#each this}}{{>item}}{{/each}}|\n{{^this}}none{{/this}}");
+        assertEquals("12|\n", mustache.render(ImmutableList.of(1, 2)));
+        assertFalse(profiler.isProfiling());
+
+        Set<SegmentStats> stats = profiler.getStats();
+        SegmentStats root = find(stats, "profiler");
+        SegmentStats each = find(stats, "profiler:1 SECTION each this");
+        SegmentStats partial = find(stats, "profiler:1 PARTIAL item");
+        SegmentStats ifHelper = find(stats, "item:1 SECTION if this");
+        SegmentStats inverted = find(stats, "profiler:2 INVERTED_SECTION this");
+        assertEquals(1, root.getCalls());
+        assertEquals(1, each.getCalls());
+        assertEquals(2, partial.getCalls());
+        assertEquals(2, ifHelper.getCalls());
+        assertEquals(1, inverted.getCalls());
+        assertTrue(root.getTotalTime() >= each.getTotalTime());
+        assertTrue(each.getTotalTime() >= each.getSelfTime());
+
+        String stacks = profiler.getCollapsedStacks();
+        assertTrue(stacks
+                .contains("profiler;profiler:1 SECTION each this;profiler:1 PARTIAL item;item:1 SECTION if this "));
+        assertTrue(stacks.contains("profiler;profiler:2 INVERTED_SECTION this "));
+
+        profiler.clearData();
+        assertTrue(profiler.getStats().isEmpty());
+        assertEquals("", profiler.getCollapsedStacks());
+    }
+
+    @Test
+    public void testSamplingAndDisabling() {
+        SegmentProfiler profiler = new SegmentProfiler(3, null);
+        MustacheEngine engine = MustacheEngineBuilder.newBuilder()
+                .addMustacheListener(profiler).build();
+        Mustache mustache = engine.compileMustache("sampling",
+                "{{#this}}{{.}}{{/this}}");
+        for (int i = 0; i < 6; i++) {
+            mustache.render(ImmutableList.of(1));
+        }
+        assertEquals(2, find(profiler.getStats(), "sampling").getCalls());
+
+        profiler.clearData();
+        profiler.disable();
+        for (int i = 0; i < 6; i++) {
+            mustache.render(ImmutableList.of(1));
+        }
+        assertTrue(profiler.getStats().isEmpty());
+        profiler.enable();
+        assertTrue(profiler.isEnabled());
+    }
+
+    private SegmentStats find(Set<SegmentStats> stats, String name) {
+        for (SegmentStats segmentStats : stats) {
+            if (segmentStats.getName().equals(name)) {
+                return segmentStats;
+            }
+        }
+        assertNotNull("Stats not found: " + name + " in " + stats, null);
+        return null;
+    }
+
+}
@@ -0,0 +1,73 @@
+package org.trimou.engine.locale;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.trimou.AbstractTest;
+import org.trimou.engine.MustacheEngine;
+import org.trimou.engine.MustacheEngineBuilder;
+import org.trimou.engine.config.AbstractConfigurationAware;
+import org.trimou.engine.resolver.i18n.NumberFormatResolver;
+import org.trimou.handlebars.HelpersBuilder;
+import org.trimou.handlebars.i18n.ResourceBundleHelper;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ *
+ * @author Martin Kouba
+ */
+public class RenderingLocaleTest extends AbstractTest {
+
+    @Test
+    public void testLocaleObtainedOncePerRendering() {
+        ThreadBoundLocaleSupport localeSupport = new ThreadBoundLocaleSupport();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        MustacheEngine engine = MustacheEngineBuilder
+                .newBuilder()
+                .setExecutorService(executor)
+                .setLocaleSupport(localeSupport)
+                .addResolver(new NumberFormatResolver())
+                .registerHelpers(HelpersBuilder.empty().addAsync().build())
+                .registerHelper("msg", new ResourceBundleHelper("messages"))
+                .build();
+        LOCALE.set(Locale.GERMAN);
+        try {
+            assertEquals(
+                    "Hallo|1.000|Hallo|1.000",
+                    engine.compileMustache(
+                            "rendering_locale",
+                            "{{msg 'echo_one'}}|{{num.format}}|{{#async}}{{msg 'echo_one'}}|{{num.format}}{{/async}}")
+                            .render(ImmutableMap.of("num", 1000)));
+            assertEquals(1, localeSupport.invocations.get());
+        } finally {
+            LOCALE.remove();
+            executor.shutdown();
+        }
+    }
+
+    private static final ThreadLocal<Locale> LOCALE = new ThreadLocal<Locale>();
+
+    private static class ThreadBoundLocaleSupport extends
+            AbstractConfigurationAware implements LocaleSupport {
+
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        @Override
+        public Locale getCurrentLocale() {
+            invocations.incrementAndGet();
+            Locale locale = LOCALE.get();
+            if (locale == null) {
+                throw new IllegalStateException("No locale bound");
+            }
+            return locale;
+        }
+
+    }
+
+}
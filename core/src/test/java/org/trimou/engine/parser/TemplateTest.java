@@ -0,0 +1,57 @@
+package org.trimou.engine.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.trimou.engine.MustacheEngine;
+import org.trimou.engine.MustacheEngineBuilder;
+import org.trimou.engine.config.EngineConfigurationKey;
+
+import com.google.common.base.Strings;
+
+/**
+ *
+ * @author Martin Kouba
+ */
+public class TemplateTest {
+
+    @Test
+    public void testOutputBufferPresized() {
+        Template template = (Template) MustacheEngineBuilder.newBuilder()
+                .build().compileMustache("template_presized", "{{this}}");
+        // No estimate yet
+        assertEquals(16, template.getInitialOutputCapacity());
+        String data = Strings.repeat("a", 1000);
+        assertEquals(data, template.render(data));
+        // The estimate plus some headroom
+        assertEquals(1125, template.getInitialOutputCapacity());
+        // Moving estimate: 1000 + (200 - 1000) / 4 = 800, plus headroom
+        template.render(Strings.repeat("a", 200));
+        assertEquals(900, template.getInitialOutputCapacity());
+    }
+
+    @Test
+    public void testOversizedOutputBufferNotRetained() {
+        MustacheEngine engine = MustacheEngineBuilder.newBuilder()
+                .setProperty(EngineConfigurationKey.REUSE_OUTPUT_BUFFER, true)
+                .build();
+        Template template = (Template) engine.compileMustache(
+                "template_reused_buffer", "{{this}}");
+        Template.OUTPUT_BUFFER.remove();
+        template.render("foo");
+        StringBuilder buffer = Template.OUTPUT_BUFFER.get();
+        assertNotNull(buffer);
+        assertEquals(0, buffer.length());
+        // The same buffer is reused
+        template.render("bar");
+        assertTrue(buffer == Template.OUTPUT_BUFFER.get());
+        String large = Strings.repeat("a",
+                Template.MAX_REUSED_OUTPUT_CAPACITY + 1);
+        assertEquals(large, template.render(large));
+        assertNull(Template.OUTPUT_BUFFER.get());
+    }
+
+}
@@ -11,6 +11,7 @@ import org.trimou.AbstractEngineTest;
 import org.trimou.ArchiveType;
 import org.trimou.Hammer;
 import org.trimou.Mustache;
+import org.trimou.engine.MustacheEngine;
 import org.trimou.engine.MustacheEngineBuilder;
 
 import com.google.common.base.Predicate;
@@ -97,6 +98,32 @@ public class ReflectionResolverTest extends AbstractEngineTest {
         assertEquals(1, resolver.getMemberCacheSize());
     }
 
+    @Test
+    public void testClassValueMemberCache() {
+
+        final ReflectionResolver resolver = new ReflectionResolver();
+        MustacheEngine engine = MustacheEngineBuilder
+                .newBuilder()
+                .omitServiceLoaderConfigurationExtensions()
+                .setProperty(
+                        ReflectionResolver.MEMBER_CACHE_CLASS_VALUE_ENABLED_KEY,
+                        true).addResolver(resolver).build();
+
+        Hammer hammer = new Hammer();
+        assertNull(resolver.resolve(null, "whatever", null));
+        assertEquals(Integer.valueOf(10), resolver.resolve(hammer, "age", null));
+        assertNull(resolver.resolve(hammer, "getAgeForName", null));
+        assertNotNull(resolver.resolve(ArchiveType.class, "JAR", null));
+        // The ComputingCache is not used at all
+        assertEquals(0, resolver.getMemberCacheSize());
+        resolver.invalidateMemberCache(null);
+        assertEquals(Integer.valueOf(10), resolver.resolve(hammer, "age", null));
+        assertEquals(
+                "Edgar|10|NAIL",
+                engine.compileMustache("reflection_resolver_class_value",
+                        "{{name}}|{{age}}|{{nail}}").render(hammer));
+    }
+
     @Test(expected = IllegalStateException.class)
     public void testMultipleInit() {
 
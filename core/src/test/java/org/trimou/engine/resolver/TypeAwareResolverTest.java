@@ -0,0 +1,140 @@
+package org.trimou.engine.resolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.trimou.Hammer;
+import org.trimou.engine.MustacheEngine;
+import org.trimou.engine.MustacheEngineBuilder;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ *
+ * @author Martin Kouba
+ */
+public class TypeAwareResolverTest {
+
+    @Test
+    public void testApplicableResolvers() {
+        MustacheEngine engine = MustacheEngineBuilder.newBuilder()
+                .omitServiceLoaderConfigurationExtensions()
+                .addResolver(new MapResolver())
+                .addResolver(new ReflectionResolver())
+                .addResolver(new CombinedIndexResolver())
+                .addResolver(new ThisResolver()).build();
+        ApplicableResolvers applicable = ApplicableResolvers.of(engine
+                .getConfiguration());
+        List<Resolver> forMap = Arrays.asList(applicable
+                .get(ImmutableMap.of("foo", "bar")));
+        assertEquals(3, forMap.size());
+        assertTrue(forMap.get(1) instanceof MapResolver);
+        List<Resolver> forHammer = Arrays.asList(applicable
+                .get(new Hammer()));
+        assertEquals(2, forHammer.size());
+        assertTrue(forHammer.get(0) instanceof ThisResolver);
+        assertTrue(forHammer.get(1) instanceof ReflectionResolver);
+        assertEquals(3, applicable.get(new int[] { 1 }).length);
+        assertEquals(0,
+                applicable.get(null).length);
+    }
+
+    @Test
+    public void testInterpolation() {
+        final AtomicInteger invocations = new AtomicInteger();
+        MustacheEngine engine = MustacheEngineBuilder.newBuilder()
+                .addResolver(new StringOnlyResolver(invocations)).build();
+        assertEquals(
+                "HELLO||",
+                engine.compileMustache("type_aware_resolver",
+                        "{{#each this}}{{upper}}|{{/each}}").render(
+                        new Object[] { "hello", Integer.valueOf(1) }));
+        // The resolver should be only invoked for the string
+        assertEquals(1, invocations.get());
+    }
+
+    @Test
+    public void testSubclassOverridingResolve() {
+        MustacheEngine engine = MustacheEngineBuilder.newBuilder()
+                .omitServiceLoaderConfigurationExtensions()
+                .addResolver(new MapResolver() {
+                    @Override
+                    public Object resolve(Object contextObject, String name,
+                            ResolutionContext context) {
+                        if (contextObject instanceof String
+                                && "upper".equals(name)) {
+                            return contextObject.toString().toUpperCase();
+                        }
+                        return super.resolve(contextObject, name, context);
+                    }
+                }).build();
+        // The inherited isApplicable() must not filter out the resolver
+        assertEquals("HELLO",
+                engine.compileMustache("type_aware_resolver_subclass",
+                        "{{upper}}").render("hello"));
+        assertEquals(1, ApplicableResolvers.of(engine.getConfiguration())
+                .get("hello").length);
+    }
+
+    @Test
+    public void testEngineNotPinned() throws InterruptedException {
+        MustacheEngine engine = MustacheEngineBuilder.newBuilder().build();
+        assertEquals("HELLO", engine.compileMustache("type_aware_resolver_gc",
+                "{{this.toUpperCase}}").render("hello"));
+        WeakReference<MustacheEngine> engineRef = new WeakReference<MustacheEngine>(
+                engine);
+        engine = null;
+        for (int i = 0; i < 50 && engineRef.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(engineRef.get());
+    }
+
+    @Test
+    public void testBuiltinResolvers() {
+        assertFalse(new MapResolver().isApplicable(null));
+        assertTrue(new MapResolver().isApplicable(ImmutableMap.class));
+        assertTrue(new MapResolver().isApplicable(Mapper.class));
+        assertFalse(new ListIndexResolver().isApplicable(String.class));
+        assertTrue(new ArrayIndexResolver().isApplicable(int[].class));
+        assertTrue(new DummyTransformResolver(1, "foo").isApplicable(null));
+        assertFalse(new ReflectionResolver().isApplicable(null));
+    }
+
+    private static class StringOnlyResolver extends AbstractResolver implements
+            TypeAwareResolver {
+
+        private final AtomicInteger invocations;
+
+        StringOnlyResolver(AtomicInteger invocations) {
+            super(1);
+            this.invocations = invocations;
+        }
+
+        @Override
+        public Object resolve(Object contextObject, String name,
+                ResolutionContext context) {
+            invocations.incrementAndGet();
+            if (contextObject instanceof String && "upper".equals(name)) {
+                return contextObject.toString().toUpperCase();
+            }
+            return null;
+        }
+
+        @Override
+        public boolean isApplicable(Class<?> contextObjectType) {
+            return String.class.equals(contextObjectType);
+        }
+
+    }
+
+}
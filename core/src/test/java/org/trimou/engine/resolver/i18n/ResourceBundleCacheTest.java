@@ -0,0 +1,105 @@
+package org.trimou.engine.resolver.i18n;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+
+import org.junit.Test;
+import org.trimou.engine.MustacheEngineBuilder;
+import org.trimou.engine.resolver.i18n.ResourceBundleCache.Messages;
+
+/**
+ *
+ * @author Martin Kouba
+ */
+public class ResourceBundleCacheTest {
+
+    @Test
+    public void testMessages() {
+        ResourceBundleCache cache = new ResourceBundleCache("test",
+                MustacheEngineBuilder.newBuilder().build().getConfiguration()
+                        .getComputingCacheFactory(), 0, 10);
+        Messages messages = cache.get("messages", Locale.ENGLISH);
+        assertSame(messages, cache.get("messages", Locale.ENGLISH));
+        assertTrue(messages.containsKey("echo_one"));
+        assertFalse(messages.containsKey("echo_none"));
+        assertEquals("Hello", messages.getString("echo_one"));
+        assertNull(messages.getObject("echo_none"));
+        assertNull(messages.getMessageFormat("echo_none"));
+        assertNotSame(messages.getMessageFormat("echo.messageformat"),
+                messages.getMessageFormat("echo.messageformat"));
+        assertEquals("Hello Martin!",
+                messages.getMessageFormat("echo.messageformat").format(
+                        new Object[] { "Martin" }));
+        assertEquals("Hallo", cache.get("messages", Locale.GERMAN).getString("echo_one"));
+        cache.clear();
+        assertNotSame(messages, cache.get("messages", Locale.ENGLISH));
+        try {
+            cache.get("nonexisting_bundle", Locale.ENGLISH);
+            fail();
+        } catch (MissingResourceException expected) {
+        }
+    }
+
+    @Test
+    public void testExpiration() throws InterruptedException {
+        ResourceBundleCache cache = new ResourceBundleCache("test",
+                MustacheEngineBuilder.newBuilder().build().getConfiguration()
+                        .getComputingCacheFactory(), 10, 10);
+        Messages messages = cache.get("messages", Locale.ENGLISH);
+        Thread.sleep(50);
+        assertNotSame(messages, cache.get("messages", Locale.ENGLISH));
+        assertEquals("Hello", cache.get("messages", Locale.ENGLISH)
+                .getString("echo_one"));
+    }
+
+    @Test
+    public void testBundleLocale() {
+        ResourceBundleCache cache = new ResourceBundleCache("test",
+                MustacheEngineBuilder.newBuilder().build().getConfiguration()
+                        .getComputingCacheFactory(), 0, 1);
+        Messages messages = cache.get("messages", Locale.US);
+        // Both requests are served by the messages_en bundle
+        assertSame(messages, cache.get("messages", Locale.UK));
+        assertEquals("Hallo", cache.get("messages", Locale.GERMAN)
+                .getString("echo_one"));
+        cache.get("messages", new Locale("cs"));
+        // Bounded
+        assertNotSame(messages, cache.get("messages", Locale.US));
+    }
+
+    @Test
+    public void testDuplicateKeys() {
+        ResourceBundleCache cache = new ResourceBundleCache("test",
+                MustacheEngineBuilder.newBuilder().build().getConfiguration()
+                        .getComputingCacheFactory(), 0, 10);
+        assertEquals("bar", cache.get(DuplicateKeysBundle.class.getName(),
+                Locale.ENGLISH).getString("foo"));
+    }
+
+    public static class DuplicateKeysBundle extends ResourceBundle {
+
+        @Override
+        protected Object handleGetObject(String key) {
+            return "foo".equals(key) ? "bar" : null;
+        }
+
+        @Override
+        public Enumeration<String> getKeys() {
+            return Collections.enumeration(Arrays.asList("foo", "foo"));
+        }
+
+    }
+
+}
@@ -2,13 +2,23 @@ package org.trimou.engine.segment;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 
 import org.junit.Test;
 import org.trimou.AbstractEngineTest;
 import org.trimou.Hammer;
 import org.trimou.Mustache;
+import org.trimou.engine.MustacheEngine;
+import org.trimou.engine.MustacheEngineBuilder;
+import org.trimou.engine.config.EngineConfigurationKey;
+import org.trimou.engine.locator.MapTemplateLocator;
 import org.trimou.engine.parser.Template;
+import org.trimou.engine.resolver.AbstractResolver;
+import org.trimou.engine.resolver.ResolutionContext;
+import org.trimou.handlebars.HelpersBuilder;
 import org.trimou.lambda.InputProcessingLambda;
 import org.trimou.lambda.Lambda;
 import org.trimou.lambda.SpecCompliantLambda;
@@ -162,4 +172,104 @@ public class SectionSegmentTest extends AbstractEngineTest {
                 mustache.render(new String[] { "1", "2", "3" }));
     }
 
+    @Test
+    public void testOnePassIterable() {
+        Mustache mustache = engine.compileMustache("one_pass_iterable",
+                "{{#this}}{{this}}{{#iter.isLast}}!{{/iter.isLast}}{{#iterHasNext}},{{/iterHasNext}}{{/this}}");
+        assertEquals("1,2,3!",
+                mustache.render(new OnePassIterable(ImmutableList.of(1, 2, 3))));
+        assertEquals("",
+                mustache.render(new OnePassIterable(ImmutableList.of())));
+        mustache = engine.compileMustache("one_pass_iterable_each",
+                "{{#each this}}{{this}}{{#iter.isLast}}!{{/iter.isLast}}{{#iterHasNext}},{{/iterHasNext}}{{/each}}");
+        assertEquals("1,2!",
+                mustache.render(new OnePassIterable(ImmutableList.of(1, 2))));
+    }
+
+    @Test
+    public void testSkipUnusedIterationMeta() {
+        final List<Object> contextObjects = new ArrayList<Object>();
+        MustacheEngine engine = MustacheEngineBuilder
+                .newBuilder()
+                .setProperty(
+                        EngineConfigurationKey.SKIP_UNUSED_ITERATION_METADATA,
+                        true)
+                .addGlobalData("prefix", "iter")
+                .registerHelpers(HelpersBuilder.empty().addEval().build())
+                .addTemplateLocator(
+                        new MapTemplateLocator(ImmutableMap.of(
+                                "skip_iteration_meta_partial",
+                                "{{this}}{{#iter.hasNext}},{{/iter.hasNext}}")))
+                .addResolver(new AbstractResolver(100) {
+                    @Override
+                    public Object resolve(Object contextObject, String name,
+                            ResolutionContext context) {
+                        if ("probe".equals(name)) {
+                            contextObjects.add(contextObject);
+                        }
+                        return null;
+                    }
+                }).build();
+        List<Integer> data = ImmutableList.of(1, 2);
+
+        assertEquals("12", engine.compileMustache("skip_iteration_meta1",
+                "{{#this}}{{this}}{{probe}}{{/this}}").render(data));
+        assertEquals(0, count(contextObjects, ImmutableIterationMeta.class));
+
+        contextObjects.clear();
+        assertEquals("12", engine.compileMustache("skip_iteration_meta2",
+                "{{#this}}{{this}}{{probe}}{{/this}}").render(new int[] { 1,
+                2 }));
+        assertEquals(0, count(contextObjects, ImmutableIterationMeta.class));
+
+        // Used
+        contextObjects.clear();
+        assertEquals("1:12:2", engine.compileMustache("skip_iteration_meta3",
+                "{{#this}}{{this}}:{{iter.index}}{{probe}}{{/this}}").render(data));
+        assertEquals(2, count(contextObjects, ImmutableIterationMeta.class));
+        assertEquals("1,2", engine.compileMustache("skip_iteration_meta4",
+                "{{#this}}{{this}}{{#iterHasNext}},{{/iterHasNext}}{{/this}}")
+                .render(data));
+        assertEquals("1,2", engine.compileMustache("skip_iteration_meta5",
+                "{{#this}}{{#with this}}{{this}}{{#iter.hasNext}},{{/iter.hasNext}}{{/with}}{{/this}}")
+                .render(data));
+        assertEquals("1,2", engine.compileMustache("skip_iteration_meta6",
+                "{{#this}}{{>skip_iteration_meta_partial}}{{/this}}").render(data));
+        assertEquals("1122", engine.compileMustache("skip_iteration_meta7",
+                "{{#this}}{{this}}{{eval prefix 'index'}}{{/this}}")
+                .render(data));
+    }
+
+    private static int count(List<Object> objects, Class<?> type) {
+        int count = 0;
+        for (Object object : objects) {
+            if (type.isInstance(object)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static class OnePassIterable implements Iterable<Object> {
+
+        private final Iterator<?> iterator;
+
+        private boolean used;
+
+        OnePassIterable(Iterable<?> elements) {
+            this.iterator = elements.iterator();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Iterator<Object> iterator() {
+            if (used) {
+                throw new IllegalStateException();
+            }
+            used = true;
+            return (Iterator<Object>) iterator;
+        }
+
+    }
+
 }
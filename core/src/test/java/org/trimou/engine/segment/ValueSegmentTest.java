@@ -2,14 +2,17 @@ package org.trimou.engine.segment;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.trimou.AbstractEngineTest;
+import org.trimou.engine.MustacheEngine;
 import org.trimou.engine.MustacheEngineBuilder;
 import org.trimou.engine.config.EngineConfigurationKey;
 import org.trimou.engine.interpolation.ThrowingExceptionMissingValueHandler;
+import org.trimou.engine.parser.Template;
 import org.trimou.exception.MustacheException;
 import org.trimou.exception.MustacheProblem;
 import org.trimou.lambda.InputProcessingLambda;
@@ -122,4 +125,19 @@ public class ValueSegmentTest extends AbstractEngineTest {
         }
     }
 
+    @Test
+    public void testTextShared() {
+        MustacheEngine engine = MustacheEngineBuilder.newBuilder().build();
+        Template foo = (Template) engine.compileMustache("foo",
+                "{{" + new String("item.name") + "}}");
+        Template bar = (Template) engine.compileMustache("bar",
+                "{{" + new String("item.name") + "}}");
+        Segment fooValue = foo.getRootSegment().getSegments().get(0);
+        Segment barValue = bar.getRootSegment().getSegments().get(0);
+        assertSame(fooValue.getText(), barValue.getText());
+        assertSame(fooValue.getTagInfo(), fooValue.getTagInfo());
+        assertEquals(1, fooValue.getTagInfo().getLine());
+        assertEquals("item.name", fooValue.getTagInfo().getText());
+    }
+
 }
@@ -9,6 +9,7 @@ import java.util.Set;
 
 import org.junit.Test;
 import org.trimou.AbstractTest;
+import org.trimou.Hammer;
 import org.trimou.engine.MustacheEngine;
 import org.trimou.engine.MustacheEngineBuilder;
 import org.trimou.engine.MustacheTagInfo;
@@ -90,4 +91,28 @@ public class EvalHelperTest extends AbstractTest {
                         "{{#eval 'foo' 'bar'}}{{this}}{{/eval}}").render(null));
     }
 
+    @Test
+    public void testKeyCache() {
+        List<Object> data = ImmutableList.<Object> of(new Hammer(10),
+                ImmutableMap.of("age", 20), new Hammer(30),
+                ImmutableMap.of("name", "foo"));
+        String template = "{{#each this}}{{eval 'age'}}|{{/each}}";
+        String expected = "10|20|30||";
+        assertEquals(
+                expected,
+                MustacheEngineBuilder.newBuilder()
+                        .registerHelpers(HelpersBuilder.empty().addEval().build())
+                        .build().compileMustache("eval_key_cache", template)
+                        .render(data));
+        assertEquals(
+                expected,
+                MustacheEngineBuilder
+                        .newBuilder()
+                        .setProperty(EvalHelper.KEY_CACHE_MAX_SIZE_KEY, 0)
+                        .registerHelpers(HelpersBuilder.empty().addEval().build())
+                        .build()
+                        .compileMustache("eval_key_cache_disabled", template)
+                        .render(data));
+    }
+
 }
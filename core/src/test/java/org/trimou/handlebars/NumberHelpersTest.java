@@ -3,10 +3,13 @@ package org.trimou.handlebars;
 import static org.junit.Assert.assertEquals;
 import static org.trimou.AssertUtil.assertCompilationFails;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.Map;
 
 import org.junit.Test;
 import org.trimou.AbstractTest;
+import org.trimou.Mustache;
 import org.trimou.engine.MustacheEngine;
 import org.trimou.engine.MustacheEngineBuilder;
 import org.trimou.exception.MustacheProblem;
@@ -181,4 +184,42 @@ public class NumberHelpersTest extends AbstractTest {
                         .render(data));
     }
 
+    @Test
+    public void testNumericExpressionHelperOperands() {
+        MustacheEngine engine = MustacheEngineBuilder.newBuilder()
+                .registerHelpers(HelpersBuilder.empty().addNumExpr().build())
+                .build();
+        Map<String, Object> data = ImmutableMap.<String, Object> builder()
+                .put("int", Integer.valueOf(10)).put("long", Long.valueOf(10))
+                .put("double", Double.valueOf(10.0))
+                .put("half", Double.valueOf(0.5))
+                .put("decimal", new BigDecimal("10.00"))
+                .put("bigInt", new BigInteger("10")).put("string", "10.0")
+                .put("op", "lt").build();
+        assertEquals("yes", engine.compileMustache("number_operands_eq",
+                "{{#numExpr int long}}{{#numExpr long double}}"
+                        + "{{#numExpr double decimal}}{{#numExpr decimal bigInt}}"
+                        + "{{#numExpr bigInt string}}{{#numExpr string '10.000'}}"
+                        + "yes{{/numExpr}}{{/numExpr}}{{/numExpr}}"
+                        + "{{/numExpr}}{{/numExpr}}{{/numExpr}}").render(data));
+        assertEquals("yes", engine.compileMustache("number_operands_gt",
+                "{{#numExpr double half op='gt'}}{{#numExpr long '9.99' op='gt'}}"
+                        + "{{#numExpr half '0.4999' op='gt'}}yes"
+                        + "{{/numExpr}}{{/numExpr}}{{/numExpr}}").render(data));
+        assertEquals("yes", engine.compileMustache("number_operands_dynamic_op",
+                "{{#numExpr half int op=op}}yes{{/numExpr}}").render(data));
+        Mustache in = engine.compileMustache("number_operands_in",
+                "{{#numExpr this '0.5' '10.0' 20 '1E2' op='in'}}yes{{/numExpr}}");
+        assertEquals("yes", in.render(10));
+        assertEquals("yes", in.render(Long.valueOf(100)));
+        assertEquals("yes", in.render(0.5));
+        assertEquals("yes", in.render(new BigDecimal("20.0")));
+        assertEquals("yes", in.render("0.50"));
+        assertEquals("", in.render(Double.valueOf(10.5)));
+        assertEquals("", in.render(Long.valueOf(5)));
+        assertEquals("yes", engine.compileMustache("number_operands_in_dynamic",
+                "{{#numExpr half int half op='in'}}yes{{/numExpr}}")
+                .render(data));
+    }
+
 }
@@ -3,10 +3,13 @@ package org.trimou.handlebars;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -20,12 +23,14 @@ import org.trimou.engine.MustacheEngine;
 import org.trimou.engine.MustacheEngineBuilder;
 import org.trimou.engine.MustacheTagInfo;
 import org.trimou.engine.MustacheTagType;
+import org.trimou.engine.config.EngineConfigurationKey;
 import org.trimou.engine.locator.MapTemplateLocator;
 import org.trimou.engine.resolver.AbstractResolver;
 import org.trimou.engine.resolver.ResolutionContext;
 import org.trimou.engine.resource.ReleaseCallback;
 import org.trimou.exception.MustacheProblem;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
 /**
@@ -287,4 +292,83 @@ public class OptionsTest extends AbstractTest {
 
     }
 
+    @Test
+    public void testOptionsReuse() {
+        final List<Options> instances = new ArrayList<Options>();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            MustacheEngine engine = MustacheEngineBuilder
+                    .newBuilder()
+                    .setProperty(
+                            EngineConfigurationKey.HELPER_OPTIONS_REUSE_ENABLED,
+                            true)
+                    .setExecutorService(executor)
+                    .registerHelpers(HelpersBuilder.empty().addAsync().build())
+                    .registerHelper("test", new AbstractHelper() {
+                        @Override
+                        public void execute(Options options) {
+                            instances.add(options);
+                            options.append(options.getParameters().toString());
+                            options.append(options.getHash().toString());
+                        }
+                    })
+                    .addTemplateLocator(
+                            new MapTemplateLocator(ImmutableMap.of("node",
+                                    "{{name}}({{#each children}}{{test name}}{{>node}}{{/each}})")))
+                    .build();
+            assertEquals(
+                    "[1]{foo=1}[2]{foo=2}[3]{foo=3}",
+                    engine.compileMustache("helper_options_reuse",
+                            "{{#each this}}{{test this foo=this}}{{/each}}")
+                            .render(new int[] { 1, 2, 3 }));
+            // The same instance reused for each iteration
+            assertEquals(3, instances.size());
+            assertTrue(instances.get(0) == instances.get(1));
+            assertTrue(instances.get(1) == instances.get(2));
+            // Recursion
+            assertEquals(
+                    "a([b]{}b([c]{}c())[d]{}d())",
+                    engine.getMustache("node").render(
+                            ImmutableMap.of("name", "a", "children", ImmutableList
+                                    .of(ImmutableMap.of("name", "b", "children",
+                                            ImmutableList.of(ImmutableMap.of(
+                                                    "name", "c", "children",
+                                                    ImmutableList.of()))),
+                                            ImmutableMap.of("name", "d",
+                                                    "children", ImmutableList
+                                                            .of())))));
+            // Async
+            assertEquals(
+                    "[foo]{}|[foo]{}",
+                    engine.compileMustache("helper_options_reuse_async",
+                            "{{#async}}{{test this}}{{/async}}|{{test this}}")
+                            .render("foo"));
+            // Failed parameter resolution must release the pooled instance
+            for (int i = 0; i < 40; i++) {
+                try {
+                    engine.compileMustache("helper_options_reuse_fail",
+                            "{{test fail}}").render(new Failing());
+                    fail();
+                } catch (RuntimeException expected) {
+                }
+            }
+            instances.clear();
+            engine.compileMustache("helper_options_reuse_after_fail",
+                    "{{#each this}}{{test this}}{{/each}}").render(
+                    new int[] { 1, 2 });
+            assertEquals(2, instances.size());
+            assertTrue(instances.get(0) == instances.get(1));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public static class Failing {
+
+        public String getFail() {
+            throw new IllegalStateException();
+        }
+
+    }
+
 }
@@ -6,6 +6,7 @@ import org.junit.Test;
 import org.trimou.AbstractTest;
 import org.trimou.ArchiveType;
 import org.trimou.Hammer;
+import org.trimou.Mustache;
 import org.trimou.MustacheExceptionAssert;
 import org.trimou.engine.MustacheEngine;
 import org.trimou.engine.MustacheEngineBuilder;
@@ -133,4 +134,94 @@ public class SwitchHelperTest extends AbstractTest {
                         .render("foo").trim());
     }
 
+    @Test
+    public void testSwitchHelperLiteralDispatch() {
+
+        final MustacheEngine engine = MustacheEngineBuilder.newBuilder()
+                .addGlobalData("bar", "bar")
+                .registerHelpers(
+                        HelpersBuilder.empty().addSwitch().build())
+                .build();
+
+        StringBuilder template = new StringBuilder("{{#switch this}}");
+        for (int i = 0; i < 20; i++) {
+            template.append("{{#case " + i + " break=\"true\"}}" + i
+                    + "{{/case}}");
+        }
+        template.append("{{#default}}none{{/default}}{{/switch}}");
+        Mustache dispatch = engine.compileMustache("switch_helper_dispatch01",
+                template.toString());
+        assertEquals("0", dispatch.render(0));
+        assertEquals("13", dispatch.render(13));
+        assertEquals("none", dispatch.render(20));
+        assertEquals("none", dispatch.render("13"));
+
+        // Mixed literal and non-literal cases, fall-through
+        Mustache mixed = engine.compileMustache("switch_helper_dispatch02",
+                "{{#switch this}}"
+                        + "{{#case \"foo\"}}A{{/case}}"
+                        + "{{#case bar}}B{{/case}}"
+                        + "{{#case \"baz\" break=\"true\"}}C{{/case}}"
+                        + "{{#case \"foo\"}}D{{/case}}"
+                        + "{{#default}}E{{/default}}"
+                        + "{{/switch}}");
+        assertEquals("ABC", mixed.render("foo"));
+        assertEquals("BC", mixed.render("bar"));
+        assertEquals("C", mixed.render("baz"));
+        assertEquals("E", mixed.render("qux"));
+
+        // Case section which is not a direct child of the switch
+        assertEquals("AB", engine.compileMustache("switch_helper_dispatch03",
+                "{{#switch this}}"
+                        + "{{#if this}}{{#case \"foo\"}}A{{/case}}{{/if}}"
+                        + "{{#case \"foo\"}}B{{/case}}"
+                        + "{{/switch}}").render("foo"));
+    }
+
+    @Test
+    public void testSwitchHelperLiteralDispatchSkipsEquals() {
+        final MustacheEngine engine = MustacheEngineBuilder.newBuilder()
+                .registerHelpers(HelpersBuilder.empty().addSwitch().build())
+                .build();
+        StringBuilder template = new StringBuilder("{{#switch this}}");
+        for (int i = 0; i < 10; i++) {
+            template.append("{{#case " + i + "}}" + i + "{{/case}}");
+        }
+        template.append("{{#default}}none{{/default}}{{/switch}}");
+        CountingEquals value = new CountingEquals();
+        assertEquals("none",
+                engine.compileMustache("switch_helper_dispatch04",
+                        template.toString()).render(value));
+        // The table lookup was used - no case compared the values
+        assertEquals(0, value.equalsInvocations);
+        // Non-literal cases fall back to equals()
+        assertEquals("none", engine.compileMustache("switch_helper_dispatch05",
+                "{{#switch this}}{{#case this.foo}}foo{{/case}}"
+                        + "{{#default}}none{{/default}}{{/switch}}")
+                .render(value));
+        assertEquals(1, value.equalsInvocations);
+    }
+
+    public static class CountingEquals {
+
+        int equalsInvocations = 0;
+
+        public String getFoo() {
+            return "foo";
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            equalsInvocations++;
+            return super.equals(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            // Does not collide with the hash codes of the literals
+            return 1000;
+        }
+
+    }
+
 }
@@ -0,0 +1,94 @@
+package org.trimou.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Martin Kouba
+ */
+public class FormatCacheTest {
+
+    @Test
+    public void testFormatsReused() {
+        FormatCache cache = new FormatCache();
+        TimeZone utc = TimeZone.getTimeZone("UTC");
+        assertEquals("00:00",
+                cache.formatPattern(0l, "HH:mm", Locale.ENGLISH, utc));
+        assertEquals("02:00", cache.formatPattern(0l, "HH:mm",
+                Locale.ENGLISH, TimeZone.getTimeZone("GMT+2")));
+        assertEquals(2, cache.size());
+        // The instance is returned to the pool
+        assertEquals(1, cache.getIdleCount("HH:mm", Locale.ENGLISH, utc));
+        cache.formatPattern(0l, "HH:mm", Locale.ENGLISH, utc);
+        assertEquals(1, cache.getIdleCount("HH:mm", Locale.ENGLISH, utc));
+        assertEquals(DateFormat.getDateTimeInstance(DateFormat.SHORT,
+                DateFormat.MEDIUM, Locale.ENGLISH).format(0l),
+                cache.formatDateTime(0l, DateFormat.SHORT, DateFormat.MEDIUM,
+                        Locale.ENGLISH, null));
+        assertEquals("1,000", cache.formatNumber(1000, Locale.ENGLISH));
+        assertEquals("50%", cache.formatPercent(0.5, Locale.ENGLISH));
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testMaxSize() {
+        FormatCache cache = new FormatCache(1);
+        cache.formatPattern(0l, "HH", Locale.ENGLISH, null);
+        cache.formatPattern(0l, "mm", Locale.ENGLISH, null);
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.getIdleCount("HH", Locale.ENGLISH, null));
+    }
+
+    @Test
+    public void testConcurrentFormatting() throws Exception {
+        final FormatCache cache = new FormatCache();
+        final String pattern = "yyyy-MM-dd HH:mm:ss.SSS";
+        final TimeZone utc = TimeZone.getTimeZone("UTC");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 4; i++) {
+                final long offset = i * 1000000000l;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        SimpleDateFormat expected = new SimpleDateFormat(
+                                pattern, Locale.ENGLISH);
+                        expected.setTimeZone(utc);
+                        for (long time = offset; time < offset + 1000; time++) {
+                            if (!expected.format(time).equals(
+                                    cache.formatPattern(time, pattern,
+                                            Locale.ENGLISH, utc))) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+            assertTrue(cache.getIdleCount(pattern, Locale.ENGLISH, utc)
+                    <= FormatCache.MAX_POOLED_INSTANCES);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
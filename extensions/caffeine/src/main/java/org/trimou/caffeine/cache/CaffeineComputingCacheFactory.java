@@ -0,0 +1,298 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.caffeine.cache;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.trimou.engine.cache.ComputingCache;
+import org.trimou.engine.cache.ComputingCache.Function;
+import org.trimou.engine.cache.ComputingCache.Listener;
+import org.trimou.engine.cache.ComputingCacheFactory;
+import org.trimou.engine.cache.ComputingCacheStats;
+import org.trimou.engine.cache.ComputingCacheStatsMXBean;
+import org.trimou.engine.config.AbstractConfigurationAware;
+import org.trimou.engine.config.ConfigurationKey;
+import org.trimou.engine.config.SimpleConfigurationKey;
+import org.trimou.exception.MustacheException;
+import org.trimou.exception.MustacheProblem;
+import org.trimou.util.Checker;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * A computing cache factory producing computing cache implementations backed
+ * by <a href="https://github.com/ben-manes/caffeine">Caffeine</a>. The
+ * size-based eviction makes use of the W-TinyLFU policy, i.e. the cache is not
+ * polluted by entries which are used only once.
+ *
+ * <p>
+ * Each cache consumer may be configured separately by means of a Caffeine
+ * specification string (e.g.
+ * <code>maximumSize=500,refreshAfterWrite=10m,weakKeys</code>), see also
+ * {@link #setSpec(String, String)} and
+ * {@link com.github.benmanes.caffeine.cache.CaffeineSpec}. The expiration
+ * timeout and the maximum size requested by the consumer are only applied if
+ * the specification does not define an expiration or a maximum size
+ * respectively. Weight-based eviction (<code>maximumWeight</code>) is not
+ * supported because no weigher can be supplied. Note that <code>weakKeys</code> implies identity comparison
+ * of keys and should be only used for caches keyed by canonical instances,
+ * e.g. {@link Class}.
+ * </p>
+ *
+ * <p>
+ * If the engine has an executor service configured (see
+ * {@link org.trimou.engine.config.Configuration#geExecutorService()}), it's
+ * used for asynchronous refresh (<code>refreshAfterWrite</code>) and
+ * maintenance.
+ * </p>
+ *
+ * <p>
+ * If {@link #STATS_ENABLED_KEY} is set to <code>true</code> the native
+ * Caffeine statistics are recorded per consumer id and available through
+ * {@link ComputingCacheStatsMXBean}.
+ * </p>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ */
+public class CaffeineComputingCacheFactory extends AbstractConfigurationAware
+        implements ComputingCacheFactory, ComputingCacheStatsMXBean {
+
+    /**
+     * Enable the statistics
+     */
+    public static final ConfigurationKey STATS_ENABLED_KEY = new SimpleConfigurationKey(
+            CaffeineComputingCacheFactory.class.getName() + ".statsEnabled",
+            false);
+
+    private final Map<String, String> specs;
+
+    private final ConcurrentHashMap<String, StatsCounter> counters;
+
+    private volatile boolean statsEnabled;
+
+    public CaffeineComputingCacheFactory() {
+        this.specs = new ConcurrentHashMap<String, String>();
+        this.counters = new ConcurrentHashMap<String, StatsCounter>();
+    }
+
+    /**
+     * Set the Caffeine specification string for the given consumer. Must be
+     * called before the engine is built.
+     *
+     * @param consumerId
+     *            E.g.
+     *            {@link org.trimou.engine.resolver.ReflectionResolver#COMPUTING_CACHE_CONSUMER_ID}
+     * @param spec
+     * @return self
+     * @throws MustacheException
+     *             If the spec defines <code>maximumWeight</code>
+     * @see com.github.benmanes.caffeine.cache.CaffeineSpec
+     */
+    public CaffeineComputingCacheFactory setSpec(String consumerId, String spec) {
+        Checker.checkArgumentsNotNull(consumerId, spec);
+        // Fail fast if the spec is not valid
+        Caffeine.from(spec);
+        if (getSpecKeys(spec).contains("maximumWeight")) {
+            throw new MustacheException(
+                    MustacheProblem.CONFIG_PROPERTY_INVALID_VALUE,
+                    "Weight-based eviction is not supported - use maximumSize instead [consumerId: %s, spec: %s]",
+                    consumerId, spec);
+        }
+        specs.put(consumerId, spec);
+        return this;
+    }
+
+    @Override
+    protected void init() {
+        statsEnabled = configuration
+                .getBooleanPropertyValue(STATS_ENABLED_KEY);
+    }
+
+    @Override
+    public Set<ConfigurationKey> getConfigurationKeys() {
+        return Collections.singleton(STATS_ENABLED_KEY);
+    }
+
+    @Override
+    public boolean isStatsEnabled() {
+        return statsEnabled;
+    }
+
+    @Override
+    public Map<String, ComputingCacheStats> getStats() {
+        ImmutableMap.Builder<String, ComputingCacheStats> builder = ImmutableMap
+                .builder();
+        for (Entry<String, StatsCounter> entry : counters.entrySet()) {
+            CacheStats stats = entry.getValue().snapshot();
+            builder.put(entry.getKey(), new ComputingCacheStats(entry
+                    .getKey(), stats.requestCount(), stats.missCount(),
+                    stats.loadCount(), stats.totalLoadTime(), stats
+                            .evictionCount()));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public <K, V> ComputingCache<K, V> create(String consumerId,
+            final Function<K, V> computingFunction, Long expirationTimeout,
+            Long maxSize, final Listener<K> listener) {
+
+        String spec = specs.get(consumerId);
+        Set<String> specKeys = getSpecKeys(spec);
+        Caffeine<Object, Object> builder = spec != null ? Caffeine.from(spec)
+                : Caffeine.newBuilder();
+
+        if (expirationTimeout != null && expirationTimeout > 0
+                && !specKeys.contains("expireAfterWrite")
+                && !specKeys.contains("expireAfterAccess")) {
+            builder.expireAfterWrite(expirationTimeout, TimeUnit.MILLISECONDS);
+        }
+        if (maxSize != null && !specKeys.contains("maximumSize")
+                && !specKeys.contains("maximumWeight")) {
+            builder.maximumSize(maxSize);
+        }
+        if (listener != null) {
+            builder.removalListener(new RemovalListener<Object, Object>() {
+                @SuppressWarnings("unchecked")
+                @Override
+                public void onRemoval(Object key, Object value,
+                        RemovalCause cause) {
+                    listener.entryInvalidated((K) key, cause.toString());
+                }
+            });
+        }
+        if (statsEnabled && !specKeys.contains("recordStats")) {
+            final StatsCounter counter = getCounter(consumerId);
+            builder.recordStats(new Supplier<StatsCounter>() {
+                @Override
+                public StatsCounter get() {
+                    return counter;
+                }
+            });
+        }
+        ExecutorService executor = configuration != null ? configuration
+                .geExecutorService() : null;
+        if (executor != null) {
+            builder.executor(executor);
+        }
+        return new LoadingCacheAdapter<K, V>(
+                builder.build(new CacheLoader<K, V>() {
+                    @Override
+                    public V load(K key) throws Exception {
+                        return computingFunction.compute(key);
+                    }
+                }));
+    }
+
+    private StatsCounter getCounter(String consumerId) {
+        StatsCounter counter = counters.get(consumerId);
+        if (counter == null) {
+            counter = new ConcurrentStatsCounter();
+            StatsCounter previous = counters.putIfAbsent(consumerId, counter);
+            if (previous != null) {
+                counter = previous;
+            }
+        }
+        return counter;
+    }
+
+    private static Set<String> getSpecKeys(String spec) {
+        if (spec == null) {
+            return Collections.emptySet();
+        }
+        Set<String> keys = new HashSet<String>();
+        for (String option : spec.split(",")) {
+            int idx = option.indexOf('=');
+            keys.add((idx != -1 ? option.substring(0, idx) : option).trim());
+        }
+        return keys;
+    }
+
+    /**
+     *
+     * @author Martin Kouba
+     *
+     * @param <K>
+     * @param <V>
+     */
+    private static class LoadingCacheAdapter<K, V> implements
+            ComputingCache<K, V> {
+
+        private final LoadingCache<K, V> cache;
+
+        LoadingCacheAdapter(LoadingCache<K, V> cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public V get(K key) {
+            return cache.get(key);
+        }
+
+        @Override
+        public V getIfPresent(K key) {
+            return cache.getIfPresent(key);
+        }
+
+        @Override
+        public void clear() {
+            cache.invalidateAll();
+            cache.cleanUp();
+        }
+
+        @Override
+        public long size() {
+            // Perform the pending maintenance, e.g. eviction
+            cache.cleanUp();
+            return cache.estimatedSize();
+        }
+
+        @Override
+        public void invalidate(KeyPredicate<K> keyPredicate) {
+            for (Iterator<K> iterator = cache.asMap().keySet().iterator(); iterator
+                    .hasNext();) {
+                if (keyPredicate.apply(iterator.next())) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        @Override
+        public Map<K, V> getAllPresent() {
+            return ImmutableMap.copyOf(cache.asMap());
+        }
+
+    }
+
+}
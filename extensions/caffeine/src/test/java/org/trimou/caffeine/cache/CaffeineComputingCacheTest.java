@@ -0,0 +1,79 @@
+package org.trimou.caffeine.cache;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.trimou.MustacheExceptionAssert;
+import org.trimou.engine.MustacheEngine;
+import org.trimou.engine.MustacheEngineBuilder;
+import org.trimou.engine.cache.ComputingCache;
+import org.trimou.engine.cache.ComputingCacheTest;
+import org.trimou.exception.MustacheProblem;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ *
+ * @author Martin Kouba
+ */
+public class CaffeineComputingCacheTest extends ComputingCacheTest {
+
+    @Override
+    public void buildEngine() {
+        engine = MustacheEngineBuilder.newBuilder()
+                .setComputingCacheFactory(new CaffeineComputingCacheFactory())
+                .build();
+    }
+
+    @Override
+    protected MustacheEngine buildStatsEngine() {
+        // Perform the maintenance (eviction) in the calling thread
+        return MustacheEngineBuilder
+                .newBuilder()
+                .setComputingCacheFactory(new CaffeineComputingCacheFactory())
+                .setExecutorService(MoreExecutors.sameThreadExecutor())
+                .setProperty(CaffeineComputingCacheFactory.STATS_ENABLED_KEY,
+                        true).build();
+    }
+
+    @Test
+    public void testSpec() {
+        MustacheEngine engine = MustacheEngineBuilder
+                .newBuilder()
+                .setComputingCacheFactory(
+                        new CaffeineComputingCacheFactory().setSpec("spec",
+                                "maximumSize=2")).build();
+        // The spec takes precedence
+        ComputingCache<Long, String> cache = engine
+                .getConfiguration()
+                .getComputingCacheFactory()
+                .create("spec", new ComputingCache.Function<Long, String>() {
+                    @Override
+                    public String compute(Long key) {
+                        return "" + key;
+                    }
+                }, null, 100l, null);
+        for (long i = 0; i < 10; i++) {
+            assertEquals("" + i, cache.get(i));
+        }
+        assertEquals(2, cache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSpec() {
+        new CaffeineComputingCacheFactory().setSpec("spec", "foo=bar");
+    }
+
+    @Test
+    public void testMaximumWeightNotSupported() {
+        MustacheExceptionAssert.expect(
+                MustacheProblem.CONFIG_PROPERTY_INVALID_VALUE).check(
+                new Runnable() {
+                    public void run() {
+                        new CaffeineComputingCacheFactory().setSpec("spec",
+                                "maximumWeight=1000,expireAfterWrite=1m");
+                    }
+                });
+    }
+
+}
@@ -46,9 +46,10 @@ public class CDIConfigurationExtension implements ConfigurationExtension {
             logger.warn("CDI extension not operational - unable to locate BeanManager");
             return;
         }
-        builder.addResolver(new CDIBeanResolver(beanManager));
+        RenderingContext renderingContext = getRenderingContext(beanManager);
+        builder.addResolver(new CDIBeanResolver(beanManager, renderingContext));
         builder.addMustacheListener(new RenderingContextListener(
-                getRenderingContext(beanManager)));
+                renderingContext));
     }
 
     private RenderingContext getRenderingContext(BeanManager beanManager) {
@@ -15,17 +15,22 @@
  */
 package org.trimou.cdi.context;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.enterprise.context.spi.Contextual;
 import javax.enterprise.context.spi.CreationalContext;
+import javax.enterprise.inject.spi.Bean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.trimou.engine.resource.ReleaseCallback;
 
 /**
- * Maps contextuals to instances for a certain thread.
+ * Maps contextuals to instances for a certain thread. Also holds the bean
+ * references reused during the rendering.
  *
  * @author Martin Kouba
  */
@@ -36,9 +41,15 @@ final class ContextualInstanceStore {
 
     private final Map<Contextual<?>, ContextualInstance<?>> contextualInstancesMap;
 
+    private final Map<Bean<?>, Object> referencesMap;
+
+    private final List<ReleaseCallback> destroyCallbacks;
+
     ContextualInstanceStore() {
         // Synchronization is not needed
         contextualInstancesMap = new HashMap<Contextual<?>, ContextualInstance<?>>();
+        referencesMap = new HashMap<Bean<?>, Object>();
+        destroyCallbacks = new ArrayList<ReleaseCallback>();
     }
 
     @SuppressWarnings("unchecked")
@@ -57,7 +68,28 @@ final class ContextualInstanceStore {
         return contextualInstance;
     }
 
+    Object getReference(Bean<?> bean) {
+        return referencesMap.get(bean);
+    }
+
+    void putReference(Bean<?> bean, Object reference,
+            ReleaseCallback destroyCallback) {
+        referencesMap.put(bean, reference);
+        if (destroyCallback != null) {
+            destroyCallbacks.add(destroyCallback);
+        }
+    }
+
     void destroy() {
+        referencesMap.clear();
+        for (ReleaseCallback callback : destroyCallbacks) {
+            try {
+                callback.release();
+            } catch (Exception e) {
+                logger.warn("Unable to destroy the bean reference", e);
+            }
+        }
+        destroyCallbacks.clear();
         for (ContextualInstance<?> contextualInstance : contextualInstancesMap
                 .values()) {
             logger.trace("Destroying contextual instance [contextual: {}]",
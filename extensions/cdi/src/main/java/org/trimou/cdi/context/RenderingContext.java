@@ -23,10 +23,12 @@ import javax.enterprise.context.ContextNotActiveException;
 import javax.enterprise.context.spi.Context;
 import javax.enterprise.context.spi.Contextual;
 import javax.enterprise.context.spi.CreationalContext;
+import javax.enterprise.inject.spi.Bean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.trimou.engine.listener.MustacheRenderingEvent;
+import org.trimou.engine.resource.ReleaseCallback;
 
 /**
  * A context for {@link RenderingScoped}.
@@ -76,6 +78,43 @@ public final class RenderingContext implements Context {
         return contextualInstanceStore.get() != null;
     }
 
+    /**
+     *
+     * @param bean
+     * @return the reference stored for the current rendering, or
+     *         <code>null</code> if no such reference exists or the context is
+     *         not active
+     * @since 1.8
+     */
+    public Object getReference(Bean<?> bean) {
+        ContextualInstanceStore store = contextualInstanceStore.get();
+        return store != null ? store.getReference(bean) : null;
+    }
+
+    /**
+     * Store the reference so that it can be reused during the current
+     * rendering.
+     *
+     * @param bean
+     * @param reference
+     * @param destroyCallback
+     *            The callback invoked when the context is destroyed, may be
+     *            <code>null</code>
+     * @return <code>true</code> if the reference was stored,
+     *         <code>false</code> if the context is not active
+     * @since 1.8
+     */
+    public boolean putReference(Bean<?> bean, Object reference,
+            ReleaseCallback destroyCallback) {
+        checkArgumentNotNull(bean);
+        ContextualInstanceStore store = contextualInstanceStore.get();
+        if (store == null) {
+            return false;
+        }
+        store.putReference(bean, reference, destroyCallback);
+        return true;
+    }
+
     void initialize(MustacheRenderingEvent event) {
         logger.debug("Rendering started - init context [template: {}]",
                 event.getMustacheName());
@@ -17,19 +17,22 @@ package org.trimou.cdi.resolver;
 
 import static org.trimou.engine.priority.Priorities.rightAfter;
 
-import java.util.Collections;
+import java.lang.annotation.Annotation;
 import java.util.Set;
 
+import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.context.Dependent;
 import javax.enterprise.context.spi.CreationalContext;
 import javax.enterprise.inject.AmbiguousResolutionException;
 import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanManager;
 import javax.inject.Named;
+import javax.inject.Singleton;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.trimou.cdi.BeanManagerLocator;
+import org.trimou.cdi.context.RenderingContext;
 import org.trimou.engine.cache.ComputingCache;
 import org.trimou.engine.config.ConfigurationKey;
 import org.trimou.engine.config.SimpleConfigurationKey;
@@ -37,20 +40,31 @@ import org.trimou.engine.priority.WithPriority;
 import org.trimou.engine.resolver.AbstractResolver;
 import org.trimou.engine.resolver.Hints;
 import org.trimou.engine.resolver.ResolutionContext;
+import org.trimou.engine.resolver.TypeAwareResolver;
 import org.trimou.engine.resource.ReleaseCallback;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
 
 /**
  * CDI beans resolver. Note that only beans with a name (i.e. annotated with
  * {@link Named}) are resolvable.
  *
  * Similarly to the CDI and Unified EL integration, instance of a dependent bean
- * exists to service just a single tag evaluation.
+ * exists to service just a single tag evaluation by default. If
+ * {@link #DEPENDENT_INSTANCES_REUSE_ENABLED_KEY} is set to <code>true</code>
+ * the instance is reused and destroyed once the rendering is finished.
+ *
+ * <p>
+ * If a {@link RenderingContext} is set, the bean references are reused during
+ * the rendering. Contextual instances of {@link ApplicationScoped} and
+ * {@link Singleton} beans are obtained directly, i.e. without a client proxy.
+ * </p>
  *
  * @author Martin Kouba
  */
-public class CDIBeanResolver extends AbstractResolver {
+public class CDIBeanResolver extends AbstractResolver implements
+        TypeAwareResolver {
 
     private static final Logger logger = LoggerFactory
             .getLogger(CDIBeanResolver.class);
@@ -63,8 +77,21 @@ public class CDIBeanResolver extends AbstractResolver {
     public static final ConfigurationKey BEAN_CACHE_MAX_SIZE_KEY = new SimpleConfigurationKey(
             CDIBeanResolver.class.getName() + ".beanCacheMaxSize", 1000l);
 
+    /**
+     * If set to <code>true</code> instances of {@link Dependent} beans are
+     * reused during rendering. Note that this only works if the
+     * {@link RenderingContext} is available.
+     */
+    public static final ConfigurationKey DEPENDENT_INSTANCES_REUSE_ENABLED_KEY = new SimpleConfigurationKey(
+            CDIBeanResolver.class.getName() + ".dependentInstancesReuseEnabled",
+            false);
+
     private BeanManager beanManager;
 
+    private RenderingContext renderingContext;
+
+    private boolean dependentInstancesReuseEnabled;
+
     private ComputingCache<String, Optional<Bean<?>>> beanCache;
 
     /**
@@ -101,6 +128,20 @@ public class CDIBeanResolver extends AbstractResolver {
         this.beanManager = beanManager;
     }
 
+    /**
+     *
+     * @param beanManager
+     * @param renderingContext
+     *            The context used to store the references reused during
+     *            rendering, may be <code>null</code>
+     * @since 1.8
+     */
+    public CDIBeanResolver(BeanManager beanManager,
+            RenderingContext renderingContext) {
+        this(beanManager);
+        this.renderingContext = renderingContext;
+    }
+
     @Override
     public Object resolve(Object contextObject, String name,
             ResolutionContext context) {
@@ -118,6 +159,12 @@ public class CDIBeanResolver extends AbstractResolver {
         return getReference(bean.get(), context);
     }
 
+    @Override
+    public boolean isApplicable(Class<?> contextObjectType) {
+        // Only context unrelated lookups are supported
+        return contextObjectType == null;
+    }
+
     @Override
     public void init() {
 
@@ -158,30 +205,63 @@ public class CDIBeanResolver extends AbstractResolver {
 
                     }
                 }, null, beanCacheMaxSize, null);
-        logger.debug("Initialized [beanCacheMaxSize: {}]", beanCacheMaxSize);
+        dependentInstancesReuseEnabled = configuration
+                .getBooleanPropertyValue(DEPENDENT_INSTANCES_REUSE_ENABLED_KEY);
+        logger.debug(
+                "Initialized [beanCacheMaxSize: {}, renderingContext: {}, dependentInstancesReuseEnabled: {}]",
+                beanCacheMaxSize, renderingContext != null,
+                dependentInstancesReuseEnabled);
     }
 
     @Override
     public Set<ConfigurationKey> getConfigurationKeys() {
-        return Collections
-                .<ConfigurationKey> singleton(BEAN_CACHE_MAX_SIZE_KEY);
+        return ImmutableSet.<ConfigurationKey> of(BEAN_CACHE_MAX_SIZE_KEY,
+                DEPENDENT_INSTANCES_REUSE_ENABLED_KEY);
     }
 
     private <T> Object getReference(Bean<T> bean, ResolutionContext context) {
 
-        CreationalContext<T> creationalContext = beanManager
-                .createCreationalContext(bean);
+        Class<? extends Annotation> scope = bean.getScope();
+        boolean isDependent = Dependent.class.equals(scope);
+        boolean reuse = renderingContext != null
+                && (!isDependent || dependentInstancesReuseEnabled);
 
-        if (Dependent.class.equals(bean.getScope())) {
-            T reference = bean.create(creationalContext);
-            context.registerReleaseCallback(new DependentDestroyCallback<T>(
-                    bean, creationalContext, reference));
-            return reference;
+        if (reuse) {
+            Object reference = renderingContext.getReference(bean);
+            if (reference != null) {
+                return reference;
+            }
+        }
 
+        CreationalContext<T> creationalContext = beanManager
+                .createCreationalContext(bean);
+        Object reference;
+
+        if (isDependent) {
+            T instance = bean.create(creationalContext);
+            ReleaseCallback destroyCallback = new DependentDestroyCallback<T>(
+                    bean, creationalContext, instance);
+            if (!reuse
+                    || !renderingContext.putReference(bean, instance,
+                            destroyCallback)) {
+                // Destroy the instance after the tag evaluation
+                context.registerReleaseCallback(destroyCallback);
+            }
+            return instance;
+        } else if (ApplicationScoped.class.equals(scope)
+                || Singleton.class.equals(scope)) {
+            // There is only one contextual instance - no need to go through
+            // the client proxy
+            reference = beanManager.getContext(scope).get(bean,
+                    creationalContext);
         } else {
-            return beanManager.getReference(bean, Object.class,
+            reference = beanManager.getReference(bean, Object.class,
                     creationalContext);
         }
+        if (reuse) {
+            renderingContext.putReference(bean, reference, null);
+        }
+        return reference;
     }
 
     @Override
@@ -3,8 +3,11 @@ package org.trimou.cdi;
 import static org.junit.Assert.assertEquals;
 
 import org.junit.Test;
+import org.trimou.cdi.resolver.CDIBeanResolver;
 import org.trimou.engine.MustacheEngine;
 import org.trimou.engine.MustacheEngineBuilder;
+import org.trimou.handlebars.BasicValueHelper;
+import org.trimou.handlebars.Options;
 
 /**
  *
@@ -21,4 +24,48 @@ public class CDIBeanResolverTest extends WeldSETest {
                         "{{appScopedBean.name}}").render(null));
     }
 
+    @Test
+    public void testApplicationScopedBeanNotProxied() {
+        MustacheEngine engine = MustacheEngineBuilder.newBuilder()
+                .registerHelper("className", new BasicValueHelper() {
+                    @Override
+                    public void execute(Options options) {
+                        append(options, options.getParameters().get(0)
+                                .getClass().getName());
+                    }
+                }).build();
+        assertEquals(
+                ApplicationScopedBean.class.getName(),
+                engine.compileMustache("cdi_bean_resolver_unproxied",
+                        "{{className appScopedBean}}").render(null));
+    }
+
+    @Test
+    public void testDependentInstancesReuse() {
+        String template = "{{dependentBean.id}}:{{dependentBean.id}}";
+
+        // Reuse disabled by default
+        MustacheEngine engine = MustacheEngineBuilder.newBuilder().build();
+        int created = DependentBean.CREATED.get();
+        int destroyed = DependentBean.DESTROYED.get();
+        engine.compileMustache("cdi_bean_resolver_dependent", template)
+                .render(null);
+        assertEquals(created + 2, DependentBean.CREATED.get());
+        assertEquals(destroyed + 2, DependentBean.DESTROYED.get());
+
+        engine = MustacheEngineBuilder
+                .newBuilder()
+                .setProperty(
+                        CDIBeanResolver.DEPENDENT_INSTANCES_REUSE_ENABLED_KEY,
+                        true).build();
+        created = DependentBean.CREATED.get();
+        destroyed = DependentBean.DESTROYED.get();
+        String result = engine.compileMustache(
+                "cdi_bean_resolver_dependent_reuse", template).render(null);
+        assertEquals(created + 1, DependentBean.CREATED.get());
+        assertEquals(destroyed + 1, DependentBean.DESTROYED.get());
+        String[] ids = result.split(":");
+        assertEquals(ids[0], ids[1]);
+    }
+
 }
@@ -26,6 +26,9 @@ import org.trimou.engine.resolver.ArrayIndexResolver;
 import org.trimou.engine.resolver.IndexResolver;
 import org.trimou.engine.resolver.ResolutionContext;
 import org.trimou.engine.resolver.Placeholder;
+import org.trimou.engine.resolver.TypeAwareResolver;
+import org.trimou.gson.stream.JsonObjectStream;
+import org.trimou.gson.stream.JsonStreams;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -33,13 +36,15 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 
 /**
- * Gson's parser API resolver.
+ * Gson's parser API resolver. The lazy data model created by
+ * {@link JsonStreams} is also supported.
  *
  * @author Martin Kouba
  * @see <a
  *      href="http://code.google.com/p/google-gson/">http://code.google.com/p/google-gson/</a>
  */
-public class JsonElementResolver extends IndexResolver {
+public class JsonElementResolver extends IndexResolver implements
+        TypeAwareResolver {
 
     public static final int JSON_ELEMENT_RESOLVER_PRIORITY = rightAfter(ArrayIndexResolver.ARRAY_RESOLVER_PRIORITY);
 
@@ -87,6 +92,12 @@ public class JsonElementResolver extends IndexResolver {
     public Object resolve(Object contextObject, String name,
             ResolutionContext context) {
 
+        if (contextObject instanceof JsonObjectStream) {
+            Object member = ((JsonObjectStream) contextObject).get(name);
+            return member instanceof JsonElement ? unwrapJsonElementIfNecessary((JsonElement) member)
+                    : member;
+        }
+
         if (contextObject == null || !(contextObject instanceof JsonElement)) {
             return null;
         }
@@ -112,6 +123,13 @@ public class JsonElementResolver extends IndexResolver {
         return null;
     }
 
+    @Override
+    public boolean isApplicable(Class<?> contextObjectType) {
+        return contextObjectType != null
+                && (JsonElement.class.isAssignableFrom(contextObjectType) || JsonObjectStream.class
+                        .equals(contextObjectType));
+    }
+
     @Override
     public void init() {
         unwrapJsonPrimitive = configuration
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.gson.stream;
+
+import java.io.IOException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * Base class for lazy JSON values backed by a {@link JsonReader}.
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ */
+abstract class AbstractJsonStream {
+
+    private static final JsonParser PARSER = new JsonParser();
+
+    protected final JsonReader reader;
+
+    protected boolean finished;
+
+    /**
+     *
+     * @param reader
+     *            The reader positioned right after the opening token
+     */
+    AbstractJsonStream(JsonReader reader) {
+        this.reader = reader;
+        this.finished = false;
+    }
+
+    /**
+     *
+     * @return <code>true</code> if the closing token was already consumed,
+     *         <code>false</code> otherwise
+     */
+    boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Read the rest of the value into memory so that the enclosing value may
+     * advance the reader.
+     *
+     * @return <code>true</code> if detached, <code>false</code> if not possible
+     *         (e.g. an array which is being iterated)
+     */
+    abstract boolean detach();
+
+    static JsonElement readElement(JsonReader reader) {
+        return PARSER.parse(reader);
+    }
+
+    static RuntimeException wrap(IOException e) {
+        if (e instanceof MalformedJsonException) {
+            return new JsonSyntaxException(e);
+        }
+        return new JsonIOException(e);
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.gson.stream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * A one-pass stream of JSON array elements. Each element is materialized when
+ * the iteration reaches it, and only the current element is held.
+ *
+ * <p>
+ * The stream can be iterated only once - {@link #iterator()} always returns the
+ * same iterator. Not thread-safe.
+ * </p>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ * @see JsonStreams
+ */
+public final class JsonArrayStream extends AbstractJsonStream implements
+        Iterable<JsonElement> {
+
+    private final Iterator<JsonElement> iterator;
+
+    private Iterator<JsonElement> buffered;
+
+    private boolean started;
+
+    JsonArrayStream(JsonReader reader) {
+        super(reader);
+        this.iterator = new StreamIterator();
+        this.started = false;
+    }
+
+    @Override
+    public Iterator<JsonElement> iterator() {
+        return iterator;
+    }
+
+    @Override
+    boolean detach() {
+        if (finished) {
+            return true;
+        }
+        if (started) {
+            return false;
+        }
+        List<JsonElement> elements = new ArrayList<JsonElement>();
+        try {
+            while (reader.hasNext()) {
+                elements.add(readElement(reader));
+            }
+            reader.endArray();
+        } catch (IOException e) {
+            throw wrap(e);
+        }
+        finished = true;
+        buffered = elements.iterator();
+        return true;
+    }
+
+    private class StreamIterator implements Iterator<JsonElement> {
+
+        @Override
+        public boolean hasNext() {
+            if (buffered != null) {
+                return buffered.hasNext();
+            }
+            if (finished) {
+                return false;
+            }
+            try {
+                if (reader.hasNext()) {
+                    return true;
+                }
+                reader.endArray();
+            } catch (IOException e) {
+                throw wrap(e);
+            }
+            finished = true;
+            return false;
+        }
+
+        @Override
+        public JsonElement next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (buffered != null) {
+                return buffered.next();
+            }
+            started = true;
+            return readElement(reader);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
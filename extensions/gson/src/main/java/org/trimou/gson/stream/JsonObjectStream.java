@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.gson.stream;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * A lazy JSON object. Members are read in the document order and only when
+ * needed, i.e. the reader is advanced until the requested member is found. The
+ * requested array and object members are not materialized but returned as
+ * {@link JsonArrayStream} and {@link JsonObjectStream} respectively. Other
+ * members the reader passes over are materialized.
+ *
+ * <p>
+ * A member located after an array stream which is being iterated is not
+ * accessible until the iteration is finished. Not thread-safe.
+ * </p>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ * @see JsonStreams
+ */
+public final class JsonObjectStream extends AbstractJsonStream {
+
+    private final Map<String, Object> members;
+
+    private AbstractJsonStream current;
+
+    JsonObjectStream(JsonReader reader) {
+        super(reader);
+        this.members = new HashMap<String, Object>();
+    }
+
+    /**
+     *
+     * @param name
+     * @return the member value ({@link JsonElement}, {@link JsonArrayStream} or
+     *         {@link JsonObjectStream}), or <code>null</code> if no such member
+     *         exists or is not accessible at the moment
+     */
+    public Object get(String name) {
+        Object value = members.get(name);
+        if (value != null) {
+            return value;
+        }
+        try {
+            while (!finished) {
+                if (current != null) {
+                    if (!current.detach()) {
+                        return null;
+                    }
+                    current = null;
+                }
+                if (!reader.hasNext()) {
+                    reader.endObject();
+                    finished = true;
+                    break;
+                }
+                String memberName = reader.nextName();
+                if (memberName.equals(name)) {
+                    value = readMember();
+                    members.put(memberName, value);
+                    return value;
+                }
+                members.put(memberName, readElement(reader));
+            }
+        } catch (IOException e) {
+            throw wrap(e);
+        }
+        return null;
+    }
+
+    @Override
+    boolean detach() {
+        if (finished) {
+            return true;
+        }
+        if (current != null) {
+            if (!current.detach()) {
+                return false;
+            }
+            current = null;
+        }
+        try {
+            while (reader.hasNext()) {
+                members.put(reader.nextName(), readElement(reader));
+            }
+            reader.endObject();
+        } catch (IOException e) {
+            throw wrap(e);
+        }
+        finished = true;
+        return true;
+    }
+
+    private Object readMember() throws IOException {
+        JsonToken token = reader.peek();
+        if (JsonToken.BEGIN_ARRAY.equals(token)) {
+            reader.beginArray();
+            current = new JsonArrayStream(reader);
+            return current;
+        } else if (JsonToken.BEGIN_OBJECT.equals(token)) {
+            reader.beginObject();
+            current = new JsonObjectStream(reader);
+            return current;
+        }
+        return readElement(reader);
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.gson.stream;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.trimou.gson.resolver.JsonElementResolver;
+
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Creates lazy JSON data models backed by a {@link JsonReader}. Unlike the
+ * tree model (see {@link JsonElement}) the whole document is never held in
+ * memory, e.g. a top-level array is iterated as a one-pass stream:
+ *
+ * <pre>
+ * Object data = JsonStreams.from(reader);
+ * mustache.render(data);
+ * </pre>
+ *
+ * The data model may be used for a single rendering only. The reader is not
+ * closed. {@link JsonElementResolver} must be registered.
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ * @see JsonArrayStream
+ * @see JsonObjectStream
+ */
+public final class JsonStreams {
+
+    private JsonStreams() {
+    }
+
+    /**
+     *
+     * @param reader
+     * @return the data model for the next JSON value - a
+     *         {@link JsonArrayStream}, {@link JsonObjectStream} or
+     *         {@link JsonElement} for primitive values
+     */
+    public static Object from(Reader reader) {
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true);
+        return from(jsonReader);
+    }
+
+    /**
+     *
+     * @param reader
+     * @return the data model for the next JSON value - a
+     *         {@link JsonArrayStream}, {@link JsonObjectStream} or
+     *         {@link JsonElement} for primitive values
+     */
+    public static Object from(JsonReader reader) {
+        try {
+            JsonToken token = reader.peek();
+            if (JsonToken.BEGIN_ARRAY.equals(token)) {
+                reader.beginArray();
+                return new JsonArrayStream(reader);
+            } else if (JsonToken.BEGIN_OBJECT.equals(token)) {
+                reader.beginObject();
+                return new JsonObjectStream(reader);
+            }
+        } catch (IOException e) {
+            throw AbstractJsonStream.wrap(e);
+        }
+        return AbstractJsonStream.readElement(reader);
+    }
+
+}
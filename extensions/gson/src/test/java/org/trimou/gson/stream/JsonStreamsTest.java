@@ -0,0 +1,116 @@
+package org.trimou.gson.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.StringReader;
+import java.util.Iterator;
+
+import org.junit.Test;
+import org.trimou.engine.MustacheEngine;
+import org.trimou.engine.MustacheEngineBuilder;
+import org.trimou.engine.resolver.MapResolver;
+import org.trimou.engine.resolver.ThisResolver;
+import org.trimou.gson.resolver.JsonElementResolver;
+import org.trimou.handlebars.HelpersBuilder;
+
+import com.google.gson.JsonElement;
+
+/**
+ *
+ * @author Martin Kouba
+ */
+public class JsonStreamsTest {
+
+    @Test
+    public void testInterpolation() throws FileNotFoundException {
+        assertEquals(
+                "Novy|Nova|home,mobile|Jim,true,5|30",
+                getEngine()
+                        .compileMustache(
+                                "json_stream_test",
+                                "{{lastName}}|{{address.street}}|{{#phoneNumbers}}{{type}}{{#iterHasNext}},{{/iterHasNext}}{{/phoneNumbers}}|{{#each aliases}}{{unwrapThis}}{{#if iterHasNext}},{{/if}}{{/each}}|{{age}}")
+                        .render(JsonStreams.from(new FileReader(new File(
+                                "src/test/resources/data.json")))));
+    }
+
+    @Test
+    public void testTopLevelArray() throws FileNotFoundException {
+        assertEquals(
+                "Jim,true,5!",
+                getEngine()
+                        .compileMustache(
+                                "json_stream_array_test",
+                                "{{#this}}{{unwrapThis}}{{#iterHasNext}},{{/iterHasNext}}{{#iterIsLast}}!{{/iterIsLast}}{{/this}}")
+                        .render(JsonStreams.from(new FileReader(new File(
+                                "src/test/resources/data_array.json")))));
+        assertEquals(
+                "empty",
+                getEngine().compileMustache("json_stream_empty_array_test",
+                        "{{#this}}{{.}}{{/this}}{{^this}}empty{{/this}}")
+                        .render(JsonStreams.from(new StringReader("[]"))));
+    }
+
+    @Test
+    public void testOnePass() {
+        JsonArrayStream stream = (JsonArrayStream) JsonStreams
+                .from(new StringReader("[1,{\"a\":2},[3]]"));
+        Iterator<JsonElement> iterator = stream.iterator();
+        assertTrue(iterator.hasNext());
+        assertEquals(1, iterator.next().getAsInt());
+        assertEquals(2, iterator.next().getAsJsonObject().get("a").getAsInt());
+        assertEquals(3, iterator.next().getAsJsonArray().get(0).getAsInt());
+        assertFalse(iterator.hasNext());
+        assertFalse(stream.iterator().hasNext());
+    }
+
+    @Test
+    public void testMemberOrder() {
+        JsonObjectStream object = (JsonObjectStream) JsonStreams
+                .from(new StringReader(
+                        "{\"items\":[1,2],\"total\":2,\"nested\":{\"foo\":[1]}}"));
+        assertEquals(2, ((JsonElement) object.get("total")).getAsInt());
+        JsonObjectStream nested = (JsonObjectStream) object.get("nested");
+        assertTrue(nested.get("foo") instanceof JsonArrayStream);
+        // Members the reader passes over are materialized
+        assertEquals(2, ((JsonElement) object.get("items")).getAsJsonArray()
+                .size());
+        assertNull(object.get("missing"));
+        assertNull(nested.get("missing"));
+        Iterator<JsonElement> items;
+
+        object = (JsonObjectStream) JsonStreams.from(new StringReader(
+                "{\"items\":[1,2],\"total\":2}"));
+        items = ((JsonArrayStream) object.get("items")).iterator();
+        items.next();
+        // Not accessible during iteration
+        assertNull(object.get("total"));
+        items.next();
+        assertFalse(items.hasNext());
+        assertEquals(2, ((JsonElement) object.get("total")).getAsInt());
+
+        object = (JsonObjectStream) JsonStreams.from(new StringReader(
+                "{\"items\":[1,2],\"total\":2}"));
+        JsonArrayStream stream = (JsonArrayStream) object.get("items");
+        // Not started yet - buffered
+        assertEquals(2, ((JsonElement) object.get("total")).getAsInt());
+        items = stream.iterator();
+        assertEquals(1, items.next().getAsInt());
+        assertEquals(2, items.next().getAsInt());
+        assertFalse(items.hasNext());
+    }
+
+    private MustacheEngine getEngine() {
+        return MustacheEngineBuilder.newBuilder()
+                .omitServiceLoaderConfigurationExtensions()
+                .addResolver(new ThisResolver()).addResolver(new MapResolver())
+                .addResolver(new JsonElementResolver())
+                .registerHelpers(HelpersBuilder.builtin().build()).build();
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.jackson.resolver;
+
+import static org.trimou.engine.priority.Priorities.rightAfter;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.trimou.engine.config.ConfigurationKey;
+import org.trimou.engine.config.SimpleConfigurationKey;
+import org.trimou.engine.resolver.ArrayIndexResolver;
+import org.trimou.engine.resolver.IndexResolver;
+import org.trimou.engine.resolver.Placeholder;
+import org.trimou.engine.resolver.ResolutionContext;
+import org.trimou.engine.resolver.TypeAwareResolver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+
+/**
+ * Jackson's tree model resolver. Supports {@link ObjectNode} fields,
+ * {@link ArrayNode} index-based access and unwrapping of value nodes. Note that
+ * {@link ArrayNode} is {@link Iterable} so it's possible to iterate over the
+ * elements in a section.
+ *
+ * <p>
+ * Resolved object nodes are wrapped - see {@link ObjectNodeWrapper}.
+ * </p>
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ * @see <a
+ *      href="https://github.com/FasterXML/jackson-databind">https://github.com/FasterXML/jackson-databind</a>
+ */
+public class JsonNodeResolver extends IndexResolver implements
+        TypeAwareResolver {
+
+    public static final int JSON_NODE_RESOLVER_PRIORITY = rightAfter(ArrayIndexResolver.ARRAY_RESOLVER_PRIORITY);
+
+    /**
+     * Use this name if you want to unwrap the current context object (note that
+     * "this" would be normally matched by ThisResolver)
+     */
+    public static final String NAME_UNWRAP_THIS = "unwrapThis";
+
+    /**
+     * If set to <code>true</code> value nodes (text, number, boolean, null,
+     * missing and POJO) are unwrapped automatically.
+     */
+    public static final ConfigurationKey UNWRAP_VALUE_NODE_KEY = new SimpleConfigurationKey(
+            JsonNodeResolver.class.getName() + ".unwrapValueNode", true);
+
+    private boolean unwrapValueNode;
+
+    private final Hint objectHint;
+
+    private final Hint defaultHint;
+
+    /**
+    *
+    */
+    public JsonNodeResolver() {
+        this(JSON_NODE_RESOLVER_PRIORITY);
+    }
+
+    /**
+     *
+     * @param priority
+     */
+    public JsonNodeResolver(int priority) {
+        super(priority);
+        this.objectHint = new Hint() {
+            @Override
+            public Object resolve(Object contextObject, String name,
+                    ResolutionContext context) {
+                ObjectNode node = asObjectNode(contextObject);
+                return node != null ? resolveField(node, name) : null;
+            }
+        };
+        this.defaultHint = new Hint() {
+            @Override
+            public Object resolve(Object contextObject, String name,
+                    ResolutionContext context) {
+                return JsonNodeResolver.this.resolve(contextObject, name,
+                        context);
+            }
+        };
+    }
+
+    @Override
+    public Object resolve(Object contextObject, String name,
+            ResolutionContext context) {
+
+        ObjectNode objectNode = asObjectNode(contextObject);
+        if (objectNode != null) {
+            return resolveField(objectNode, name);
+        }
+
+        if (!(contextObject instanceof JsonNode)) {
+            return null;
+        }
+
+        JsonNode node = (JsonNode) contextObject;
+
+        if (node.isArray()) {
+            if (isAnIndex(name)) {
+                // Index-based access of ArrayNode elements
+                Integer index = getIndexValue(name, node.size());
+                return index != null ? unwrapJsonNodeIfNecessary(node
+                        .get(index)) : null;
+            }
+        } else if (name.equals(NAME_UNWRAP_THIS)) {
+            return unwrapJsonNodeIfNecessary(node);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isApplicable(Class<?> contextObjectType) {
+        return contextObjectType != null
+                && (JsonNode.class.isAssignableFrom(contextObjectType) || ObjectNodeWrapper.class
+                        .equals(contextObjectType));
+    }
+
+    @Override
+    public void init() {
+        unwrapValueNode = configuration
+                .getBooleanPropertyValue(UNWRAP_VALUE_NODE_KEY);
+    }
+
+    @Override
+    public Set<ConfigurationKey> getConfigurationKeys() {
+        return Collections.singleton(UNWRAP_VALUE_NODE_KEY);
+    }
+
+    @Override
+    public Hint createHint(Object contextObject, String name,
+            ResolutionContext context) {
+        if (asObjectNode(contextObject) != null) {
+            return objectHint;
+        }
+        if (contextObject instanceof ArrayNode && isAnIndex(name)) {
+            Integer index = getIndexValue(name, Integer.MAX_VALUE);
+            if (index != null) {
+                return new ArrayIndexHint(index);
+            }
+        }
+        return defaultHint;
+    }
+
+    private Object resolveField(ObjectNode node, String name) {
+        JsonNode value = node.get(name);
+        return value != null ? unwrapJsonNodeIfNecessary(value) : null;
+    }
+
+    private Object unwrapJsonNodeIfNecessary(JsonNode node) {
+        switch (node.getNodeType()) {
+        case OBJECT:
+            return new ObjectNodeWrapper((ObjectNode) node);
+        case STRING:
+            // No copy - the internal value is returned
+            return unwrapValueNode ? node.textValue() : node;
+        case NUMBER:
+            return unwrapValueNode ? node.numberValue() : node;
+        case BOOLEAN:
+            return unwrapValueNode ? node.booleanValue() : node;
+        case NULL:
+        case MISSING:
+            return unwrapValueNode ? Placeholder.NULL : node;
+        case POJO:
+            return unwrapValueNode ? ((POJONode) node).getPojo() : node;
+        default:
+            return node;
+        }
+    }
+
+    private static ObjectNode asObjectNode(Object contextObject) {
+        if (contextObject instanceof ObjectNodeWrapper) {
+            return ((ObjectNodeWrapper) contextObject).getNode();
+        } else if (contextObject instanceof ObjectNode) {
+            return (ObjectNode) contextObject;
+        }
+        return null;
+    }
+
+    private class ArrayIndexHint implements Hint {
+
+        private final int index;
+
+        ArrayIndexHint(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Object resolve(Object contextObject, String name,
+                ResolutionContext context) {
+            if (!(contextObject instanceof ArrayNode)) {
+                return null;
+            }
+            // Returns null if the index is out of bounds
+            JsonNode element = ((ArrayNode) contextObject).get(index);
+            return element != null ? unwrapJsonNodeIfNecessary(element) : null;
+        }
+
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015 Martin Kouba
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trimou.jackson.resolver;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * {@link ObjectNode} implements {@link Iterable} (iterates over the field
+ * values) and so it would not be treated as a nested context in a section.
+ * Therefore object nodes are wrapped when resolved by {@link JsonNodeResolver}.
+ *
+ * @author Martin Kouba
+ * @since 1.8
+ */
+public final class ObjectNodeWrapper {
+
+    private final ObjectNode node;
+
+    ObjectNodeWrapper(ObjectNode node) {
+        this.node = node;
+    }
+
+    /**
+     *
+     * @return the wrapped node
+     */
+    public ObjectNode getNode() {
+        return node;
+    }
+
+    @Override
+    public String toString() {
+        return node.toString();
+    }
+
+}
@@ -0,0 +1,131 @@
+package org.trimou.jackson.resolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+import org.trimou.Mustache;
+import org.trimou.engine.MustacheEngine;
+import org.trimou.engine.MustacheEngineBuilder;
+import org.trimou.engine.resolver.EnhancedResolver.Hint;
+import org.trimou.engine.resolver.MapResolver;
+import org.trimou.engine.resolver.Placeholder;
+import org.trimou.engine.resolver.ThisResolver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ *
+ * @author Martin Kouba
+ */
+public class JsonNodeResolverTest {
+
+    @Test
+    public void testResolution() {
+        JsonNodeResolver resolver = new JsonNodeResolver();
+        // Init the resolver
+        MustacheEngineBuilder.newBuilder().addResolver(resolver).build();
+        assertNull(resolver.resolve(null, "foo", null));
+        assertNull(resolver.resolve("bar", "foo", null));
+        assertEquals(Boolean.TRUE, resolver.resolve(
+                JsonNodeFactory.instance.booleanNode(true), "unwrapThis", null));
+        assertNull(resolver.resolve(JsonNodeFactory.instance.booleanNode(true),
+                "whatever", null));
+        assertEquals(Placeholder.NULL, resolver.resolve(
+                JsonNodeFactory.instance.nullNode(), "unwrapThis", null));
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        node.put("name", "foo");
+        node.putObject("nested").put("bar", 1);
+        // Text value is not copied
+        assertSame(((TextNode) node.get("name")).textValue(),
+                resolver.resolve(node, "name", null));
+        assertTrue(resolver.resolve(node, "nested", null) instanceof ObjectNodeWrapper);
+        assertEquals(1, resolver.resolve(
+                resolver.resolve(node, "nested", null), "bar", null));
+        assertNull(resolver.resolve(node, "missing", null));
+    }
+
+    @Test
+    public void testInterpolation() throws IOException {
+        Mustache mustache = getEngine()
+                .compileMustache(
+                        "json_node_test",
+                        "{{lastName}}|{{#address}}{{street}}{{/address}}|{{#phoneNumbers}}{{type}}{{#iterHasNext}},{{/iterHasNext}}{{/phoneNumbers}}|{{phoneNumbers.0.type}}|{{phoneNumbers.5.type}}|{{age}}");
+        assertEquals("Novy|Nova|home,mobile|home||30",
+                mustache.render(loadJsonData()));
+    }
+
+    @Test
+    public void testUnwrapArrayElements() throws IOException {
+        MustacheEngine engine = getEngine();
+        assertEquals(
+                "Jim,true,5",
+                engine.compileMustache("json_node_unwrap_array_element_test",
+                        "{{#aliases}}{{unwrapThis}}{{#iterHasNext}},{{/iterHasNext}}{{/aliases}}")
+                        .render(loadJsonData()));
+        assertEquals(
+                "Jim,true,5",
+                engine.compileMustache("json_node_unwrap_array_element_test2",
+                        "{{#this}}{{unwrapThis}}{{#iterHasNext}},{{/iterHasNext}}{{/this}}")
+                        .render(loadJsonData("data_array.json")));
+    }
+
+    @Test
+    public void testUnwrapValueNodeSetToFalse() throws IOException {
+        MustacheEngine engine = MustacheEngineBuilder
+                .newBuilder()
+                .addResolver(new JsonNodeResolver())
+                .setProperty(JsonNodeResolver.UNWRAP_VALUE_NODE_KEY, false)
+                .build();
+        assertEquals(
+                "3|MOBILE",
+                engine.compileMustache(
+                        "json_node_unwrap_disabled_test",
+                        "{{firstName.textValue.length}}|{{phoneNumbers.1.type.textValue.toUpperCase}}")
+                        .render(loadJsonData()));
+    }
+
+    @Test
+    public void testHints() {
+        JsonNodeResolver resolver = new JsonNodeResolver();
+        MustacheEngineBuilder.newBuilder().addResolver(resolver).build();
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        node.put("name", "foo");
+        node.putArray("items").add("first").add("second");
+        Hint hint = resolver.createHint(node, "name", null);
+        assertEquals("foo", hint.resolve(node, "name", null));
+        assertNull(hint.resolve(node.get("items"), "name", null));
+        Object items = node.get("items");
+        hint = resolver.createHint(items, "1", null);
+        assertEquals("second", hint.resolve(items, "1", null));
+        assertNull(hint.resolve(node, "1", null));
+        assertNull(hint.resolve(JsonNodeFactory.instance.arrayNode(), "1",
+                null));
+    }
+
+    private MustacheEngine getEngine() {
+        return MustacheEngineBuilder.newBuilder()
+                .omitServiceLoaderConfigurationExtensions()
+                .addResolver(new ThisResolver()).addResolver(new MapResolver())
+                .addResolver(new JsonNodeResolver()).build();
+    }
+
+    private JsonNode loadJsonData() throws IOException {
+        return loadJsonData("data.json");
+    }
+
+    private JsonNode loadJsonData(String fileName) throws IOException {
+        return new ObjectMapper().readTree(new File("src/test/resources/"
+                + fileName));
+    }
+
+}
@@ -15,8 +15,11 @@
  */
 package org.trimou.jdk8.cache;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
@@ -25,7 +28,12 @@ import org.trimou.engine.cache.ComputingCache;
 import org.trimou.engine.cache.ComputingCache.Function;
 import org.trimou.engine.cache.ComputingCache.Listener;
 import org.trimou.engine.cache.ComputingCacheFactory;
+import org.trimou.engine.cache.ComputingCacheStats;
+import org.trimou.engine.cache.ComputingCacheStats.Counter;
+import org.trimou.engine.cache.ComputingCacheStatsMXBean;
 import org.trimou.engine.config.AbstractConfigurationAware;
+import org.trimou.engine.config.ConfigurationKey;
+import org.trimou.engine.config.SimpleConfigurationKey;
 import org.trimou.util.Checker;
 
 import com.google.common.collect.ImmutableMap;
@@ -37,17 +45,34 @@ import com.google.common.collect.ImmutableMap;
  * hand it does not support automatic timeout eviction and listeners. Moreover
  * its size-based eviction is not so effective.
  *
+ * <p>
+ * If {@link #STATS_ENABLED_KEY} is set to <code>true</code> the statistics
+ * are recorded per consumer id and available through
+ * {@link ComputingCacheStatsMXBean}.
+ * </p>
+ *
  * @author Martin Kouba
  * @see Map#computeIfAbsent(Object, java.util.function.Function)
  */
 public class MapBackedComputingCacheFactory extends AbstractConfigurationAware
-        implements ComputingCacheFactory {
+        implements ComputingCacheFactory, ComputingCacheStatsMXBean {
 
     private static final Logger logger = LoggerFactory
             .getLogger(MapBackedComputingCacheFactory.class);
 
+    /**
+     * Enable the statistics
+     */
+    public static final ConfigurationKey STATS_ENABLED_KEY = new SimpleConfigurationKey(
+            MapBackedComputingCacheFactory.class.getName() + ".statsEnabled",
+            false);
+
     private final MaxSizeStrategy maxSizeStrategy;
 
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+
+    private volatile boolean statsEnabled;
+
     public MapBackedComputingCacheFactory() {
         this(MaxSizeStrategy.CLEAR);
     }
@@ -61,6 +86,33 @@ public class MapBackedComputingCacheFactory extends AbstractConfigurationAware
         this.maxSizeStrategy = maxSizeStrategy;
     }
 
+    @Override
+    protected void init() {
+        statsEnabled = configuration
+                .getBooleanPropertyValue(STATS_ENABLED_KEY);
+    }
+
+    @Override
+    public Set<ConfigurationKey> getConfigurationKeys() {
+        return Collections.singleton(STATS_ENABLED_KEY);
+    }
+
+    @Override
+    public boolean isStatsEnabled() {
+        return statsEnabled;
+    }
+
+    @Override
+    public Map<String, ComputingCacheStats> getStats() {
+        ImmutableMap.Builder<String, ComputingCacheStats> builder = ImmutableMap
+                .builder();
+        for (Entry<String, Counter> entry : counters.entrySet()) {
+            builder.put(entry.getKey(),
+                    entry.getValue().snapshot(entry.getKey()));
+        }
+        return builder.build();
+    }
+
     @Override
     public <K, V> ComputingCache<K, V> create(String consumerId,
             Function<K, V> computingFunction, Long expirationTimeout,
@@ -79,7 +131,19 @@ public class MapBackedComputingCacheFactory extends AbstractConfigurationAware
         }
         return new ConcurrentHashMapAdapter<K, V>(
                 new ConcurrentHashMap<K, V>(), computingFunction, maxSize,
-                maxSizeStrategy);
+                maxSizeStrategy, statsEnabled ? getCounter(consumerId) : null);
+    }
+
+    private Counter getCounter(String consumerId) {
+        Counter counter = counters.get(consumerId);
+        if (counter == null) {
+            counter = new Counter();
+            Counter previous = counters.putIfAbsent(consumerId, counter);
+            if (previous != null) {
+                counter = previous;
+            }
+        }
+        return counter;
     }
 
     /**
@@ -103,25 +167,33 @@ public class MapBackedComputingCacheFactory extends AbstractConfigurationAware
 
         private final FunctionAdapter<K, V> computingFunctionAdapter;
 
+        private final Counter counter;
+
         /**
          *
          * @param map
          * @param computingFunction
          * @param maxSize
          * @param maxSizeStrategy
+         * @param counter
+         *            May be null
          */
         ConcurrentHashMapAdapter(ConcurrentHashMap<K, V> map,
                 ComputingCache.Function<K, V> computingFunction, Long maxSize,
-                MaxSizeStrategy maxSizeStrategy) {
+                MaxSizeStrategy maxSizeStrategy, Counter counter) {
             this.map = map;
             this.maxSize = maxSize;
             this.computingFunctionAdapter = new FunctionAdapter<K, V>(
                     computingFunction, this);
             this.maxSizeStrategy = maxSizeStrategy;
+            this.counter = counter;
         }
 
         @Override
         public V get(K key) {
+            if (counter != null) {
+                counter.recordRequest();
+            }
             try {
                 return compute(key);
             } catch (MaxSizeExceededException e) {
@@ -135,7 +207,14 @@ public class MapBackedComputingCacheFactory extends AbstractConfigurationAware
 
         @Override
         public V getIfPresent(K key) {
-            return map.get(key);
+            V value = map.get(key);
+            if (counter != null) {
+                counter.recordRequest();
+                if (value == null) {
+                    counter.recordMiss();
+                }
+            }
+            return value;
         }
 
         @Override
@@ -181,6 +260,9 @@ public class MapBackedComputingCacheFactory extends AbstractConfigurationAware
                 logger.debug(
                         "Max size limit of {} exceeded - removing all entries from the cache",
                         maxSize);
+                if (counter != null) {
+                    counter.recordEvictions(map.size());
+                }
                 map.clear();
                 break;
             default:
@@ -226,7 +308,17 @@ public class MapBackedComputingCacheFactory extends AbstractConfigurationAware
                     && mapAdapter.map.size() > mapAdapter.maxSize) {
                 throw new MaxSizeExceededException();
             }
-            return computingFunction.compute(key);
+            Counter counter = mapAdapter.counter;
+            if (counter == null) {
+                return computingFunction.compute(key);
+            }
+            counter.recordMiss();
+            long start = System.nanoTime();
+            try {
+                return computingFunction.compute(key);
+            } finally {
+                counter.recordLoad(System.nanoTime() - start);
+            }
         }
 
     }
@@ -41,12 +41,16 @@ import org.trimou.handlebars.i18n.DateTimeFormatHelper;
 public class TimeFormatHelper extends
         AbstractTimeFormatHelper<TemporalAccessor, FormatStyle> {
 
+    public static final String COMPUTING_CACHE_CONSUMER_ID = TimeFormatHelper.class
+            .getName();
+
+    // DateTimeFormatter is immutable and thread-safe
     private ComputingCache<CacheKey, DateTimeFormatter> formatterCache;
 
     protected void init() {
         super.init();
         formatterCache = configuration.getComputingCacheFactory().create(
-                "todo",
+                COMPUTING_CACHE_CONSUMER_ID,
                 new ComputingCache.Function<CacheKey, DateTimeFormatter>() {
                     @Override
                     public DateTimeFormatter compute(CacheKey key) {
@@ -1,5 +1,6 @@
 package org.trimou.jdk8.cache;
 
+import org.trimou.engine.MustacheEngine;
 import org.trimou.engine.MustacheEngineBuilder;
 import org.trimou.engine.cache.ComputingCacheTest;
 
@@ -18,4 +19,13 @@ public class MapBackedComputingCacheTest extends
                         new MapBackedComputingCacheFactory()).build();
     }
 
+    @Override
+    protected MustacheEngine buildStatsEngine() {
+        return MustacheEngineBuilder
+                .newBuilder()
+                .setComputingCacheFactory(new MapBackedComputingCacheFactory())
+                .setProperty(MapBackedComputingCacheFactory.STATS_ENABLED_KEY,
+                        true).build();
+    }
+
 }
@@ -34,6 +34,7 @@ import org.trimou.engine.resolver.ArrayIndexResolver;
 import org.trimou.engine.resolver.ResolutionContext;
 import org.trimou.engine.resolver.Resolver;
 import org.trimou.engine.resolver.TransformResolver;
+import org.trimou.engine.resolver.TypeAwareResolver;
 import org.trimou.engine.validation.Validateable;
 import org.trimou.prettytime.DefaultPrettyTimeFactory;
 import org.trimou.prettytime.PrettyTimeFactory;
@@ -64,7 +65,7 @@ import com.google.common.collect.ImmutableSet;
  * @see PrettyTimeHelper
  */
 public class PrettyTimeResolver extends TransformResolver implements
-        Validateable {
+        Validateable, TypeAwareResolver {
 
     public static final int PRETTY_TIME_RESOLVER_PRIORITY = rightAfter(ArrayIndexResolver.ARRAY_RESOLVER_PRIORITY);
 
@@ -126,7 +127,12 @@ public class PrettyTimeResolver extends TransformResolver implements
         if (value == null) {
             return null;
         }
-        return prettyTimeCache.get(getCurrentLocale()).format(value);
+        return prettyTimeCache.get(getCurrentLocale(context)).format(value);
+    }
+
+    @Override
+    public boolean isApplicable(Class<?> contextObjectType) {
+        return contextObjectType != null;
     }
 
     @Override